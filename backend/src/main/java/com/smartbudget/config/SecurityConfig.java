@@ -1,5 +1,6 @@
 package com.smartbudget.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -84,8 +85,11 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource())) // Enable CORS with configuration
                 .csrf(AbstractHttpConfigurer::disable) // Disable CSRF for stateless JWT authentication
                 .authorizeHttpRequests(auth -> auth
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll() // Streamed responses were authorized on the initial dispatch
                         .requestMatchers("/api/auth/**").permitAll() // Allow registration and login
                         .requestMatchers("/api/categories/**").permitAll() // Categories are public
+                        .requestMatchers("/api/categorization/rules/**").authenticated() // Rule maintenance needs a signed-in user
+                        .requestMatchers("/api/categorization/suggest/cache").authenticated() // Cache statistics are operational data
                         .requestMatchers("/api/categorization/**").permitAll() // Suggestions are public
                         .requestMatchers("/api/health").permitAll() // Allow health check
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll() // Allow Swagger
@@ -4,6 +4,7 @@ import com.smartbudget.dto.CategoryBreakdownResponse;
 import com.smartbudget.dto.SummaryResponse;
 import com.smartbudget.dto.TrendDataPoint;
 import com.smartbudget.entity.TransactionType;
+import com.smartbudget.service.AnalyticsResponseCache;
 import com.smartbudget.service.AnalyticsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -13,19 +14,28 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
 /**
  * Analytics endpoints for dashboard summaries.
+ * <p>
+ * Responses carry a strong ETag for the user's current data version; a request whose
+ * {@code If-None-Match} still matches is answered with 304 after a single primary-key lookup.
  */
 @RestController
 @RequestMapping("/api/analytics")
@@ -34,9 +44,11 @@ import java.util.UUID;
 public class AnalyticsController {
 
     private final AnalyticsService analyticsService;
+    private final AnalyticsResponseCache responseCache;
 
-    public AnalyticsController(AnalyticsService analyticsService) {
+    public AnalyticsController(AnalyticsService analyticsService, AnalyticsResponseCache responseCache) {
         this.analyticsService = analyticsService;
+        this.responseCache = responseCache;
     }
 
     @GetMapping("/summary")
@@ -45,11 +57,18 @@ public class AnalyticsController {
     public ResponseEntity<SummaryResponse> getSummary(
             Authentication authentication,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            WebRequest request) {
 
         UUID userId = extractUserId(authentication);
-        SummaryResponse response = analyticsService.getSummary(userId, startDate, endDate);
-        return ResponseEntity.ok(response);
+        AnalyticsResponseCache.Key key = responseCache.key(userId, "summary", startDate, endDate);
+        String etag = responseCache.etag(key);
+        if (matchesIfNoneMatch(request, etag)) {
+            return notModified(etag);
+        }
+        AnalyticsResponseCache.Response<SummaryResponse> response =
+                responseCache.get(key, () -> analyticsService.getSummary(userId, startDate, endDate));
+        return cacheable(response);
     }
 
     @GetMapping("/category-breakdown")
@@ -59,20 +78,26 @@ public class AnalyticsController {
             Authentication authentication,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @RequestParam(required = false) TransactionType transactionType // optional to limit to a type
+            @RequestParam(required = false) TransactionType transactionType, // optional to limit to a type
+            WebRequest request
     ) {
         UUID userId = extractUserId(authentication);
-        List<CategoryBreakdownResponse> allBreakdown = analyticsService.getCategoryBreakdown(userId, startDate, endDate);
-
-        if (transactionType == null) {
-            return ResponseEntity.ok(allBreakdown);
+        AnalyticsResponseCache.Key key = responseCache.key(userId, "category-breakdown", startDate, endDate, transactionType);
+        String etag = responseCache.etag(key);
+        if (matchesIfNoneMatch(request, etag)) {
+            return notModified(etag);
         }
 
-        return ResponseEntity.ok(
-                allBreakdown.stream()
-                        .filter(response -> response.getTransactionType() == transactionType)
-                .toList()
-        );
+        AnalyticsResponseCache.Response<List<CategoryBreakdownResponse>> breakdown = responseCache.get(key, () -> {
+            List<CategoryBreakdownResponse> allBreakdown = analyticsService.getCategoryBreakdown(userId, startDate, endDate);
+            if (transactionType == null) {
+                return allBreakdown;
+            }
+            return allBreakdown.stream()
+                    .filter(response -> response.getTransactionType() == transactionType)
+                    .toList();
+        });
+        return cacheable(breakdown);
     }
 
     @GetMapping("/trends")
@@ -82,10 +107,52 @@ public class AnalyticsController {
             Authentication authentication,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @RequestParam(defaultValue = "MONTH") String groupBy) {
+            @RequestParam(defaultValue = "MONTH") String groupBy,
+            WebRequest request) {
         UUID userId = extractUserId(authentication);
-        List<TrendDataPoint> response = analyticsService.getTrends(userId, startDate, endDate, groupBy);
-        return ResponseEntity.ok(response);
+        String grouping = groupBy.trim().toUpperCase(Locale.ROOT);
+        AnalyticsResponseCache.Key key = responseCache.key(userId, "trends", startDate, endDate, grouping);
+        String etag = responseCache.etag(key);
+        if (matchesIfNoneMatch(request, etag)) {
+            return notModified(etag);
+        }
+        AnalyticsResponseCache.Response<List<TrendDataPoint>> response =
+                responseCache.get(key, () -> analyticsService.getTrends(userId, startDate, endDate, grouping));
+        return cacheable(response);
+    }
+
+    /**
+     * Whether the request's {@code If-None-Match} names the ETag. Unlike
+     * {@link WebRequest#checkNotModified(String)} it writes no headers, so a response computed
+     * under a newer data version is sent with that version's ETag only.
+     */
+    private boolean matchesIfNoneMatch(WebRequest request, String etag) {
+        String[] values = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (values == null) {
+            return false;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(HttpHeaders.IF_NONE_MATCH, Arrays.asList(values));
+        return headers.getIfNoneMatch().stream()
+                .anyMatch(tag -> tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(etag));
+    }
+
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .build();
+    }
+
+    /**
+     * 200 response, tagged with the version it was computed from, that clients may keep but must
+     * revalidate, and shared caches must not store.
+     */
+    private <T> ResponseEntity<T> cacheable(AnalyticsResponseCache.Response<T> response) {
+        return ResponseEntity.ok()
+                .eTag(responseCache.etag(response.key()))
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(response.body());
     }
 
     private UUID extractUserId(Authentication authentication) {
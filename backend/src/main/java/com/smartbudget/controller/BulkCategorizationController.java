@@ -1,8 +1,12 @@
 package com.smartbudget.controller;
 
 import com.smartbudget.dto.BulkCategorizationJobStatus;
+import com.smartbudget.dto.BulkCategorizationPreviewItem;
+import com.smartbudget.dto.BulkCategorizationProgressEvent;
 import com.smartbudget.dto.BulkCategorizationRequest;
+import com.smartbudget.exception.ErrorResponse;
 import com.smartbudget.service.BulkCategorizationService;
+import com.smartbudget.service.BulkJobProgressBroadcaster;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -10,9 +14,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.UUID;
 
@@ -22,33 +30,98 @@ import java.util.UUID;
 public class BulkCategorizationController {
 
     private final BulkCategorizationService bulkCategorizationService;
+    private final BulkJobProgressBroadcaster progressBroadcaster;
 
-    public BulkCategorizationController(BulkCategorizationService bulkCategorizationService) {
+    public BulkCategorizationController(BulkCategorizationService bulkCategorizationService,
+                                        BulkJobProgressBroadcaster progressBroadcaster) {
         this.bulkCategorizationService = bulkCategorizationService;
+        this.progressBroadcaster = progressBroadcaster;
     }
 
     @PostMapping("/bulk-categorize")
-    @Operation(summary = "Start bulk categorization job")
+    @Operation(summary = "Start bulk categorization job",
+            description = "Queues the job and returns immediately; poll the job status or subscribe to its events for progress. "
+                    + "With dryRun set, nothing is changed and the proposed changes are streamed back as NDJSON instead.")
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Job started",
-                    content = @Content(schema = @Schema(implementation = BulkCategorizationJobStatus.class)))
+            @ApiResponse(responseCode = "202", description = "Job queued",
+                    content = @Content(schema = @Schema(implementation = BulkCategorizationJobStatus.class))),
+            @ApiResponse(responseCode = "200", description = "Dry run: one proposed change per line",
+                    content = @Content(mediaType = "application/x-ndjson",
+                            schema = @Schema(implementation = BulkCategorizationPreviewItem.class)))
     })
-    public ResponseEntity<BulkCategorizationJobStatus> startBulkCategorization(
-            @Valid @RequestBody BulkCategorizationRequest request,
-            @AuthenticationPrincipal(expression = "id") UUID userId
+    public ResponseEntity<?> startBulkCategorization(
+            Authentication authentication,
+            @Valid @RequestBody BulkCategorizationRequest request
     ) {
+        UUID userId = extractUserId(authentication);
+        if (request.isDryRun()) {
+            StreamingResponseBody body = out -> bulkCategorizationService.preview(userId, request, out);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+        }
         BulkCategorizationJobStatus status = bulkCategorizationService.startJob(userId, request);
-        return ResponseEntity.ok(status);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
     }
 
     @GetMapping("/bulk-categorize/{jobId}")
     @Operation(summary = "Get bulk categorization job status")
-    public ResponseEntity<BulkCategorizationJobStatus> getJobStatus(@PathVariable UUID jobId) {
-        BulkCategorizationJobStatus status = bulkCategorizationService.getJob(jobId);
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Current job status",
+                    content = @Content(schema = @Schema(implementation = BulkCategorizationJobStatus.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Not found", content = @Content)
+    })
+    public ResponseEntity<BulkCategorizationJobStatus> getJobStatus(Authentication authentication, @PathVariable UUID jobId) {
+        UUID userId = extractUserId(authentication);
+        BulkCategorizationJobStatus status = bulkCategorizationService.getJob(userId, jobId);
         if (status == null) {
             return ResponseEntity.notFound().build();
         }
         return ResponseEntity.ok(status);
     }
-}
 
+    @GetMapping("/bulk-categorize/{jobId}/events")
+    @Operation(summary = "Stream bulk categorization job progress",
+            description = "Server-Sent Events stream of progress events, sent at most once per interval while the job "
+                    + "moves; the stream ends after the job finishes.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Event stream",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            schema = @Schema(implementation = BulkCategorizationProgressEvent.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Not found", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public SseEmitter streamJobProgress(Authentication authentication, @PathVariable UUID jobId) {
+        UUID userId = extractUserId(authentication);
+        return progressBroadcaster.subscribe(userId, jobId);
+    }
+
+    @DeleteMapping("/bulk-categorize/{jobId}")
+    @Operation(summary = "Cancel bulk categorization job",
+            description = "Stops the job between chunks; changes from chunks already applied are kept.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Job cancelled, or already finished",
+                    content = @Content(schema = @Schema(implementation = BulkCategorizationJobStatus.class))),
+            @ApiResponse(responseCode = "403", description = "Forbidden", content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Not found", content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<BulkCategorizationJobStatus> cancelJob(Authentication authentication, @PathVariable UUID jobId) {
+        UUID userId = extractUserId(authentication);
+        return ResponseEntity.ok(bulkCategorizationService.cancelJob(userId, jobId));
+    }
+
+    private UUID extractUserId(Authentication authentication) {
+        if (authentication == null || authentication.getPrincipal() == null) {
+            throw new IllegalStateException("Missing authentication principal");
+        }
+
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof UUID uuid) {
+            return uuid;
+        }
+        if (principal instanceof String stringPrincipal) {
+            return UUID.fromString(stringPrincipal);
+        }
+
+        throw new IllegalStateException("Unsupported principal type");
+    }
+}
@@ -1,23 +1,33 @@
 package com.smartbudget.controller;
 
 import com.smartbudget.dto.CategorySuggestion;
+import com.smartbudget.dto.CategorySuggestionBatchRequest;
 import com.smartbudget.dto.CategorySuggestionRequest;
 import com.smartbudget.dto.CategorySuggestionResponse;
+import com.smartbudget.dto.SuggestionCacheStatsResponse;
+import com.smartbudget.service.CategorizationRuleCache;
 import com.smartbudget.service.CategorizationService;
+import com.smartbudget.service.CategorySuggestionCache;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Public API for transaction category suggestions.
  */
@@ -27,9 +37,15 @@ import org.springframework.web.bind.annotation.RestController;
 public class CategorizationController {
 
     private final CategorizationService categorizationService;
+    private final CategorizationRuleCache ruleCache;
+    private final CategorySuggestionCache suggestionCache;
 
-    public CategorizationController(CategorizationService categorizationService) {
+    public CategorizationController(CategorizationService categorizationService,
+                                    CategorizationRuleCache ruleCache,
+                                    CategorySuggestionCache suggestionCache) {
         this.categorizationService = categorizationService;
+        this.ruleCache = ruleCache;
+        this.suggestionCache = suggestionCache;
     }
 
     @PostMapping(value = "/suggest", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
@@ -58,4 +74,62 @@ public class CategorizationController {
 
         return ResponseEntity.ok(CategorySuggestionResponse.fromSuggestion(suggestion));
     }
+
+    @PostMapping(value = "/suggest/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Suggest categories in bulk",
+            description = "Evaluates up to " + CategorySuggestionBatchRequest.MAX_ITEMS
+                    + " transactions against one rule snapshot and answers in request order.",
+            requestBody = @io.swagger.v3.oas.annotations.parameters.RequestBody(
+                    description = "Transactions used to infer categories",
+                    required = true,
+                    content = @Content(schema = @Schema(implementation = CategorySuggestionBatchRequest.class))
+            )
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Suggestions generated",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = CategorySuggestionResponse.class)))),
+            @ApiResponse(responseCode = "400", description = "Invalid request payload", content = @Content)
+    })
+    public ResponseEntity<List<CategorySuggestionResponse>> suggestCategories(
+            @Valid @RequestBody CategorySuggestionBatchRequest request) {
+
+        List<CategorySuggestionResponse> responses = categorizationService.suggestCategories(request.getItems())
+                .stream()
+                .map(CategorySuggestionResponse::fromSuggestion)
+                .toList();
+
+        return ResponseEntity.ok(responses);
+    }
+
+    @PostMapping(value = "/rules/reload", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Reload categorization rules",
+            description = "Rebuilds the in-memory rule snapshot when the rule-table version has changed. "
+                    + "Requires authentication."
+    )
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Version of the rule snapshot in use"),
+            @ApiResponse(responseCode = "401", description = "Missing or invalid token", content = @Content)
+    })
+    public ResponseEntity<Map<String, Long>> reloadRules() {
+        return ResponseEntity.ok(Map.of("version", ruleCache.refreshIfChanged()));
+    }
+
+    @GetMapping(value = "/suggest/cache", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(
+            summary = "Suggestion cache statistics",
+            description = "Hit, miss and eviction counts of the suggestion cache since startup. "
+                    + "Requires authentication."
+    )
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Current cache statistics",
+                    content = @Content(schema = @Schema(implementation = SuggestionCacheStatsResponse.class))),
+            @ApiResponse(responseCode = "401", description = "Missing or invalid token", content = @Content)
+    })
+    public ResponseEntity<SuggestionCacheStatsResponse> suggestionCacheStats() {
+        return ResponseEntity.ok(suggestionCache.stats());
+    }
 }
@@ -1,5 +1,6 @@
 package com.smartbudget.dto;
 
+import java.time.Instant;
 import java.util.UUID;
 
 /**
@@ -7,14 +8,20 @@ import java.util.UUID;
  */
 public class BulkCategorizationJobStatus {
 
-    public enum Status { PENDING, RUNNING, COMPLETED, FAILED }
+    public enum Status { PENDING, RUNNING, COMPLETED, FAILED, CANCELLED }
 
     private final UUID jobId;
     private Status status;
     private long totalProcessed;
     private long totalUpdated;
     private long totalSkippedLowConfidence;
+    private long memoHits;
+    private long memoMisses;
+    private int queuePosition;
     private String error;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant finishedAt;
 
     public BulkCategorizationJobStatus(UUID jobId, Status status) {
         this.jobId = jobId;
@@ -57,6 +64,40 @@ public class BulkCategorizationJobStatus {
         this.totalSkippedLowConfidence = totalSkippedLowConfidence;
     }
 
+    /**
+     * Rows whose suggestion was reused from an earlier row with the same normalized description,
+     * type and amount band.
+     */
+    public long getMemoHits() {
+        return memoHits;
+    }
+
+    public void setMemoHits(long memoHits) {
+        this.memoHits = memoHits;
+    }
+
+    /**
+     * Rows whose suggestion had to be evaluated.
+     */
+    public long getMemoMisses() {
+        return memoMisses;
+    }
+
+    public void setMemoMisses(long memoMisses) {
+        this.memoMisses = memoMisses;
+    }
+
+    /**
+     * 1-based position among jobs waiting to start, or 0 once the job has started.
+     */
+    public int getQueuePosition() {
+        return queuePosition;
+    }
+
+    public void setQueuePosition(int queuePosition) {
+        this.queuePosition = queuePosition;
+    }
+
     public String getError() {
         return error;
     }
@@ -64,5 +105,28 @@ public class BulkCategorizationJobStatus {
     public void setError(String error) {
         this.error = error;
     }
-}
 
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -0,0 +1,67 @@
+package com.smartbudget.dto;
+
+import java.util.UUID;
+
+/**
+ * One change a bulk categorization job would make, as streamed by a dry run.
+ */
+public class BulkCategorizationPreviewItem {
+
+    private UUID transactionId;
+    private UUID currentCategoryId;
+    private UUID suggestedCategoryId;
+    private String suggestedCategoryName;
+    private double confidence;
+
+    public BulkCategorizationPreviewItem() {
+    }
+
+    public BulkCategorizationPreviewItem(UUID transactionId, UUID currentCategoryId, UUID suggestedCategoryId,
+                                         String suggestedCategoryName, double confidence) {
+        this.transactionId = transactionId;
+        this.currentCategoryId = currentCategoryId;
+        this.suggestedCategoryId = suggestedCategoryId;
+        this.suggestedCategoryName = suggestedCategoryName;
+        this.confidence = confidence;
+    }
+
+    public UUID getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(UUID transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public UUID getCurrentCategoryId() {
+        return currentCategoryId;
+    }
+
+    public void setCurrentCategoryId(UUID currentCategoryId) {
+        this.currentCategoryId = currentCategoryId;
+    }
+
+    public UUID getSuggestedCategoryId() {
+        return suggestedCategoryId;
+    }
+
+    public void setSuggestedCategoryId(UUID suggestedCategoryId) {
+        this.suggestedCategoryId = suggestedCategoryId;
+    }
+
+    public String getSuggestedCategoryName() {
+        return suggestedCategoryName;
+    }
+
+    public void setSuggestedCategoryName(String suggestedCategoryName) {
+        this.suggestedCategoryName = suggestedCategoryName;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    public void setConfidence(double confidence) {
+        this.confidence = confidence;
+    }
+}
@@ -0,0 +1,101 @@
+package com.smartbudget.dto;
+
+import java.util.UUID;
+
+/**
+ * Progress of a running bulk categorization job, as pushed on its event stream.
+ */
+public class BulkCategorizationProgressEvent {
+
+    private UUID jobId;
+    private BulkCategorizationJobStatus.Status status;
+    private long totalProcessed;
+    private long totalUpdated;
+    private long totalSkippedLowConfidence;
+    private double fractionComplete;
+    private double throughputPerSecond;
+    private Long etaSeconds;
+
+    public BulkCategorizationProgressEvent() {
+    }
+
+    public BulkCategorizationProgressEvent(UUID jobId, BulkCategorizationJobStatus.Status status) {
+        this.jobId = jobId;
+        this.status = status;
+    }
+
+    public UUID getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(UUID jobId) {
+        this.jobId = jobId;
+    }
+
+    public BulkCategorizationJobStatus.Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(BulkCategorizationJobStatus.Status status) {
+        this.status = status;
+    }
+
+    public long getTotalProcessed() {
+        return totalProcessed;
+    }
+
+    public void setTotalProcessed(long totalProcessed) {
+        this.totalProcessed = totalProcessed;
+    }
+
+    public long getTotalUpdated() {
+        return totalUpdated;
+    }
+
+    public void setTotalUpdated(long totalUpdated) {
+        this.totalUpdated = totalUpdated;
+    }
+
+    public long getTotalSkippedLowConfidence() {
+        return totalSkippedLowConfidence;
+    }
+
+    public void setTotalSkippedLowConfidence(long totalSkippedLowConfidence) {
+        this.totalSkippedLowConfidence = totalSkippedLowConfidence;
+    }
+
+    /**
+     * Share of the job's id space already walked, between 0 and 1. Transaction ids are random,
+     * so this tracks the share of rows processed closely.
+     */
+    public double getFractionComplete() {
+        return fractionComplete;
+    }
+
+    public void setFractionComplete(double fractionComplete) {
+        this.fractionComplete = fractionComplete;
+    }
+
+    /**
+     * Rows processed per second since the job started.
+     */
+    public double getThroughputPerSecond() {
+        return throughputPerSecond;
+    }
+
+    public void setThroughputPerSecond(double throughputPerSecond) {
+        this.throughputPerSecond = throughputPerSecond;
+    }
+
+    /**
+     * Estimated seconds until the job finishes, or {@code null} while there is nothing to
+     * extrapolate from.
+     */
+    public Long getEtaSeconds() {
+        return etaSeconds;
+    }
+
+    public void setEtaSeconds(Long etaSeconds) {
+        this.etaSeconds = etaSeconds;
+    }
+}
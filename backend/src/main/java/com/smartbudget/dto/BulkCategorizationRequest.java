@@ -25,6 +25,8 @@ public class BulkCategorizationRequest {
     @DecimalMin(value = "0.0", inclusive = false, message = "Threshold must be positive")
     private Double confidenceThreshold = 0.7;
 
+    private boolean dryRun;
+
     public LocalDate getDateFrom() {
         return dateFrom;
     }
@@ -64,5 +66,15 @@ public class BulkCategorizationRequest {
     public void setConfidenceThreshold(Double confidenceThreshold) {
         this.confidenceThreshold = confidenceThreshold;
     }
-}
 
+    /**
+     * When set, the proposed changes are streamed back instead of starting a job.
+     */
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    public void setDryRun(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+}
@@ -0,0 +1,36 @@
+package com.smartbudget.dto;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request payload for the batch category suggestion API.
+ */
+public class CategorySuggestionBatchRequest {
+
+    public static final int MAX_ITEMS = 500;
+
+    @NotEmpty(message = "At least one item is required")
+    @Size(max = MAX_ITEMS, message = "A batch cannot contain more than " + MAX_ITEMS + " items")
+    @Valid
+    @ArraySchema(schema = @Schema(implementation = CategorySuggestionRequest.class),
+            arraySchema = @Schema(description = "Transactions to categorize, answered in the same order"))
+    private List<CategorySuggestionRequest> items = new ArrayList<>();
+
+    public CategorySuggestionBatchRequest() {
+    }
+
+    public List<CategorySuggestionRequest> getItems() {
+        return items;
+    }
+
+    public void setItems(List<CategorySuggestionRequest> items) {
+        this.items = items;
+    }
+}
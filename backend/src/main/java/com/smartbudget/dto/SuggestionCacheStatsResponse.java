@@ -0,0 +1,44 @@
+package com.smartbudget.dto;
+
+/**
+ * Hit/miss counters of the category suggestion cache.
+ */
+public class SuggestionCacheStatsResponse {
+
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+    private long evictionCount;
+    private long size;
+
+    public SuggestionCacheStatsResponse() {
+    }
+
+    public SuggestionCacheStatsResponse(long hitCount, long missCount, double hitRate, long evictionCount, long size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.hitRate = hitRate;
+        this.evictionCount = evictionCount;
+        this.size = size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public long getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,207 @@
+package com.smartbudget.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * A bulk auto-categorization job: its filters and progress counters. The work itself is split
+ * into {@link BulkCategorizationWorkItem}s.
+ */
+@Entity
+@Table(name = "bulk_categorization_jobs")
+public class BulkCategorizationJob {
+
+    public enum Status { PENDING, RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private UUID userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "transaction_type", length = 20)
+    private TransactionType transactionType;
+
+    @Column(name = "date_from")
+    private LocalDate dateFrom;
+
+    @Column(name = "date_to")
+    private LocalDate dateTo;
+
+    @Column(name = "current_category_id")
+    private UUID currentCategoryId;
+
+    @Column(name = "keyword_tokens")
+    private String keywordTokens;
+
+    @Column(name = "confidence_threshold", nullable = false)
+    private double confidenceThreshold;
+
+    @Column(name = "total_processed", nullable = false)
+    private long totalProcessed;
+
+    @Column(name = "total_updated", nullable = false)
+    private long totalUpdated;
+
+    @Column(name = "total_skipped_low_confidence", nullable = false)
+    private long totalSkippedLowConfidence;
+
+    @Column(name = "memo_hits", nullable = false)
+    private long memoHits;
+
+    @Column(name = "memo_misses", nullable = false)
+    private long memoMisses;
+
+    @Column(length = 1000)
+    private String error;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt = Instant.now();
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "finished_at")
+    private Instant finishedAt;
+
+    public UUID getId() {
+        return id;
+    }
+
+    public UUID getUserId() {
+        return userId;
+    }
+
+    public void setUserId(UUID userId) {
+        this.userId = userId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public TransactionType getTransactionType() {
+        return transactionType;
+    }
+
+    public void setTransactionType(TransactionType transactionType) {
+        this.transactionType = transactionType;
+    }
+
+    public LocalDate getDateFrom() {
+        return dateFrom;
+    }
+
+    public void setDateFrom(LocalDate dateFrom) {
+        this.dateFrom = dateFrom;
+    }
+
+    public LocalDate getDateTo() {
+        return dateTo;
+    }
+
+    public void setDateTo(LocalDate dateTo) {
+        this.dateTo = dateTo;
+    }
+
+    public UUID getCurrentCategoryId() {
+        return currentCategoryId;
+    }
+
+    public void setCurrentCategoryId(UUID currentCategoryId) {
+        this.currentCategoryId = currentCategoryId;
+    }
+
+    /**
+     * Space-separated token prefixes the job is limited to, or {@code null} for a job over all of
+     * the user's transactions matching the other filters.
+     */
+    public String getKeywordTokens() {
+        return keywordTokens;
+    }
+
+    public void setKeywordTokens(String keywordTokens) {
+        this.keywordTokens = keywordTokens;
+    }
+
+    public double getConfidenceThreshold() {
+        return confidenceThreshold;
+    }
+
+    public void setConfidenceThreshold(double confidenceThreshold) {
+        this.confidenceThreshold = confidenceThreshold;
+    }
+
+    public long getTotalProcessed() {
+        return totalProcessed;
+    }
+
+    public void setTotalProcessed(long totalProcessed) {
+        this.totalProcessed = totalProcessed;
+    }
+
+    public long getTotalUpdated() {
+        return totalUpdated;
+    }
+
+    public void setTotalUpdated(long totalUpdated) {
+        this.totalUpdated = totalUpdated;
+    }
+
+    public long getTotalSkippedLowConfidence() {
+        return totalSkippedLowConfidence;
+    }
+
+    public void setTotalSkippedLowConfidence(long totalSkippedLowConfidence) {
+        this.totalSkippedLowConfidence = totalSkippedLowConfidence;
+    }
+
+    public long getMemoHits() {
+        return memoHits;
+    }
+
+    public void setMemoHits(long memoHits) {
+        this.memoHits = memoHits;
+    }
+
+    public long getMemoMisses() {
+        return memoMisses;
+    }
+
+    public void setMemoMisses(long memoMisses) {
+        this.memoMisses = memoMisses;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+}
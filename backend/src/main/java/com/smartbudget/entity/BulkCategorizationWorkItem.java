@@ -0,0 +1,112 @@
+package com.smartbudget.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One transaction id range of a bulk categorization job. Workers on any node claim pending items
+ * under a lease and walk the range in keyset chunks from the item's checkpoint.
+ */
+@Entity
+@Table(name = "bulk_categorization_work_items")
+public class BulkCategorizationWorkItem {
+
+    public enum Status { PENDING, RUNNING, DONE, FAILED, CANCELLED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false, updatable = false)
+    private UUID jobId;
+
+    @Column(name = "range_start", nullable = false, updatable = false)
+    private UUID rangeStart;
+
+    @Column(name = "range_end", updatable = false)
+    private UUID rangeEnd;
+
+    @Column(name = "checkpoint_id")
+    private UUID checkpointId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "lease_token")
+    private UUID leaseToken;
+
+    @Column(name = "lease_expires_at")
+    private Instant leaseExpiresAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    public BulkCategorizationWorkItem() {
+    }
+
+    public BulkCategorizationWorkItem(UUID jobId, UUID rangeStart, UUID rangeEnd) {
+        this.jobId = jobId;
+        this.rangeStart = rangeStart;
+        this.rangeEnd = rangeEnd;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public UUID getJobId() {
+        return jobId;
+    }
+
+    /**
+     * Exclusive lower bound of the covered transaction ids.
+     */
+    public UUID getRangeStart() {
+        return rangeStart;
+    }
+
+    /**
+     * Inclusive upper bound of the covered transaction ids, or {@code null} for the last range.
+     */
+    public UUID getRangeEnd() {
+        return rangeEnd;
+    }
+
+    public UUID getCheckpointId() {
+        return checkpointId;
+    }
+
+    public void setCheckpointId(UUID checkpointId) {
+        this.checkpointId = checkpointId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public UUID getLeaseToken() {
+        return leaseToken;
+    }
+
+    public Instant getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+}
@@ -0,0 +1,96 @@
+package com.smartbudget.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Number of times a user filed descriptions containing a token under a category.
+ */
+@Entity
+@Table(name = "categorization_token_stats")
+public class CategorizationTokenStat {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "correction_count", nullable = false)
+    private long correctionCount;
+
+    public CategorizationTokenStat() {
+    }
+
+    public CategorizationTokenStat(Key id, long correctionCount) {
+        this.id = id;
+        this.correctionCount = correctionCount;
+    }
+
+    public Key getId() {
+        return id;
+    }
+
+    public long getCorrectionCount() {
+        return correctionCount;
+    }
+
+    public void setCorrectionCount(long correctionCount) {
+        this.correctionCount = correctionCount;
+    }
+
+    /**
+     * Composite key of user, token and category.
+     */
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "user_id", nullable = false)
+        private UUID userId;
+
+        @Column(nullable = false, length = 64)
+        private String token;
+
+        @Column(name = "category_id", nullable = false)
+        private UUID categoryId;
+
+        public Key() {
+        }
+
+        public Key(UUID userId, String token, UUID categoryId) {
+            this.userId = userId;
+            this.token = token;
+            this.categoryId = categoryId;
+        }
+
+        public UUID getUserId() {
+            return userId;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public UUID getCategoryId() {
+            return categoryId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key key)) {
+                return false;
+            }
+            return Objects.equals(userId, key.userId)
+                    && Objects.equals(token, key.token)
+                    && Objects.equals(categoryId, key.categoryId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, token, categoryId);
+        }
+    }
+}
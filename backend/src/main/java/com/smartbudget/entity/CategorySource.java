@@ -0,0 +1,9 @@
+package com.smartbudget.entity;
+
+/**
+ * Enum representing who set a transaction's category: the user, or a bulk or rule-change job.
+ */
+public enum CategorySource {
+    USER,
+    AUTO
+}
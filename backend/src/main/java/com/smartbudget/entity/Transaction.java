@@ -43,6 +43,10 @@ public class Transaction {
     @Column(name = "transaction_type", nullable = false, length = 20)
     private TransactionType transactionType;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "category_source", nullable = false, length = 10)
+    private CategorySource categorySource = CategorySource.USER;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -122,6 +126,14 @@ public class Transaction {
         this.transactionType = transactionType;
     }
 
+    public CategorySource getCategorySource() {
+        return categorySource;
+    }
+
+    public void setCategorySource(CategorySource categorySource) {
+        this.categorySource = categorySource;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,107 @@
+package com.smartbudget.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Sum and count of a user's transactions of one type and category on one day. Rows are
+ * maintained by database triggers on {@code transactions}; the application only reads them.
+ */
+@Entity
+@Table(name = "transaction_daily_rollups")
+public class TransactionDailyRollup {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "total_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount;
+
+    public TransactionDailyRollup() {
+    }
+
+    public Key getId() {
+        return id;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    /**
+     * Composite key of user, day, category and transaction type.
+     */
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "user_id", nullable = false)
+        private UUID userId;
+
+        @Column(nullable = false)
+        private LocalDate day;
+
+        @Column(name = "category_id", nullable = false)
+        private UUID categoryId;
+
+        @Enumerated(EnumType.STRING)
+        @Column(name = "transaction_type", nullable = false, length = 20)
+        private TransactionType transactionType;
+
+        public Key() {
+        }
+
+        public Key(UUID userId, LocalDate day, UUID categoryId, TransactionType transactionType) {
+            this.userId = userId;
+            this.day = day;
+            this.categoryId = categoryId;
+            this.transactionType = transactionType;
+        }
+
+        public UUID getUserId() {
+            return userId;
+        }
+
+        public LocalDate getDay() {
+            return day;
+        }
+
+        public UUID getCategoryId() {
+            return categoryId;
+        }
+
+        public TransactionType getTransactionType() {
+            return transactionType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key key)) {
+                return false;
+            }
+            return Objects.equals(userId, key.userId)
+                    && Objects.equals(day, key.day)
+                    && Objects.equals(categoryId, key.categoryId)
+                    && transactionType == key.transactionType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, day, categoryId, transactionType);
+        }
+    }
+}
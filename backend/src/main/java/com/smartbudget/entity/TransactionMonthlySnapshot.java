@@ -0,0 +1,81 @@
+package com.smartbudget.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Marks a closed month of a user whose totals are materialized in
+ * {@link TransactionMonthlySnapshotTotal}. Database triggers delete the row, and its totals with it,
+ * when a write touches a date in the month; the application only reads it.
+ */
+@Entity
+@Table(name = "transaction_monthly_snapshots")
+public class TransactionMonthlySnapshot {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "materialized_at", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime materializedAt;
+
+    public TransactionMonthlySnapshot() {
+    }
+
+    public Key getId() {
+        return id;
+    }
+
+    public LocalDateTime getMaterializedAt() {
+        return materializedAt;
+    }
+
+    /**
+     * Composite key of user and first day of the month.
+     */
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "user_id", nullable = false)
+        private UUID userId;
+
+        @Column(nullable = false)
+        private LocalDate month;
+
+        public Key() {
+        }
+
+        public Key(UUID userId, LocalDate month) {
+            this.userId = userId;
+            this.month = month;
+        }
+
+        public UUID getUserId() {
+            return userId;
+        }
+
+        public LocalDate getMonth() {
+            return month;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key key)) {
+                return false;
+            }
+            return Objects.equals(userId, key.userId) && Objects.equals(month, key.month);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, month);
+        }
+    }
+}
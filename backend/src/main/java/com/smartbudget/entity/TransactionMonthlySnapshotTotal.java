@@ -0,0 +1,107 @@
+package com.smartbudget.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Sum and count of a user's transactions of one type and category in one closed month, copied
+ * from the daily rollups when the month's {@link TransactionMonthlySnapshot} was materialized.
+ */
+@Entity
+@Table(name = "transaction_monthly_snapshot_totals")
+public class TransactionMonthlySnapshotTotal {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "total_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount;
+
+    public TransactionMonthlySnapshotTotal() {
+    }
+
+    public Key getId() {
+        return id;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    /**
+     * Composite key of user, first day of the month, category and transaction type.
+     */
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "user_id", nullable = false)
+        private UUID userId;
+
+        @Column(nullable = false)
+        private LocalDate month;
+
+        @Column(name = "category_id", nullable = false)
+        private UUID categoryId;
+
+        @Enumerated(EnumType.STRING)
+        @Column(name = "transaction_type", nullable = false, length = 20)
+        private TransactionType transactionType;
+
+        public Key() {
+        }
+
+        public Key(UUID userId, LocalDate month, UUID categoryId, TransactionType transactionType) {
+            this.userId = userId;
+            this.month = month;
+            this.categoryId = categoryId;
+            this.transactionType = transactionType;
+        }
+
+        public UUID getUserId() {
+            return userId;
+        }
+
+        public LocalDate getMonth() {
+            return month;
+        }
+
+        public UUID getCategoryId() {
+            return categoryId;
+        }
+
+        public TransactionType getTransactionType() {
+            return transactionType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key key)) {
+                return false;
+            }
+            return Objects.equals(userId, key.userId)
+                    && Objects.equals(month, key.month)
+                    && Objects.equals(categoryId, key.categoryId)
+                    && transactionType == key.transactionType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, month, categoryId, transactionType);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.smartbudget.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * One normalized description token of a transaction, as kept in the reverse token index.
+ */
+@Entity
+@Table(name = "transaction_tokens")
+public class TransactionToken {
+
+    @EmbeddedId
+    private Key id;
+
+    public TransactionToken() {
+    }
+
+    public TransactionToken(Key id) {
+        this.id = id;
+    }
+
+    public Key getId() {
+        return id;
+    }
+
+    /**
+     * Composite key of user, token and transaction.
+     */
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "user_id", nullable = false)
+        private UUID userId;
+
+        @Column(nullable = false, length = 64)
+        private String token;
+
+        @Column(name = "transaction_id", nullable = false)
+        private UUID transactionId;
+
+        public Key() {
+        }
+
+        public Key(UUID userId, String token, UUID transactionId) {
+            this.userId = userId;
+            this.token = token;
+            this.transactionId = transactionId;
+        }
+
+        public UUID getUserId() {
+            return userId;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public UUID getTransactionId() {
+            return transactionId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key key)) {
+                return false;
+            }
+            return Objects.equals(userId, key.userId)
+                    && Objects.equals(token, key.token)
+                    && Objects.equals(transactionId, key.transactionId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, token, transactionId);
+        }
+    }
+}
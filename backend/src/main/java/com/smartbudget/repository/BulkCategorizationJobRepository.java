@@ -0,0 +1,134 @@
+package com.smartbudget.repository;
+
+import com.smartbudget.entity.BulkCategorizationJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Persistent registry of bulk categorization jobs. Counters are advanced by the workers that
+ * process the job's work items, in the same transaction as each chunk's writes.
+ */
+@Repository
+public interface BulkCategorizationJobRepository extends JpaRepository<BulkCategorizationJob, UUID> {
+
+    /**
+     * Pending jobs created before the given instant, i.e. queued ahead of a job created then.
+     */
+    long countByStatusAndCreatedAtBefore(BulkCategorizationJob.Status status, Instant createdAt);
+
+    /**
+     * Lock the job row until the end of the current transaction, serializing completion checks
+     * of workers that finish the job's last items concurrently.
+     */
+    @Query(value = "SELECT id FROM bulk_categorization_jobs WHERE id = :id FOR UPDATE", nativeQuery = true)
+    UUID lockById(UUID id);
+
+    /**
+     * Take the job's user's bulk claim lock until the end of the current transaction, so checking
+     * how many of the user's jobs are running and starting another one is atomic across workers
+     * on every node. Keyed apart from the monthly snapshot locks.
+     */
+    @Query(value = """
+            SELECT CAST(pg_advisory_xact_lock(hashtextextended(CAST(user_id AS text) || ':bulk-claim', 0)) AS text)
+            FROM bulk_categorization_jobs
+            WHERE id = :id
+            """, nativeQuery = true)
+    String lockUserClaims(UUID id);
+
+    /**
+     * Whether the job may take a work item: it is already running, or its user has fewer than
+     * {@code maxRunningJobs} running jobs. Only conclusive while holding {@link #lockUserClaims}.
+     */
+    @Query(value = """
+            SELECT j.status = 'RUNNING'
+                   OR (SELECT COUNT(*)
+                       FROM bulk_categorization_jobs r
+                       WHERE r.user_id = j.user_id
+                         AND r.status = 'RUNNING') < :maxRunningJobs
+            FROM bulk_categorization_jobs j
+            WHERE j.id = :id
+            """, nativeQuery = true)
+    boolean canClaim(UUID id, int maxRunningJobs);
+
+    /**
+     * Move a pending job to RUNNING when its first work item is claimed.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE bulk_categorization_jobs
+            SET status = 'RUNNING',
+                started_at = COALESCE(started_at, now())
+            WHERE id = :id AND status = 'PENDING'
+            """, nativeQuery = true)
+    int markRunning(UUID id);
+
+    /**
+     * Add a committed chunk's counts.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE bulk_categorization_jobs
+            SET total_processed = total_processed + :processed,
+                total_updated = total_updated + :updated,
+                total_skipped_low_confidence = total_skipped_low_confidence + :skipped,
+                memo_hits = memo_hits + :memoHits,
+                memo_misses = memo_misses + :memoMisses
+            WHERE id = :id
+            """, nativeQuery = true)
+    int addProgress(UUID id, long processed, long updated, long skipped, long memoHits, long memoMisses);
+
+    /**
+     * Finish the job once none of its work items is pending or running: FAILED with the first
+     * item error if any item failed, COMPLETED otherwise. Call with the job row locked.
+     *
+     * @return 1 when the job was finished by this call
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE bulk_categorization_jobs j
+            SET status = CASE WHEN EXISTS (SELECT 1 FROM bulk_categorization_work_items w
+                                           WHERE w.job_id = j.id AND w.status = 'FAILED')
+                              THEN 'FAILED' ELSE 'COMPLETED' END,
+                error = (SELECT w.last_error FROM bulk_categorization_work_items w
+                         WHERE w.job_id = j.id AND w.status = 'FAILED'
+                         ORDER BY w.id LIMIT 1),
+                finished_at = now()
+            WHERE j.id = :id
+              AND j.status IN ('PENDING', 'RUNNING')
+              AND NOT EXISTS (SELECT 1 FROM bulk_categorization_work_items w
+                              WHERE w.job_id = j.id AND w.status IN ('PENDING', 'RUNNING'))
+            """, nativeQuery = true)
+    int finishIfDone(UUID id);
+
+    /**
+     * Cancel a job that has not finished yet. Call after cancelling its work items.
+     *
+     * @return 1 when the job was cancelled by this call
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE bulk_categorization_jobs
+            SET status = 'CANCELLED',
+                finished_at = now()
+            WHERE id = :id AND status IN ('PENDING', 'RUNNING')
+            """, nativeQuery = true)
+    int cancel(UUID id);
+
+    /**
+     * Delete jobs, and with them their work items, that finished before the cutoff.
+     */
+    @Modifying
+    @Query("""
+            DELETE FROM BulkCategorizationJob j
+            WHERE j.status IN (com.smartbudget.entity.BulkCategorizationJob.Status.COMPLETED,
+                               com.smartbudget.entity.BulkCategorizationJob.Status.FAILED,
+                               com.smartbudget.entity.BulkCategorizationJob.Status.CANCELLED)
+              AND j.finishedAt < :finishedBefore
+            """)
+    int deleteFinishedBefore(Instant finishedBefore);
+}
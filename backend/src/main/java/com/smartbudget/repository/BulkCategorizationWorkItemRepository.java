@@ -0,0 +1,148 @@
+package com.smartbudget.repository;
+
+import com.smartbudget.entity.BulkCategorizationWorkItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Postgres-backed work queue for bulk categorization.
+ * <p>
+ * Workers lock the next claimable item with {@code FOR UPDATE SKIP LOCKED}, so concurrent workers
+ * on any node never block on or double-claim the same row, and then lease it with a fresh token.
+ * Progress and completion writes only succeed while that token still holds the item; an item
+ * whose lease expired is claimable again until it runs out of attempts.
+ */
+@Repository
+public interface BulkCategorizationWorkItemRepository extends JpaRepository<BulkCategorizationWorkItem, Long> {
+
+    /**
+     * Lock the oldest claimable item of a job that is running or whose user is below the running
+     * job limit, skipping items locked by other workers. The limit check here only narrows the
+     * search; it is confirmed under {@link BulkCategorizationJobRepository#lockUserClaims} before
+     * {@link #lease} in the same transaction.
+     */
+    @Query(value = """
+            SELECT w.*
+            FROM bulk_categorization_work_items w
+            JOIN bulk_categorization_jobs j ON j.id = w.job_id
+            WHERE w.attempts < :maxAttempts
+              AND (w.status = 'PENDING' OR (w.status = 'RUNNING' AND w.lease_expires_at < now()))
+              AND (j.status = 'RUNNING'
+                   OR (SELECT COUNT(*)
+                       FROM bulk_categorization_jobs r
+                       WHERE r.user_id = j.user_id
+                         AND r.status = 'RUNNING') < :maxRunningJobsPerUser)
+            ORDER BY j.created_at, w.id
+            LIMIT 1
+            FOR UPDATE OF w SKIP LOCKED
+            """, nativeQuery = true)
+    Optional<BulkCategorizationWorkItem> lockNextClaimable(int maxAttempts, int maxRunningJobsPerUser);
+
+    /**
+     * Lease a locked item to a worker and count the attempt.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE bulk_categorization_work_items
+            SET status = 'RUNNING',
+                lease_token = :leaseToken,
+                lease_expires_at = now() + :leaseSeconds * INTERVAL '1 second',
+                attempts = attempts + 1
+            WHERE id = :id
+            """, nativeQuery = true)
+    int lease(Long id, UUID leaseToken, long leaseSeconds);
+
+    /**
+     * Move the checkpoint after a committed chunk and extend the lease.
+     *
+     * @return 0 when the lease was lost to another worker
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE bulk_categorization_work_items
+            SET checkpoint_id = :checkpointId,
+                lease_expires_at = now() + :leaseSeconds * INTERVAL '1 second'
+            WHERE id = :id AND lease_token = :leaseToken AND status = 'RUNNING'
+            """, nativeQuery = true)
+    int recordProgress(Long id, UUID leaseToken, UUID checkpointId, long leaseSeconds);
+
+    /**
+     * Mark a leased item as done.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE bulk_categorization_work_items
+            SET status = 'DONE',
+                lease_token = NULL,
+                lease_expires_at = NULL
+            WHERE id = :id AND lease_token = :leaseToken AND status = 'RUNNING'
+            """, nativeQuery = true)
+    int complete(Long id, UUID leaseToken);
+
+    /**
+     * Give a leased item back after an error: PENDING for a retry, or FAILED once it has used
+     * all attempts.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE bulk_categorization_work_items
+            SET status = CASE WHEN attempts >= :maxAttempts THEN 'FAILED' ELSE 'PENDING' END,
+                last_error = :error,
+                lease_token = NULL,
+                lease_expires_at = NULL
+            WHERE id = :id AND lease_token = :leaseToken AND status = 'RUNNING'
+            """, nativeQuery = true)
+    int release(Long id, UUID leaseToken, String error, int maxAttempts);
+
+    /**
+     * Cancel a job's pending and running items. A worker holding one of them loses its lease at
+     * its next progress write and stops.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE bulk_categorization_work_items
+            SET status = 'CANCELLED',
+                lease_token = NULL,
+                lease_expires_at = NULL
+            WHERE job_id = :jobId AND status IN ('PENDING', 'RUNNING')
+            """, nativeQuery = true)
+    int cancelUnfinished(UUID jobId);
+
+    /**
+     * Work items of the given jobs, for progress reporting.
+     */
+    List<BulkCategorizationWorkItem> findByJobIdIn(Collection<UUID> jobIds);
+
+    /**
+     * Lock items whose lease expired after their last attempt, skipping items locked elsewhere.
+     */
+    @Query(value = """
+            SELECT *
+            FROM bulk_categorization_work_items
+            WHERE status = 'RUNNING' AND lease_expires_at < now() AND attempts >= :maxAttempts
+            ORDER BY id
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<BulkCategorizationWorkItem> lockAbandoned(int maxAttempts);
+
+    /**
+     * Fail items for good; they are never claimed again.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE bulk_categorization_work_items
+            SET status = 'FAILED',
+                last_error = :error,
+                lease_token = NULL,
+                lease_expires_at = NULL
+            WHERE id IN (:ids)
+            """, nativeQuery = true)
+    int fail(Collection<Long> ids, String error);
+}
@@ -2,11 +2,13 @@ package com.smartbudget.repository;
 
 import com.smartbudget.entity.CategorizationFeedback;
 import com.smartbudget.repository.projection.CategoryMetricsProjection;
-import com.smartbudget.repository.projection.FeedbackCategoryCount;
+import com.smartbudget.repository.projection.FeedbackTrainingView;
 import com.smartbudget.repository.projection.MetricsTotalsProjection;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
@@ -15,16 +17,6 @@ import java.util.UUID;
  */
 public interface CategorizationFeedbackRepository extends JpaRepository<CategorizationFeedback, UUID> {
 
-    @Query("""
-            SELECT f.actualCategory AS category, COUNT(f.id) AS correctionCount
-            FROM CategorizationFeedback f
-            WHERE f.user.id = :userId
-              AND LOWER(f.description) LIKE LOWER(CONCAT('%', :token, '%'))
-            GROUP BY f.actualCategory
-            ORDER BY correctionCount DESC
-            """)
-    List<FeedbackCategoryCount> findTopCategoriesForUserAndToken(UUID userId, String token);
-
     @Query("""
             SELECT COUNT(f.id) AS total,
                    SUM(CASE WHEN f.suggestedCategory.id = f.actualCategory.id THEN 1 ELSE 0 END) AS accepted,
@@ -48,4 +40,25 @@ public interface CategorizationFeedbackRepository extends JpaRepository<Categori
             ORDER BY total DESC
             """)
     List<CategoryMetricsProjection> summarizeByCategory(java.time.Instant start, java.time.Instant end);
+
+    /**
+     * Feedback recorded after the given (createdAt, id) position and before {@code settledBefore},
+     * oldest first, for incremental model training.
+     */
+    @Query("""
+            SELECT f.id AS id,
+                   f.createdAt AS createdAt,
+                   f.description AS description,
+                   t.amount AS amount,
+                   t.transactionType AS transactionType,
+                   f.actualCategory.id AS categoryId
+            FROM CategorizationFeedback f
+            JOIN f.transaction t
+            WHERE f.createdAt < :settledBefore
+              AND (f.createdAt > :after
+                   OR (f.createdAt = :after AND f.id > :afterId))
+            ORDER BY f.createdAt, f.id
+            """)
+    List<FeedbackTrainingView> findTrainingExamplesAfter(Instant after, UUID afterId, Instant settledBefore,
+                                                         Pageable pageable);
 }
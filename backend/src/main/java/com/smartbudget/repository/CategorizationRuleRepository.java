@@ -3,8 +3,11 @@ package com.smartbudget.repository;
 import com.smartbudget.entity.CategorizationRule;
 import com.smartbudget.entity.TransactionType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository for keyword-based categorization rules.
@@ -18,5 +21,67 @@ public interface CategorizationRuleRepository extends JpaRepository<Categorizati
      * @return list of rules
      */
     List<CategorizationRule> findByTransactionType(TransactionType transactionType);
-}
 
+    /**
+     * Retrieve every rule with its category initialized in the same query.
+     *
+     * @return list of rules with categories fetched
+     */
+    @Query("SELECT r FROM CategorizationRule r JOIN FETCH r.category")
+    List<CategorizationRule> findAllWithCategory();
+
+    /**
+     * Current version of the rule set, bumped by a trigger on every rule change.
+     *
+     * @return rule set version if the version row exists
+     */
+    @Query(value = "SELECT version FROM categorization_rule_version WHERE id = 1", nativeQuery = true)
+    Optional<Long> findRuleSetVersion();
+
+    /**
+     * Last rule-set version queued for re-categorization, locking the version row until the end of
+     * the transaction so that one node at a time claims versions.
+     *
+     * @return re-categorized version if the version row exists
+     */
+    @Query(value = "SELECT recategorized_version FROM categorization_rule_version WHERE id = 1 FOR UPDATE",
+            nativeQuery = true)
+    Optional<Long> lockRecategorizedVersion();
+
+    /**
+     * Normalized keywords of the rules written by the rule-set versions after {@code afterVersion}
+     * up to and including {@code version}, as recorded by the rule table triggers.
+     *
+     * @return distinct keywords in sorted order
+     */
+    @Query(value = """
+            SELECT DISTINCT keyword
+            FROM categorization_rule_changes
+            WHERE version > :afterVersion AND version <= :version
+            ORDER BY keyword
+            """, nativeQuery = true)
+    List<String> findChangedKeywords(long afterVersion, long version);
+
+    /**
+     * Drop the recorded changes of every rule-set version up to and including {@code version}.
+     *
+     * @return number of rows removed
+     */
+    @Modifying
+    @Query(value = "DELETE FROM categorization_rule_changes WHERE version <= :version", nativeQuery = true)
+    int deleteChangesUpTo(long version);
+
+    /**
+     * Claim the re-categorization for a rule-set version. Only the first claim of a version
+     * succeeds, so one node queues the work for a change however many nodes notice it.
+     *
+     * @return 1 if this call claimed the version, 0 if it was already claimed
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE categorization_rule_version
+            SET recategorized_version = :version
+            WHERE id = 1 AND recategorized_version < :version
+            """, nativeQuery = true)
+    int claimRecategorization(long version);
+}
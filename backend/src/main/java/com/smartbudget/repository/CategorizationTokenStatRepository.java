@@ -0,0 +1,42 @@
+package com.smartbudget.repository;
+
+import com.smartbudget.entity.CategorizationTokenStat;
+import com.smartbudget.repository.projection.TokenCategoryCountView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository for per-user token -> category personalization counts.
+ */
+public interface CategorizationTokenStatRepository extends JpaRepository<CategorizationTokenStat, CategorizationTokenStat.Key> {
+
+    /**
+     * Increment the count for a token/category pair, inserting the row on first use.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO categorization_token_stats (user_id, token, category_id, correction_count)
+            VALUES (:userId, :token, :categoryId, 1)
+            ON CONFLICT (user_id, token, category_id)
+            DO UPDATE SET correction_count = categorization_token_stats.correction_count + 1
+            """, nativeQuery = true)
+    int incrementCount(UUID userId, String token, UUID categoryId);
+
+    /**
+     * All token counts of a user, most frequent first.
+     */
+    @Query("""
+            SELECT s.id.token AS token,
+                   s.id.categoryId AS categoryId,
+                   s.correctionCount AS correctionCount
+            FROM CategorizationTokenStat s
+            WHERE s.id.userId = :userId
+            ORDER BY s.correctionCount DESC
+            """)
+    List<TokenCategoryCountView> findCountsByUserId(UUID userId, Pageable pageable);
+}
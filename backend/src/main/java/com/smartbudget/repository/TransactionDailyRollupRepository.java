@@ -0,0 +1,116 @@
+package com.smartbudget.repository;
+
+import com.smartbudget.entity.TransactionDailyRollup;
+import com.smartbudget.repository.projection.CategoryBreakdownView;
+import com.smartbudget.repository.projection.TransactionSummaryView;
+import com.smartbudget.repository.projection.TrendAggregationView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Analytics aggregations over the daily transaction rollups, plus the queries that verify and
+ * rebuild them from {@code transactions}.
+ */
+public interface TransactionDailyRollupRepository extends JpaRepository<TransactionDailyRollup, TransactionDailyRollup.Key> {
+
+    /**
+     * Aggregated summary for income/expenses/count.
+     */
+    @Query("""
+            SELECT
+                COALESCE(SUM(CASE WHEN r.id.transactionType = com.smartbudget.entity.TransactionType.INCOME THEN r.totalAmount ELSE 0 END), 0) AS income,
+                COALESCE(SUM(CASE WHEN r.id.transactionType = com.smartbudget.entity.TransactionType.EXPENSE THEN r.totalAmount ELSE 0 END), 0) AS expenses,
+                COALESCE(SUM(r.transactionCount), 0) AS transactionCount
+            FROM TransactionDailyRollup r
+            WHERE r.id.userId = :userId
+              AND r.id.day BETWEEN :startDate AND :endDate
+            """)
+    TransactionSummaryView summarizeTransactions(UUID userId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Aggregated totals per category and transaction type.
+     */
+    @Query("""
+            SELECT r.id.categoryId AS categoryId,
+                   c.name AS categoryName,
+                   r.id.transactionType AS transactionType,
+                   SUM(r.totalAmount) AS totalAmount,
+                   SUM(r.transactionCount) AS transactionCount
+            FROM TransactionDailyRollup r
+            JOIN Category c ON c.id = r.id.categoryId
+            WHERE r.id.userId = :userId
+              AND r.id.day BETWEEN :startDate AND :endDate
+            GROUP BY r.id.categoryId, c.name, r.id.transactionType
+            HAVING SUM(r.transactionCount) > 0
+            ORDER BY totalAmount DESC
+            """)
+    List<CategoryBreakdownView> getCategoryBreakdown(UUID userId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Aggregates totals into periods of a {@code date_trunc} unit ({@code day}, {@code week} or
+     * {@code month}), keyed by the first day of each period and ordered by it. Periods without
+     * rollups are left out; callers fill the gaps.
+     */
+    @Query(value = """
+            SELECT CAST(date_trunc(:unit, CAST(r.day AS timestamp)) AS date) AS period,
+                   SUM(CASE WHEN r.transaction_type = 'INCOME' THEN r.total_amount ELSE 0 END) AS income,
+                   SUM(CASE WHEN r.transaction_type = 'EXPENSE' THEN r.total_amount ELSE 0 END) AS expenses,
+                   CAST(SUM(r.transaction_count) AS bigint) AS "transactionCount"
+            FROM transaction_daily_rollups r
+            WHERE r.user_id = :userId
+              AND r.day BETWEEN :startDate AND :endDate
+            GROUP BY 1
+            ORDER BY 1
+            """, nativeQuery = true)
+    List<TrendAggregationView> aggregateByPeriod(UUID userId, LocalDate startDate, LocalDate endDate, String unit);
+
+    /**
+     * Users whose rollups differ from a fresh aggregation of their transactions. Scans the whole
+     * transactions table; meant for the periodic verify job only.
+     */
+    @Query(value = """
+            SELECT DISTINCT COALESCE(t.user_id, r.user_id)
+            FROM (
+                SELECT user_id, transaction_date AS day, category_id, transaction_type,
+                       SUM(amount) AS total_amount, COUNT(*) AS transaction_count
+                FROM transactions
+                GROUP BY user_id, transaction_date, category_id, transaction_type
+            ) t
+            FULL OUTER JOIN transaction_daily_rollups r
+              ON r.user_id = t.user_id
+             AND r.day = t.day
+             AND r.category_id = t.category_id
+             AND r.transaction_type = t.transaction_type
+            WHERE t.total_amount IS DISTINCT FROM r.total_amount
+               OR t.transaction_count IS DISTINCT FROM r.transaction_count
+            """, nativeQuery = true)
+    List<UUID> findUserIdsWithDrift();
+
+    /**
+     * Drop a user's rollups ahead of {@link #rebuildForUser}.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM transaction_daily_rollups WHERE user_id = :userId", nativeQuery = true)
+    int deleteByUserId(UUID userId);
+
+    /**
+     * Recompute a user's rollups from their transactions.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO transaction_daily_rollups (user_id, day, category_id, transaction_type, total_amount, transaction_count)
+            SELECT user_id, transaction_date, category_id, transaction_type, SUM(amount), COUNT(*)
+            FROM transactions
+            WHERE user_id = :userId
+            GROUP BY user_id, transaction_date, category_id, transaction_type
+            ON CONFLICT (user_id, day, category_id, transaction_type) DO UPDATE
+            SET total_amount = EXCLUDED.total_amount,
+                transaction_count = EXCLUDED.transaction_count
+            """, nativeQuery = true)
+    int rebuildForUser(UUID userId);
+}
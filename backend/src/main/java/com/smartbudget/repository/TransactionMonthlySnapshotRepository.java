@@ -0,0 +1,116 @@
+package com.smartbudget.repository;
+
+import com.smartbudget.entity.TransactionMonthlySnapshot;
+import com.smartbudget.repository.projection.CategoryBreakdownView;
+import com.smartbudget.repository.projection.TransactionSummaryView;
+import com.smartbudget.repository.projection.TrendAggregationView;
+import com.smartbudget.repository.projection.UnmaterializedMonthView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Analytics aggregations over the materialized snapshots of closed months, plus the queries that
+ * find and materialize missing ones. Months are identified by their first day. Only months with a
+ * valid snapshot have totals, so the aggregations silently skip months that are not materialized.
+ */
+public interface TransactionMonthlySnapshotRepository extends JpaRepository<TransactionMonthlySnapshot, TransactionMonthlySnapshot.Key> {
+
+    /**
+     * Months in the range whose snapshot is valid, in ascending order.
+     */
+    @Query("""
+            SELECT s.id.month
+            FROM TransactionMonthlySnapshot s
+            WHERE s.id.userId = :userId
+              AND s.id.month BETWEEN :fromMonth AND :toMonth
+            ORDER BY s.id.month
+            """)
+    List<LocalDate> findMaterializedMonths(UUID userId, LocalDate fromMonth, LocalDate toMonth);
+
+    /**
+     * Aggregated summary for income/expenses/count over the materialized months in the range.
+     */
+    @Query("""
+            SELECT
+                COALESCE(SUM(CASE WHEN t.id.transactionType = com.smartbudget.entity.TransactionType.INCOME THEN t.totalAmount ELSE 0 END), 0) AS income,
+                COALESCE(SUM(CASE WHEN t.id.transactionType = com.smartbudget.entity.TransactionType.EXPENSE THEN t.totalAmount ELSE 0 END), 0) AS expenses,
+                COALESCE(SUM(t.transactionCount), 0) AS transactionCount
+            FROM TransactionMonthlySnapshotTotal t
+            WHERE t.id.userId = :userId
+              AND t.id.month BETWEEN :fromMonth AND :toMonth
+            """)
+    TransactionSummaryView summarizeTransactions(UUID userId, LocalDate fromMonth, LocalDate toMonth);
+
+    /**
+     * Aggregated totals per category and transaction type over the materialized months in the range.
+     */
+    @Query("""
+            SELECT t.id.categoryId AS categoryId,
+                   c.name AS categoryName,
+                   t.id.transactionType AS transactionType,
+                   SUM(t.totalAmount) AS totalAmount,
+                   SUM(t.transactionCount) AS transactionCount
+            FROM TransactionMonthlySnapshotTotal t
+            JOIN Category c ON c.id = t.id.categoryId
+            WHERE t.id.userId = :userId
+              AND t.id.month BETWEEN :fromMonth AND :toMonth
+            GROUP BY t.id.categoryId, c.name, t.id.transactionType
+            ORDER BY totalAmount DESC
+            """)
+    List<CategoryBreakdownView> getCategoryBreakdown(UUID userId, LocalDate fromMonth, LocalDate toMonth);
+
+    /**
+     * Aggregates totals by month over the materialized months in the range.
+     */
+    @Query("""
+            SELECT t.id.month AS period,
+                   SUM(CASE WHEN t.id.transactionType = com.smartbudget.entity.TransactionType.INCOME THEN t.totalAmount ELSE 0 END) AS income,
+                   SUM(CASE WHEN t.id.transactionType = com.smartbudget.entity.TransactionType.EXPENSE THEN t.totalAmount ELSE 0 END) AS expenses,
+                   SUM(t.transactionCount) AS transactionCount
+            FROM TransactionMonthlySnapshotTotal t
+            WHERE t.id.userId = :userId
+              AND t.id.month BETWEEN :fromMonth AND :toMonth
+            GROUP BY t.id.month
+            """)
+    List<TrendAggregationView> aggregateMonthly(UUID userId, LocalDate fromMonth, LocalDate toMonth);
+
+    /**
+     * Months before {@code before} that have rollups but no valid snapshot, i.e. months that closed
+     * or were written to since the last materialization.
+     */
+    @Query(value = """
+            SELECT r.user_id AS "userId",
+                   to_char(date_trunc('month', r.day), 'YYYY-MM') AS "month"
+            FROM transaction_daily_rollups r
+            WHERE r.day < :before
+              AND NOT EXISTS (
+                  SELECT 1
+                  FROM transaction_monthly_snapshots s
+                  WHERE s.user_id = r.user_id
+                    AND s.month = date_trunc('month', r.day)::date)
+            GROUP BY r.user_id, date_trunc('month', r.day)
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<UnmaterializedMonthView> findUnmaterializedMonths(LocalDate before, int limit);
+
+    /**
+     * Replace a month's snapshot with the sum of its daily rollups. Must run in a read-write
+     * transaction; waits for concurrent writes to the month to commit.
+     *
+     * @return the number of category totals written
+     */
+    @Query(value = "SELECT materialize_transaction_monthly_snapshot(:userId, :month)", nativeQuery = true)
+    int materialize(UUID userId, LocalDate month);
+
+    /**
+     * Drop all of a user's snapshots, e.g. after their rollups were rebuilt.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM transaction_monthly_snapshots WHERE user_id = :userId", nativeQuery = true)
+    int deleteByUserId(UUID userId);
+}
@@ -2,17 +2,17 @@ package com.smartbudget.repository;
 
 import com.smartbudget.entity.Transaction;
 import com.smartbudget.entity.TransactionType;
-import com.smartbudget.repository.projection.CategoryBreakdownView;
-import com.smartbudget.repository.projection.TransactionSummaryView;
-import com.smartbudget.repository.projection.TrendAggregationView;
+import com.smartbudget.repository.projection.BulkCategorizationCandidateView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -23,6 +23,11 @@ import java.util.UUID;
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
 
+    /**
+     * Lowest UUID, the starting cursor for id-keyset pagination.
+     */
+    UUID KEYSET_START = new UUID(0L, 0L);
+
     /**
      * Find all transactions for a specific user.
      *
@@ -82,67 +87,84 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
             Pageable pageable);
 
     /**
-     * Aggregated summary for income/expenses/count.
+     * Next chunk of transactions eligible for bulk categorization, keyset-paginated by id:
+     * pass the last id of the previous chunk (or {@link #KEYSET_START}) and a page size. A
+     * non-null {@code upToId} bounds the walk to ids up to and including it.
      */
     @Query("""
-            SELECT
-                COALESCE(SUM(CASE WHEN t.transactionType = com.smartbudget.entity.TransactionType.INCOME THEN t.amount ELSE 0 END), 0) AS income,
-                COALESCE(SUM(CASE WHEN t.transactionType = com.smartbudget.entity.TransactionType.EXPENSE THEN t.amount ELSE 0 END), 0) AS expenses,
-                COUNT(t) AS transactionCount
-            FROM Transaction t
-            WHERE t.user.id = :userId
-              AND t.transactionDate BETWEEN :startDate AND :endDate
-            """)
-    TransactionSummaryView summarizeTransactions(UUID userId, LocalDate startDate, LocalDate endDate);
-
-    /**
-     * Aggregated totals per category and transaction type.
-     */
-    @Query("""
-            SELECT t.category.id AS categoryId,
-                   t.category.name AS categoryName,
+            SELECT t.id AS id,
+                   t.description AS description,
+                   t.amount AS amount,
                    t.transactionType AS transactionType,
-                   SUM(t.amount) AS totalAmount,
-                   COUNT(t) AS transactionCount
+                   t.category.id AS categoryId
             FROM Transaction t
             WHERE t.user.id = :userId
-              AND t.transactionDate BETWEEN :startDate AND :endDate
-            GROUP BY t.category.id, t.category.name, t.transactionType
-            ORDER BY totalAmount DESC
+              AND t.id > :afterId
+              AND (:upToId IS NULL OR t.id <= :upToId)
+              AND (:transactionType IS NULL OR t.transactionType = :transactionType)
+              AND (:dateFrom IS NULL OR t.transactionDate >= :dateFrom)
+              AND (:dateTo IS NULL OR t.transactionDate <= :dateTo)
+              AND (:categoryId IS NULL OR t.category.id = :categoryId)
+            ORDER BY t.id
             """)
-    List<CategoryBreakdownView> getCategoryBreakdown(UUID userId, LocalDate startDate, LocalDate endDate);
+    List<BulkCategorizationCandidateView> findForBulkCategorization(UUID userId,
+                                                                    TransactionType transactionType,
+                                                                    LocalDate dateFrom,
+                                                                    LocalDate dateTo,
+                                                                    UUID categoryId,
+                                                                    UUID afterId,
+                                                                    UUID upToId,
+                                                                    Pageable pageable);
 
     /**
-     * Aggregates totals by date.
+     * Next chunk of the user's transactions indexed under one of the space-separated token
+     * prefixes, keyset-paginated by id like {@link #findForBulkCategorization}. The walk is driven
+     * by the token index, so it reads only the matching rows. Only categories written by a job
+     * are eligible: rows whose category the user set, or that have categorization feedback, keep
+     * the user's choice when a rule changes.
      */
-    @Query("""
-            SELECT t.transactionDate AS period,
-                   SUM(CASE WHEN t.transactionType = com.smartbudget.entity.TransactionType.INCOME THEN t.amount ELSE 0 END) AS income,
-                   SUM(CASE WHEN t.transactionType = com.smartbudget.entity.TransactionType.EXPENSE THEN t.amount ELSE 0 END) AS expenses,
-                   COUNT(t) AS transactionCount
-            FROM Transaction t
-            WHERE t.user.id = :userId
-              AND t.transactionDate BETWEEN :startDate AND :endDate
-            GROUP BY t.transactionDate
-            """)
-    List<TrendAggregationView> aggregateDaily(UUID userId, LocalDate startDate, LocalDate endDate);
+    @Query(value = """
+            SELECT t.id AS id,
+                   t.description AS description,
+                   t.amount AS amount,
+                   t.transaction_type AS "transactionType",
+                   t.category_id AS "categoryId"
+            FROM transactions t
+            WHERE t.user_id = :userId
+              AND t.id > :afterId
+              AND (CAST(:upToId AS uuid) IS NULL OR t.id <= :upToId)
+              AND t.category_source = 'AUTO'
+              AND NOT EXISTS (SELECT 1 FROM categorization_feedback f WHERE f.transaction_id = t.id)
+              AND t.id IN (
+                  SELECT tt.transaction_id
+                  FROM unnest(string_to_array(:prefixes, ' ')) AS p(prefix)
+                  JOIN transaction_tokens tt
+                    ON tt.user_id = :userId
+                   AND tt.token >= p.prefix
+                   AND tt.token < p.prefix || chr(1114111))
+            ORDER BY t.id
+            """, nativeQuery = true)
+    List<BulkCategorizationCandidateView> findForKeywordRecategorization(UUID userId,
+                                                                         String prefixes,
+                                                                         UUID afterId,
+                                                                         UUID upToId,
+                                                                         Pageable pageable);
 
     /**
-     * Fetch transactions eligible for bulk categorization according to filters.
+     * Move a set of the user's transactions to one category in a single statement and mark the
+     * category as set by a job. Rows that are already in the category are left untouched.
+     *
+     * @return the number of rows changed
      */
-    @Query("""
-            SELECT t FROM Transaction t
-            WHERE t.user.id = :userId
-              AND (:transactionType IS NULL OR t.transactionType = :transactionType)
-              AND (:dateFrom IS NULL OR t.transactionDate >= :dateFrom)
-              AND (:dateTo IS NULL OR t.transactionDate <= :dateTo)
-              AND (:categoryId IS NULL OR t.category.id = :categoryId)
-            """)
-    List<Transaction> findForBulkCategorization(UUID userId,
-                                                TransactionType transactionType,
-                                                LocalDate dateFrom,
-                                                LocalDate dateTo,
-                                                UUID categoryId);
+    @Modifying
+    @Query(value = """
+            UPDATE transactions
+            SET category_id = :categoryId, category_source = 'AUTO', updated_at = now()
+            WHERE user_id = :userId
+              AND id IN (:ids)
+              AND category_id <> :categoryId
+            """, nativeQuery = true)
+    int updateCategory(UUID userId, Collection<UUID> ids, UUID categoryId);
 
     /**
      * Total income for a user within a date range.
@@ -0,0 +1,53 @@
+package com.smartbudget.repository;
+
+import com.smartbudget.entity.TransactionToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reverse index from normalized description tokens to the transactions containing them.
+ * <p>
+ * Token prefixes are passed as one space-separated string; tokens never contain spaces. A prefix
+ * matches every token it starts, looked up as a byte range of the C-collated primary key.
+ */
+public interface TransactionTokenRepository extends JpaRepository<TransactionToken, TransactionToken.Key> {
+
+    /**
+     * Index one token of a transaction; indexing it again is a no-op.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO transaction_tokens (user_id, token, transaction_id)
+            VALUES (:userId, :token, :transactionId)
+            ON CONFLICT DO NOTHING
+            """, nativeQuery = true)
+    int insertToken(UUID userId, String token, UUID transactionId);
+
+    /**
+     * Drop every token of a transaction, e.g. before re-indexing a changed description.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM transaction_tokens WHERE transaction_id = :transactionId", nativeQuery = true)
+    int deleteByTransactionId(UUID transactionId);
+
+    /**
+     * Users with at least one transaction indexed under one of the prefixes. Probes the index once
+     * per user and prefix, so the cost does not grow with the number of transactions.
+     */
+    @Query(value = """
+            SELECT u.id
+            FROM users u
+            WHERE EXISTS (
+                SELECT 1
+                FROM unnest(string_to_array(:prefixes, ' ')) AS p(prefix)
+                JOIN transaction_tokens tt
+                  ON tt.user_id = u.id
+                 AND tt.token >= p.prefix
+                 AND tt.token < p.prefix || chr(1114111))
+            """, nativeQuery = true)
+    List<UUID> findUserIdsWithTokenPrefixes(String prefixes);
+}
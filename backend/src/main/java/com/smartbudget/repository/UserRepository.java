@@ -2,6 +2,7 @@ package com.smartbudget.repository;
 
 import com.smartbudget.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -29,4 +30,23 @@ public interface UserRepository extends JpaRepository<User, UUID> {
      * @return true if a user exists with this email, false otherwise
      */
     boolean existsByEmail(String email);
+
+    /**
+     * Current version of the user's transactions; database triggers bump it on every write.
+     *
+     * @param userId the user to look up
+     * @return the version, or empty if the user does not exist
+     */
+    @Query(value = "SELECT data_version FROM users WHERE id = :userId", nativeQuery = true)
+    Optional<Long> findDataVersion(UUID userId);
+
+    /**
+     * Current version of the user's categorization feedback; database triggers bump it on every
+     * write to the user's token statistics.
+     *
+     * @param userId the user to look up
+     * @return the version, or empty if the user does not exist
+     */
+    @Query(value = "SELECT feedback_version FROM users WHERE id = :userId", nativeQuery = true)
+    Optional<Long> findFeedbackVersion(UUID userId);
 }
@@ -0,0 +1,17 @@
+package com.smartbudget.repository.projection;
+
+import com.smartbudget.entity.TransactionType;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Projection of the columns a bulk categorization job needs to re-categorize a transaction.
+ */
+public interface BulkCategorizationCandidateView {
+    UUID getId();
+    String getDescription();
+    BigDecimal getAmount();
+    TransactionType getTransactionType();
+    UUID getCategoryId();
+}
@@ -1,9 +0,0 @@
-package com.smartbudget.repository.projection;
-
-import com.smartbudget.entity.Category;
-
-public interface FeedbackCategoryCount {
-    Category getCategory();
-
-    Long getCorrectionCount();
-}
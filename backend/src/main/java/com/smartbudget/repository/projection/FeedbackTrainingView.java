@@ -0,0 +1,7 @@
+package com.smartbudget.repository.projection;
+
+import java.time.Instant;
+
+public interface FeedbackTrainingView extends TrainingExampleView {
+    Instant getCreatedAt();
+}
@@ -0,0 +1,12 @@
+package com.smartbudget.repository.projection;
+
+import java.util.UUID;
+
+/**
+ * Projection of a user's token -> category correction count.
+ */
+public interface TokenCategoryCountView {
+    String getToken();
+    UUID getCategoryId();
+    long getCorrectionCount();
+}
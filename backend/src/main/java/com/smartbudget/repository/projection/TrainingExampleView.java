@@ -0,0 +1,14 @@
+package com.smartbudget.repository.projection;
+
+import com.smartbudget.entity.TransactionType;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public interface TrainingExampleView {
+    UUID getId();
+    String getDescription();
+    BigDecimal getAmount();
+    TransactionType getTransactionType();
+    UUID getCategoryId();
+}
@@ -0,0 +1,12 @@
+package com.smartbudget.repository.projection;
+
+import java.util.UUID;
+
+/**
+ * Projection of a closed month of a user that has rollups but no snapshot. The month is
+ * formatted as {@code yyyy-MM}.
+ */
+public interface UnmaterializedMonthView {
+    UUID getUserId();
+    String getMonth();
+}
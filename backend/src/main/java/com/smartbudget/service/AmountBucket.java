@@ -0,0 +1,32 @@
+package com.smartbudget.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Amount bands the categorization heuristics distinguish between.
+ * <p>
+ * Suggestions only depend on the amount through its band, so the band is also what suggestion
+ * results are cached by.
+ */
+enum AmountBucket {
+    NONE,
+    SMALL,
+    REGULAR,
+    LARGE;
+
+    private static final BigDecimal LARGE_TRANSACTION_THRESHOLD = BigDecimal.valueOf(1000);
+    private static final BigDecimal SMALL_TRANSACTION_THRESHOLD = BigDecimal.TEN;
+
+    static AmountBucket of(BigDecimal amount) {
+        if (amount == null) {
+            return NONE;
+        }
+        if (amount.compareTo(LARGE_TRANSACTION_THRESHOLD) > 0) {
+            return LARGE;
+        }
+        if (amount.compareTo(SMALL_TRANSACTION_THRESHOLD) < 0) {
+            return SMALL;
+        }
+        return REGULAR;
+    }
+}
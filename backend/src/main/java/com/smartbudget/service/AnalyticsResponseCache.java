@@ -0,0 +1,121 @@
+package com.smartbudget.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smartbudget.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of analytics responses, keyed by user, endpoint, parameters and the user's data
+ * version.
+ * <p>
+ * The data version is {@code users.data_version}, which database triggers bump on every statement
+ * that writes the user's transactions, whichever node or job made the write. Cached responses of
+ * older versions become unreachable immediately and age out by size. A strong ETag is derived
+ * from the same key, so every node hands out the same ETag for the same data and an unchanged
+ * dashboard is answered with 304 after a single primary-key lookup.
+ * <p>
+ * A response is computed in a repeatable read transaction whose first statement reads the data
+ * version, so it is cached and ETagged under the version of the database snapshot it was
+ * aggregated from, even when a write lands between the lookup and the computation.
+ */
+@Service
+public class AnalyticsResponseCache {
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<Key, Object> responses;
+
+    public AnalyticsResponseCache(UserRepository userRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${analytics.cache.max-size:10000}") long maxSize,
+                                  @Value("${analytics.cache.ttl-minutes:5}") long ttlMinutes) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    /**
+     * Key of a response under the user's current data version. Responses also depend on today's
+     * date through their default ranges, so it is part of the key.
+     */
+    public Key key(UUID userId, String endpoint, Object... params) {
+        return new Key(userId, endpoint, Collections.unmodifiableList(Arrays.asList(params.clone())),
+                dataVersion(userId), LocalDate.now());
+    }
+
+    /**
+     * Strong ETag, quoted, identifying the response of a key.
+     */
+    public String etag(Key key) {
+        String identity = String.join("|", String.valueOf(key.userId()), key.endpoint(),
+                String.valueOf(key.params()), String.valueOf(key.dataVersion()), String.valueOf(key.today()));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(identity.getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    /**
+     * Cached response for the key, computing it on a miss. The loader runs in the transaction that
+     * read the data version, so the returned key, and the ETag derived from it, may carry a newer
+     * version than the requested one.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Response<T> get(Key key, Supplier<T> loader) {
+        Object cached = responses.getIfPresent(key);
+        if (cached != null) {
+            return new Response<>(key, (T) cached);
+        }
+        return transactionTemplate.execute(tx -> {
+            Key current = key.withDataVersion(dataVersion(key.userId()));
+            return new Response<>(current, (T) responses.get(current, ignored -> loader.get()));
+        });
+    }
+
+    /**
+     * Committed version of the user's transactions; 0 for an unknown user.
+     */
+    public long dataVersion(UUID userId) {
+        return userRepository.findDataVersion(userId).orElse(0L);
+    }
+
+    /**
+     * Everything an analytics response depends on.
+     */
+    public record Key(UUID userId, String endpoint, List<Object> params, long dataVersion, LocalDate today) {
+
+        Key withDataVersion(long version) {
+            return version == dataVersion ? this : new Key(userId, endpoint, params, version, today);
+        }
+    }
+
+    /**
+     * A response and the key it was computed for.
+     */
+    public record Response<T>(Key key, T body) {
+    }
+}
@@ -4,11 +4,13 @@ import com.smartbudget.dto.CategoryBreakdownResponse;
 import com.smartbudget.dto.SummaryResponse;
 import com.smartbudget.dto.TrendDataPoint;
 import com.smartbudget.entity.TransactionType;
-import com.smartbudget.repository.TransactionRepository;
+import com.smartbudget.repository.TransactionDailyRollupRepository;
+import com.smartbudget.repository.TransactionMonthlySnapshotRepository;
 import com.smartbudget.repository.projection.CategoryBreakdownView;
 import com.smartbudget.repository.projection.TransactionSummaryView;
 import com.smartbudget.repository.projection.TrendAggregationView;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -17,33 +19,66 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 /**
  * Provides analytics aggregations for dashboard endpoints.
+ * <p>
+ * Aggregations read the daily rollups, so their cost follows the number of days and categories in
+ * the range rather than the number of transactions. Closed months covered whole by a summary,
+ * breakdown or monthly trend are read from their materialized snapshots instead, so long ranges
+ * only aggregate days live for the current month, partial months at the edges and months whose
+ * snapshot a recent write dropped. Reads run at repeatable read so the snapshots and the rollups
+ * they are combined with come from the same database snapshot.
  */
 @Service
 public class AnalyticsService {
 
     private static final BigDecimal ZERO = BigDecimal.ZERO;
 
-    private final TransactionRepository transactionRepository;
+    /**
+     * Above this many live ranges between snapshots the whole range is aggregated live: it only
+     * happens for users with many empty months, whose rollups are sparse anyway.
+     */
+    private static final int MAX_LIVE_RANGES = 4;
 
-    public AnalyticsService(TransactionRepository transactionRepository) {
-        this.transactionRepository = transactionRepository;
+    private final TransactionDailyRollupRepository rollupRepository;
+    private final TransactionMonthlySnapshotRepository snapshotRepository;
+
+    public AnalyticsService(TransactionDailyRollupRepository rollupRepository,
+                            TransactionMonthlySnapshotRepository snapshotRepository) {
+        this.rollupRepository = rollupRepository;
+        this.snapshotRepository = snapshotRepository;
     }
 
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
     public SummaryResponse getSummary(UUID userId, LocalDate startDate, LocalDate endDate) {
         DateRange range = resolveDateRange(startDate, endDate);
-        TransactionSummaryView summary = transactionRepository.summarizeTransactions(userId, range.start(), range.end());
+        Plan plan = plan(userId, range);
+
+        List<TransactionSummaryView> parts = new ArrayList<>();
+        if (plan.snapshots() != null) {
+            parts.add(snapshotRepository.summarizeTransactions(userId, plan.snapshots().start(), plan.snapshots().end()));
+        }
+        for (DateRange live : plan.live()) {
+            parts.add(rollupRepository.summarizeTransactions(userId, live.start(), live.end()));
+        }
 
-        BigDecimal totalIncome = summary != null && summary.getIncome() != null ? summary.getIncome() : ZERO;
-        BigDecimal totalExpenses = summary != null && summary.getExpenses() != null ? summary.getExpenses() : ZERO;
-        long transactionCount = summary != null ? summary.getTransactionCount() : 0;
+        BigDecimal totalIncome = ZERO;
+        BigDecimal totalExpenses = ZERO;
+        long transactionCount = 0;
+        for (TransactionSummaryView summary : parts) {
+            if (summary != null) {
+                totalIncome = totalIncome.add(safeAmount(summary.getIncome()));
+                totalExpenses = totalExpenses.add(safeAmount(summary.getExpenses()));
+                transactionCount += summary.getTransactionCount();
+            }
+        }
         BigDecimal balance = totalIncome.subtract(totalExpenses);
 
         return new SummaryResponse(
@@ -56,32 +91,41 @@ public class AnalyticsService {
         );
     }
 
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
     public List<CategoryBreakdownResponse> getCategoryBreakdown(UUID userId, LocalDate startDate, LocalDate endDate) {
         DateRange range = resolveDateRange(startDate, endDate);
-        List<CategoryBreakdownView> rows = transactionRepository.getCategoryBreakdown(userId, range.start(), range.end());
+        Plan plan = plan(userId, range);
+
+        List<CategoryBreakdownView> parts = new ArrayList<>();
+        if (plan.snapshots() != null) {
+            parts.addAll(snapshotRepository.getCategoryBreakdown(userId, plan.snapshots().start(), plan.snapshots().end()));
+        }
+        for (DateRange live : plan.live()) {
+            parts.addAll(rollupRepository.getCategoryBreakdown(userId, live.start(), live.end()));
+        }
+        List<CategoryTotal> rows = mergeByCategory(parts);
 
         Map<TransactionType, BigDecimal> totalsByType = new EnumMap<>(TransactionType.class);
-        for (CategoryBreakdownView row : rows) {
-            totalsByType.merge(row.getTransactionType(), safeAmount(row.getTotalAmount()), BigDecimal::add);
+        for (CategoryTotal row : rows) {
+            totalsByType.merge(row.transactionType, row.totalAmount, BigDecimal::add);
         }
 
         List<CategoryBreakdownResponse> responses = new ArrayList<>();
-        for (CategoryBreakdownView row : rows) {
-            BigDecimal typeTotal = totalsByType.getOrDefault(row.getTransactionType(), ZERO);
+        for (CategoryTotal row : rows) {
+            BigDecimal typeTotal = totalsByType.getOrDefault(row.transactionType, ZERO);
             double percentage = typeTotal.compareTo(ZERO) == 0
                     ? 0
-                    : safeAmount(row.getTotalAmount())
+                    : row.totalAmount
                         .divide(typeTotal, 6, RoundingMode.HALF_UP)
                         .multiply(BigDecimal.valueOf(100))
                         .doubleValue();
 
             responses.add(new CategoryBreakdownResponse(
-                    row.getCategoryId(),
-                    row.getCategoryName(),
-                    row.getTransactionType(),
-                    safeAmount(row.getTotalAmount()),
-                    row.getTransactionCount(),
+                    row.categoryId,
+                    row.categoryName,
+                    row.transactionType,
+                    row.totalAmount,
+                    row.transactionCount,
                     percentage
             ));
         }
@@ -89,7 +133,7 @@ public class AnalyticsService {
         return responses;
     }
 
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
     public List<TrendDataPoint> getTrends(UUID userId, LocalDate startDate, LocalDate endDate, String groupBy) {
         DateRange range = resolveDateRange(startDate, endDate);
         Grouping grouping = Grouping.from(groupBy);
@@ -100,40 +144,96 @@ public class AnalyticsService {
             range = expandToWeekBoundaries(range);
         }
 
-        List<TrendAggregationView> daily = transactionRepository.aggregateDaily(userId, range.start(), range.end());
-        Map<LocalDate, TrendAggregationView> dailyMap = new java.util.HashMap<>();
-        for (TrendAggregationView view : daily) {
-            dailyMap.put(view.getPeriod(), view);
+        // Periods are bucketed in the database; monthly snapshot rows are already one per period
+        Plan plan = grouping == Grouping.MONTH ? plan(userId, range) : new Plan(null, List.of(range));
+        List<TrendAggregationView> rows = new ArrayList<>();
+        if (plan.snapshots() != null) {
+            rows.addAll(snapshotRepository.aggregateMonthly(userId, plan.snapshots().start(), plan.snapshots().end()));
+        }
+        for (DateRange live : plan.live()) {
+            rows.addAll(rollupRepository.aggregateByPeriod(userId, live.start(), live.end(), grouping.unit));
         }
+        rows.sort(Comparator.comparing(TrendAggregationView::getPeriod));
 
+        // Fill gaps with one linear pass over the periods and the sorted rows
         List<TrendDataPoint> result = new ArrayList<>();
-        LocalDate cursor = range.start();
-        while (!cursor.isAfter(range.end())) {
-            LocalDate periodStart = grouping.normalizeStart(cursor);
-            LocalDate periodEnd = grouping.normalizeEnd(periodStart, range.end());
+        int next = 0;
+        for (LocalDate periodStart = range.start(); !periodStart.isAfter(range.end()); periodStart = grouping.next(periodStart)) {
+            LocalDate nextPeriodStart = grouping.next(periodStart);
 
             BigDecimal income = BigDecimal.ZERO;
             BigDecimal expenses = BigDecimal.ZERO;
             long transactionCount = 0;
 
-            LocalDate iterator = periodStart;
-            while (!iterator.isAfter(periodEnd)) {
-                TrendAggregationView view = dailyMap.get(iterator);
-                if (view != null) {
-                    income = income.add(safeAmount(view.getIncome()));
-                    expenses = expenses.add(safeAmount(view.getExpenses()));
-                    transactionCount += view.getTransactionCount();
-                }
-                iterator = iterator.plusDays(1);
+            while (next < rows.size() && rows.get(next).getPeriod().isBefore(nextPeriodStart)) {
+                TrendAggregationView view = rows.get(next++);
+                income = income.add(safeAmount(view.getIncome()));
+                expenses = expenses.add(safeAmount(view.getExpenses()));
+                transactionCount += view.getTransactionCount();
             }
 
             result.add(new TrendDataPoint(periodStart, income, expenses, transactionCount));
-            cursor = periodEnd.plusDays(1);
         }
 
         return result;
     }
 
+    /**
+     * Split a range into the closed months it covers whole that have a valid snapshot, and the
+     * ranges around them that are aggregated live from the daily rollups.
+     */
+    private Plan plan(UUID userId, DateRange range) {
+        YearMonth firstMonth = YearMonth.from(range.start());
+        if (range.start().getDayOfMonth() != 1) {
+            firstMonth = firstMonth.plusMonths(1);
+        }
+        YearMonth lastMonth = YearMonth.from(range.end());
+        if (!range.end().equals(lastMonth.atEndOfMonth())) {
+            lastMonth = lastMonth.minusMonths(1);
+        }
+        YearMonth lastClosedMonth = YearMonth.now().minusMonths(1);
+        if (lastMonth.isAfter(lastClosedMonth)) {
+            lastMonth = lastClosedMonth;
+        }
+        if (firstMonth.isAfter(lastMonth)) {
+            return new Plan(null, List.of(range));
+        }
+
+        List<LocalDate> materialized = snapshotRepository.findMaterializedMonths(
+                userId, firstMonth.atDay(1), lastMonth.atDay(1));
+        if (materialized.isEmpty()) {
+            return new Plan(null, List.of(range));
+        }
+
+        List<DateRange> live = new ArrayList<>();
+        LocalDate cursor = range.start();
+        for (LocalDate month : materialized) {
+            if (cursor.isBefore(month)) {
+                live.add(new DateRange(cursor, month.minusDays(1)));
+            }
+            cursor = month.plusMonths(1);
+        }
+        if (!cursor.isAfter(range.end())) {
+            live.add(new DateRange(cursor, range.end()));
+        }
+        if (live.size() > MAX_LIVE_RANGES) {
+            return new Plan(null, List.of(range));
+        }
+        return new Plan(new DateRange(materialized.get(0), materialized.get(materialized.size() - 1)), live);
+    }
+
+    private List<CategoryTotal> mergeByCategory(List<CategoryBreakdownView> parts) {
+        Map<CategoryKey, CategoryTotal> merged = new LinkedHashMap<>();
+        for (CategoryBreakdownView part : parts) {
+            merged.computeIfAbsent(new CategoryKey(part.getCategoryId(), part.getTransactionType()),
+                            key -> new CategoryTotal(key.categoryId(), part.getCategoryName(), key.transactionType()))
+                    .add(safeAmount(part.getTotalAmount()), part.getTransactionCount());
+        }
+        List<CategoryTotal> rows = new ArrayList<>(merged.values());
+        rows.sort(Comparator.comparing((CategoryTotal row) -> row.totalAmount).reversed());
+        return rows;
+    }
+
     private BigDecimal safeAmount(BigDecimal amount) {
         return amount == null ? ZERO : amount;
     }
@@ -174,45 +274,35 @@ public class AnalyticsService {
     }
 
     private enum Grouping {
-        DAY {
+        DAY("day") {
             @Override
-            LocalDate normalizeStart(LocalDate date) {
-                return date;
-            }
-
-            @Override
-            LocalDate normalizeEnd(LocalDate start, LocalDate maxEnd) {
-                return start;
+            LocalDate next(LocalDate start) {
+                return start.plusDays(1);
             }
         },
-        WEEK {
+        WEEK("week") {
             @Override
-            LocalDate normalizeStart(LocalDate date) {
-                return date.with(DayOfWeek.MONDAY);
-            }
-
-            @Override
-            LocalDate normalizeEnd(LocalDate start, LocalDate maxEnd) {
-                LocalDate end = start.with(DayOfWeek.SUNDAY);
-                return end.isAfter(maxEnd) ? maxEnd : end;
+            LocalDate next(LocalDate start) {
+                return start.plusWeeks(1);
             }
         },
-        MONTH {
-            @Override
-            LocalDate normalizeStart(LocalDate date) {
-                return date.withDayOfMonth(1);
-            }
-
+        MONTH("month") {
             @Override
-            LocalDate normalizeEnd(LocalDate start, LocalDate maxEnd) {
-                LocalDate end = start.withDayOfMonth(start.lengthOfMonth());
-                return end.isAfter(maxEnd) ? maxEnd : end;
+            LocalDate next(LocalDate start) {
+                return start.plusMonths(1);
             }
         };
 
-        abstract LocalDate normalizeStart(LocalDate date);
+        /**
+         * {@code date_trunc} unit the database buckets days by.
+         */
+        private final String unit;
 
-        abstract LocalDate normalizeEnd(LocalDate start, LocalDate maxEnd);
+        Grouping(String unit) {
+            this.unit = unit;
+        }
+
+        abstract LocalDate next(LocalDate start);
 
         static Grouping from(String value) {
             if (value == null) {
@@ -229,4 +319,33 @@ public class AnalyticsService {
 
     private record DateRange(LocalDate start, LocalDate end) {
     }
+
+    /**
+     * Months (first days) to read from snapshots, or null when none, and ranges to read live.
+     */
+    private record Plan(DateRange snapshots, List<DateRange> live) {
+    }
+
+    private record CategoryKey(UUID categoryId, TransactionType transactionType) {
+    }
+
+    private static final class CategoryTotal {
+
+        private final UUID categoryId;
+        private final String categoryName;
+        private final TransactionType transactionType;
+        private BigDecimal totalAmount = ZERO;
+        private long transactionCount;
+
+        private CategoryTotal(UUID categoryId, String categoryName, TransactionType transactionType) {
+            this.categoryId = categoryId;
+            this.categoryName = categoryName;
+            this.transactionType = transactionType;
+        }
+
+        private void add(BigDecimal amount, long count) {
+            totalAmount = totalAmount.add(amount);
+            transactionCount += count;
+        }
+    }
 }
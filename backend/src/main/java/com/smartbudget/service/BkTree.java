@@ -0,0 +1,208 @@
+package com.smartbudget.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable Burkhard-Keller tree over lower-cased keywords using Damerau-Levenshtein distance.
+ * <p>
+ * The triangle inequality lets a search skip every subtree whose edge distance cannot lead to a
+ * keyword within the tolerance, and each search is capped at a fixed number of visited nodes so
+ * its cost stays bounded no matter how many keywords are indexed.
+ *
+ * @param <T> payload attached to each keyword (e.g. the rule category)
+ */
+final class BkTree<T> {
+
+    /**
+     * Receives keywords within the requested distance, in no particular order.
+     */
+    @FunctionalInterface
+    interface MatchListener<T> {
+        void onMatch(T payload, int distance);
+    }
+
+    private static final int ROOT = 0;
+
+    private final String[] keywords;
+    private final int[][] childDistances;
+    private final int[][] childNodes;
+    private final List<List<T>> payloads;
+
+    private BkTree(String[] keywords, int[][] childDistances, int[][] childNodes, List<List<T>> payloads) {
+        this.keywords = keywords;
+        this.childDistances = childDistances;
+        this.childNodes = childNodes;
+        this.payloads = payloads;
+    }
+
+    /**
+     * Number of distinct keywords in the tree.
+     */
+    int size() {
+        return keywords.length;
+    }
+
+    /**
+     * Report every keyword within {@code maxDistance} of the query, examining at most {@code maxNodes} keywords.
+     *
+     * @return number of keywords examined
+     */
+    int search(String query, int maxDistance, int maxNodes, MatchListener<T> listener) {
+        if (keywords.length == 0 || query == null || query.isEmpty() || maxNodes <= 0) {
+            return 0;
+        }
+        int[] stack = new int[Math.min(keywords.length, maxNodes * 2 + 1)];
+        int top = 0;
+        stack[top++] = ROOT;
+        int examined = 0;
+        while (top > 0 && examined < maxNodes) {
+            int node = stack[--top];
+            examined++;
+            int distance = distance(query, keywords[node]);
+            if (distance <= maxDistance) {
+                for (T payload : payloads.get(node)) {
+                    listener.onMatch(payload, distance);
+                }
+            }
+            int[] distances = childDistances[node];
+            for (int i = 0; i < distances.length && top < stack.length; i++) {
+                if (Math.abs(distances[i] - distance) <= maxDistance) {
+                    stack[top++] = childNodes[node][i];
+                }
+            }
+        }
+        return examined;
+    }
+
+    /**
+     * Unrestricted Damerau-Levenshtein distance (Lowrance-Wagner), which unlike the optimal string
+     * alignment variant is a true metric and therefore safe to prune a BK-tree with.
+     */
+    static int distance(String a, String b) {
+        int n = a.length();
+        int m = b.length();
+        if (n == 0) {
+            return m;
+        }
+        if (m == 0) {
+            return n;
+        }
+        int infinity = n + m;
+        int[][] d = new int[n + 2][m + 2];
+        d[0][0] = infinity;
+        for (int i = 0; i <= n; i++) {
+            d[i + 1][0] = infinity;
+            d[i + 1][1] = i;
+        }
+        for (int j = 0; j <= m; j++) {
+            d[0][j + 1] = infinity;
+            d[1][j + 1] = j;
+        }
+        Map<Character, Integer> lastRow = new HashMap<>();
+        for (int i = 1; i <= n; i++) {
+            char ca = a.charAt(i - 1);
+            int lastMatchColumn = 0;
+            for (int j = 1; j <= m; j++) {
+                char cb = b.charAt(j - 1);
+                int i1 = lastRow.getOrDefault(cb, 0);
+                int j1 = lastMatchColumn;
+                int cost = 1;
+                if (ca == cb) {
+                    cost = 0;
+                    lastMatchColumn = j;
+                }
+                int substitution = d[i][j] + cost;
+                int insertion = d[i + 1][j] + 1;
+                int deletion = d[i][j + 1] + 1;
+                int transposition = d[i1][j1] + (i - i1 - 1) + 1 + (j - j1 - 1);
+                d[i + 1][j + 1] = Math.min(Math.min(substitution, insertion), Math.min(deletion, transposition));
+            }
+            lastRow.put(ca, i);
+        }
+        return d[n + 1][m + 1];
+    }
+
+    static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Collects keywords and compiles them into an immutable tree.
+     */
+    static final class Builder<T> {
+
+        private final List<String> keywords = new ArrayList<>();
+        private final List<LinkedHashMap<Integer, Integer>> children = new ArrayList<>();
+        private final List<List<T>> payloads = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Register a keyword; it is trimmed and must already be lower-cased. Blank keywords are ignored.
+         */
+        Builder<T> add(String keyword, T payload) {
+            if (keyword == null) {
+                return this;
+            }
+            String normalized = keyword.trim();
+            if (normalized.isEmpty()) {
+                return this;
+            }
+            if (keywords.isEmpty()) {
+                newNode(normalized, payload);
+                return this;
+            }
+            int node = ROOT;
+            while (true) {
+                int distance = distance(normalized, keywords.get(node));
+                if (distance == 0) {
+                    payloads.get(node).add(payload);
+                    return this;
+                }
+                Integer child = children.get(node).get(distance);
+                if (child == null) {
+                    children.get(node).put(distance, newNode(normalized, payload));
+                    return this;
+                }
+                node = child;
+            }
+        }
+
+        BkTree<T> build() {
+            int nodeCount = keywords.size();
+            int[][] childDistances = new int[nodeCount][];
+            int[][] childNodes = new int[nodeCount][];
+            List<List<T>> frozenPayloads = new ArrayList<>(nodeCount);
+            for (int node = 0; node < nodeCount; node++) {
+                Map<Integer, Integer> edges = children.get(node);
+                int[] distances = new int[edges.size()];
+                int[] targets = new int[edges.size()];
+                int index = 0;
+                for (Map.Entry<Integer, Integer> edge : edges.entrySet()) {
+                    distances[index] = edge.getKey();
+                    targets[index] = edge.getValue();
+                    index++;
+                }
+                childDistances[node] = distances;
+                childNodes[node] = targets;
+                frozenPayloads.add(List.copyOf(payloads.get(node)));
+            }
+            return new BkTree<>(keywords.toArray(new String[0]), childDistances, childNodes,
+                    List.copyOf(frozenPayloads));
+        }
+
+        private int newNode(String keyword, T payload) {
+            keywords.add(keyword);
+            children.add(new LinkedHashMap<>());
+            List<T> nodePayloads = new ArrayList<>(1);
+            nodePayloads.add(payload);
+            payloads.add(nodePayloads);
+            return keywords.size() - 1;
+        }
+    }
+}
@@ -1,104 +1,550 @@
 package com.smartbudget.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.smartbudget.dto.BulkCategorizationJobStatus;
+import com.smartbudget.dto.BulkCategorizationPreviewItem;
 import com.smartbudget.dto.BulkCategorizationRequest;
 import com.smartbudget.dto.CategorySuggestion;
+import com.smartbudget.entity.BulkCategorizationJob;
+import com.smartbudget.entity.BulkCategorizationWorkItem;
 import com.smartbudget.entity.Category;
-import com.smartbudget.entity.Transaction;
-import com.smartbudget.repository.CategoryRepository;
+import com.smartbudget.exception.ForbiddenOperationException;
+import com.smartbudget.exception.ResourceNotFoundException;
+import com.smartbudget.repository.BulkCategorizationJobRepository;
+import com.smartbudget.repository.BulkCategorizationWorkItemRepository;
 import com.smartbudget.repository.TransactionRepository;
+import com.smartbudget.repository.projection.BulkCategorizationCandidateView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
 
 /**
  * Handles bulk auto-categorization jobs.
+ * <p>
+ * A job is persisted in {@code bulk_categorization_jobs} together with one work item per slice
+ * of the transaction id space, and the request returns immediately with a PENDING status. The
+ * {@link BulkJobExecutor} workers on every node claim items from the shared Postgres queue under
+ * a lease, so a heavy job spreads across the cluster and an item held by a lost node is claimed
+ * again once its lease expires. A worker walks its item's id range in keyset chunks, evaluates
+ * each chunk's suggestions across cores, once per distinct description for the whole job on the
+ * node (see {@link SuggestionMemo}), and writes the results in one transaction per chunk; the
+ * chunk's updates, the job counters and the item checkpoint commit together, so a retried item
+ * resumes after its last committed chunk. Apart from the bounded memo nothing is kept across
+ * chunks, so memory stays flat however long the user's history is. Workers wait on the
+ * {@link BulkThrottle} before each chunk while the connection pool is busy, and stop between
+ * chunks once their job is cancelled.
  */
 @Service
 public class BulkCategorizationService {
 
+    private static final Logger log = LoggerFactory.getLogger(BulkCategorizationService.class);
+
+    private static final double DEFAULT_CONFIDENCE_THRESHOLD = 0.7;
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final Duration MEMO_IDLE_TIMEOUT = Duration.ofMinutes(10);
+
     private final TransactionRepository transactionRepository;
-    private final CategoryRepository categoryRepository;
+    private final BulkCategorizationJobRepository jobRepository;
+    private final BulkCategorizationWorkItemRepository workItemRepository;
+    private final CategoryRegistry categoryRegistry;
     private final CategorizationService categorizationService;
-
-    private final Map<UUID, BulkCategorizationJobStatus> jobs = new ConcurrentHashMap<>();
+    private final BulkJobExecutor jobExecutor;
+    private final BulkThrottle throttle;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int partitions;
+    private final long leaseSeconds;
+    private final int maxAttempts;
+    private final int maxRunningJobsPerUser;
+    private final int memoMaxDescriptions;
+    private final Duration finishedJobTtl;
+    private final Cache<UUID, SuggestionMemo> jobMemos;
 
     public BulkCategorizationService(TransactionRepository transactionRepository,
-                                     CategoryRepository categoryRepository,
-                                     CategorizationService categorizationService) {
+                                     BulkCategorizationJobRepository jobRepository,
+                                     BulkCategorizationWorkItemRepository workItemRepository,
+                                     CategoryRegistry categoryRegistry,
+                                     CategorizationService categorizationService,
+                                     BulkJobExecutor jobExecutor,
+                                     BulkThrottle throttle,
+                                     PlatformTransactionManager transactionManager,
+                                     ObjectMapper objectMapper,
+                                     @Value("${categorization.bulk.chunk-size:500}") int chunkSize,
+                                     @Value("${categorization.bulk.partitions:8}") int partitions,
+                                     @Value("${categorization.bulk.lease-seconds:120}") long leaseSeconds,
+                                     @Value("${categorization.bulk.max-attempts:3}") int maxAttempts,
+                                     @Value("${categorization.bulk.max-running-jobs-per-user:2}") int maxRunningJobsPerUser,
+                                     @Value("${categorization.bulk.memo-max-descriptions:50000}") int memoMaxDescriptions,
+                                     @Value("${categorization.bulk.memo-max-jobs:16}") int memoMaxJobs,
+                                     @Value("${categorization.bulk.finished-job-ttl-hours:24}") long finishedJobTtlHours) {
         this.transactionRepository = transactionRepository;
-        this.categoryRepository = categoryRepository;
+        this.jobRepository = jobRepository;
+        this.workItemRepository = workItemRepository;
+        this.categoryRegistry = categoryRegistry;
         this.categorizationService = categorizationService;
+        this.jobExecutor = jobExecutor;
+        this.throttle = throttle;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.partitions = partitions;
+        this.leaseSeconds = leaseSeconds;
+        this.maxAttempts = maxAttempts;
+        this.maxRunningJobsPerUser = maxRunningJobsPerUser;
+        this.memoMaxDescriptions = memoMaxDescriptions;
+        this.finishedJobTtl = Duration.ofHours(finishedJobTtlHours);
+        this.jobMemos = Caffeine.newBuilder()
+                .maximumSize(memoMaxJobs)
+                .expireAfterAccess(MEMO_IDLE_TIMEOUT)
+                .build();
     }
 
+    /**
+     * Persist a job and its work items and return its PENDING status without waiting for it to run.
+     */
     public BulkCategorizationJobStatus startJob(UUID userId, BulkCategorizationRequest request) {
-        UUID jobId = UUID.randomUUID();
-        BulkCategorizationJobStatus status = new BulkCategorizationJobStatus(jobId, BulkCategorizationJobStatus.Status.PENDING);
-        jobs.put(jobId, status);
-        runJob(jobId, userId, request);
-        return status;
+        BulkCategorizationJob job = new BulkCategorizationJob();
+        job.setUserId(userId);
+        job.setTransactionType(request.getTransactionType());
+        job.setDateFrom(request.getDateFrom());
+        job.setDateTo(request.getDateTo());
+        job.setCurrentCategoryId(request.getCurrentCategoryId());
+        job.setConfidenceThreshold(request.getConfidenceThreshold() != null
+                ? request.getConfidenceThreshold()
+                : DEFAULT_CONFIDENCE_THRESHOLD);
+        BulkCategorizationJob saved = transactionTemplate.execute(tx -> {
+            BulkCategorizationJob persisted = jobRepository.save(job);
+            workItemRepository.saveAll(workItems(persisted.getId(), partitions));
+            return persisted;
+        });
+        jobExecutor.wakeUp();
+        return toStatus(saved);
     }
 
-    public BulkCategorizationJobStatus getJob(UUID jobId) {
-        return jobs.get(jobId);
+    /**
+     * Current status of one of the user's jobs as last committed by the workers, or {@code null}
+     * if the job does not exist or has been purged.
+     */
+    public BulkCategorizationJobStatus getJob(UUID userId, UUID jobId) {
+        BulkCategorizationJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            return null;
+        }
+        if (!job.getUserId().equals(userId)) {
+            throw new ForbiddenOperationException("You do not have access to this bulk categorization job");
+        }
+        return toStatus(job);
     }
 
-    @Transactional
-    public void runJob(UUID jobId, UUID userId, BulkCategorizationRequest request) {
-        BulkCategorizationJobStatus status = jobs.get(jobId);
-        if (status == null) {
-            return;
+    /**
+     * Cancel one of the user's jobs. Pending work items are dropped and workers stop at their next
+     * chunk commit, rolling back the chunk in flight; chunks committed before stay applied.
+     * Cancelling a finished job leaves it unchanged.
+     */
+    public BulkCategorizationJobStatus cancelJob(UUID userId, UUID jobId) {
+        BulkCategorizationJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Bulk categorization job not found"));
+        if (!job.getUserId().equals(userId)) {
+            throw new ForbiddenOperationException("You do not have access to this bulk categorization job");
         }
-        status.setStatus(BulkCategorizationJobStatus.Status.RUNNING);
-        try {
-            List<Transaction> transactions = transactionRepository.findForBulkCategorization(
+        transactionTemplate.executeWithoutResult(tx -> {
+            workItemRepository.cancelUnfinished(jobId);
+            jobRepository.cancel(jobId);
+        });
+        return getJob(userId, jobId);
+    }
+
+    /**
+     * Stream the changes a job with these filters would make as NDJSON, one
+     * {@link BulkCategorizationPreviewItem} per line, flushed after every chunk. Nothing is
+     * written: chunks are read as projections outside any transaction, so a preview of a long
+     * history holds no locks and keeps no entities around.
+     */
+    public void preview(UUID userId, BulkCategorizationRequest request, OutputStream out) throws IOException {
+        double threshold = request.getConfidenceThreshold() != null
+                ? request.getConfidenceThreshold()
+                : DEFAULT_CONFIDENCE_THRESHOLD;
+        SuggestionMemo memo = new SuggestionMemo(memoMaxDescriptions);
+        UUID cursor = TransactionRepository.KEYSET_START;
+        while (cursor != null) {
+            throttle.awaitCapacity();
+            List<BulkCategorizationCandidateView> chunk = transactionRepository.findForBulkCategorization(
                     userId,
                     request.getTransactionType(),
                     request.getDateFrom(),
                     request.getDateTo(),
-                    request.getCurrentCategoryId()
+                    request.getCurrentCategoryId(),
+                    cursor,
+                    null,
+                    PageRequest.of(0, chunkSize)
             );
+            if (chunk.isEmpty()) {
+                break;
+            }
+            long feedbackVersion = categorizationService.feedbackVersion(userId);
+            List<CategorySuggestion> suggestions = evaluate(chunk, userId, feedbackVersion, memo).suggestions();
+            for (int i = 0; i < chunk.size(); i++) {
+                BulkCategorizationCandidateView tx = chunk.get(i);
+                CategorySuggestion suggestion = suggestions.get(i);
+                if (suggestion == null || suggestion.getConfidence() < threshold || suggestion.getCategoryId() == null
+                        || suggestion.getCategoryId().equals(tx.getCategoryId())) {
+                    continue;
+                }
+                Optional<Category> suggested = categoryRegistry.findById(suggestion.getCategoryId());
+                if (suggested.isEmpty()) {
+                    continue;
+                }
+                out.write(objectMapper.writeValueAsBytes(new BulkCategorizationPreviewItem(
+                        tx.getId(), tx.getCategoryId(), suggested.get().getId(), suggested.get().getName(),
+                        suggestion.getConfidence())));
+                out.write('\n');
+            }
+            out.flush();
+            cursor = chunk.size() < chunkSize ? null : chunk.get(chunk.size() - 1).getId();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWorkers() {
+        jobExecutor.start(this::processNextWorkItem);
+    }
+
+    /**
+     * Claim and process the next work item from the queue. A user's pending job only starts while
+     * fewer than the configured number of their jobs are running; the count is re-read under the
+     * user's claim lock, so workers racing to start two of the user's jobs cannot both pass it.
+     *
+     * @return false when no item was claimable
+     */
+    boolean processNextWorkItem() {
+        UUID leaseToken = UUID.randomUUID();
+        BulkCategorizationWorkItem item = transactionTemplate.execute(tx ->
+                workItemRepository.lockNextClaimable(maxAttempts, maxRunningJobsPerUser)
+                        .filter(next -> {
+                            jobRepository.lockUserClaims(next.getJobId());
+                            return jobRepository.canClaim(next.getJobId(), maxRunningJobsPerUser);
+                        })
+                        .map(next -> {
+                            workItemRepository.lease(next.getId(), leaseToken, leaseSeconds);
+                            jobRepository.markRunning(next.getJobId());
+                            return next;
+                        })
+                        .orElse(null));
+        if (item == null) {
+            return false;
+        }
+        runWorkItem(item, leaseToken);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${categorization.bulk.recovery-interval-ms:60000}",
+            initialDelayString = "${categorization.bulk.recovery-interval-ms:60000}")
+    public void recoverQuietly() {
+        try {
+            failAbandonedItems();
+        } catch (RuntimeException ex) {
+            log.warn("Bulk categorization work item recovery failed", ex);
+        }
+    }
+
+    /**
+     * Fail items whose lease expired after their last attempt, and finish their jobs if nothing
+     * else is left. Items with attempts to spare need no recovery: workers claim them again.
+     *
+     * @return number of items failed
+     */
+    public int failAbandonedItems() {
+        Integer failed = transactionTemplate.execute(tx -> {
+            List<BulkCategorizationWorkItem> abandoned = workItemRepository.lockAbandoned(maxAttempts);
+            if (abandoned.isEmpty()) {
+                return 0;
+            }
+            workItemRepository.fail(abandoned.stream().map(BulkCategorizationWorkItem::getId).toList(),
+                    "Work item lease expired after " + maxAttempts + " attempts");
+            TreeSet<UUID> jobIds = new TreeSet<>();
+            abandoned.forEach(item -> jobIds.add(item.getJobId()));
+            for (UUID jobId : jobIds) {
+                jobRepository.lockById(jobId);
+                jobRepository.finishIfDone(jobId);
+            }
+            return abandoned.size();
+        });
+        if (failed != null && failed > 0) {
+            log.warn("Failed {} abandoned bulk categorization work items", failed);
+        }
+        return failed != null ? failed : 0;
+    }
 
-            long updated = 0;
-            long skipped = 0;
-            double threshold = request.getConfidenceThreshold() != null ? request.getConfidenceThreshold() : 0.7;
+    @Scheduled(fixedDelayString = "${categorization.bulk.purge-interval-ms:3600000}",
+            initialDelayString = "${categorization.bulk.purge-interval-ms:3600000}")
+    public void purgeQuietly() {
+        try {
+            purgeFinishedJobs();
+        } catch (RuntimeException ex) {
+            log.warn("Purging finished bulk categorization jobs failed", ex);
+        }
+    }
+
+    /**
+     * Delete completed and failed jobs older than the TTL.
+     *
+     * @return number of jobs deleted
+     */
+    public int purgeFinishedJobs() {
+        Instant finishedBefore = Instant.now().minus(finishedJobTtl);
+        Integer purged = transactionTemplate.execute(tx -> jobRepository.deleteFinishedBefore(finishedBefore));
+        return purged != null ? purged : 0;
+    }
 
-            for (Transaction tx : transactions) {
-                CategorySuggestion suggestion = categorizationService.suggestCategory(
-                        tx.getDescription(),
-                        tx.getAmount(),
-                        tx.getTransactionType(),
-                        userId
+    /**
+     * Split the id space into contiguous ranges of equal width. Ranges follow Postgres' unsigned
+     * byte-wise UUID order; random ids spread evenly across them.
+     */
+    static List<BulkCategorizationWorkItem> workItems(UUID jobId, int partitions) {
+        long step = Long.divideUnsigned(-1L, partitions);
+        List<BulkCategorizationWorkItem> items = new ArrayList<>(partitions);
+        UUID start = TransactionRepository.KEYSET_START;
+        for (int i = 1; i <= partitions; i++) {
+            UUID end = i == partitions ? null : new UUID(step * i, -1L);
+            items.add(new BulkCategorizationWorkItem(jobId, start, end));
+            start = end;
+        }
+        return items;
+    }
+
+    private void runWorkItem(BulkCategorizationWorkItem item, UUID leaseToken) {
+        BulkCategorizationJob job = jobRepository.findById(item.getJobId()).orElse(null);
+        if (job == null) {
+            return;
+        }
+        try {
+            SuggestionMemo memo = jobMemos.get(job.getId(), id -> new SuggestionMemo(memoMaxDescriptions));
+            UUID cursor = item.getCheckpointId() != null ? item.getCheckpointId() : item.getRangeStart();
+            while (cursor != null) {
+                throttle.awaitCapacity();
+                cursor = processChunk(job, item, leaseToken, memo, cursor);
+            }
+            settle(item, () -> workItemRepository.complete(item.getId(), leaseToken));
+        } catch (LeaseLostException ex) {
+            log.info("Work item {} of bulk categorization job {} was cancelled or taken over by another worker",
+                    item.getId(), item.getJobId());
+        } catch (Exception ex) {
+            log.warn("Work item {} of bulk categorization job {} failed", item.getId(), item.getJobId(), ex);
+            String error = truncate(ex.getMessage());
+            settle(item, () -> workItemRepository.release(item.getId(), leaseToken, error, maxAttempts));
+        }
+    }
+
+    /**
+     * Categorize the chunk of the item's range after the cursor; jobs queued for a rule change read
+     * only the transactions indexed under their keyword tokens. The user's feedback version is read
+     * once with the chunk, and suggestions are then evaluated in parallel on the executor's
+     * evaluation pool before any transaction is opened, so a worker holds a database connection
+     * only while reading the chunk and while writing its results.
+     *
+     * @return the cursor for the next chunk, or {@code null} when this was the last one
+     */
+    private UUID processChunk(BulkCategorizationJob job, BulkCategorizationWorkItem item, UUID leaseToken,
+                              SuggestionMemo memo, UUID after) {
+        UUID userId = job.getUserId();
+        List<BulkCategorizationCandidateView> chunk = job.getKeywordTokens() != null
+                ? transactionRepository.findForKeywordRecategorization(
+                        userId, job.getKeywordTokens(), after, item.getRangeEnd(), PageRequest.of(0, chunkSize))
+                : transactionRepository.findForBulkCategorization(
+                        userId,
+                        job.getTransactionType(),
+                        job.getDateFrom(),
+                        job.getDateTo(),
+                        job.getCurrentCategoryId(),
+                        after,
+                        item.getRangeEnd(),
+                        PageRequest.of(0, chunkSize)
                 );
-                if (suggestion != null && suggestion.getConfidence() >= threshold && suggestion.getCategoryId() != null) {
-                    UUID suggestedId = suggestion.getCategoryId();
-                    // avoid unnecessary writes if already that category
-                    if (tx.getCategory() == null || !suggestedId.equals(tx.getCategory().getId())) {
-                        Category target = categoryRepository.findById(suggestedId).orElse(null);
-                        if (target != null) {
-                            tx.setCategory(target);
-                            transactionRepository.save(tx);
-                            updated++;
-                        } else {
-                            skipped++;
-                        }
+        if (chunk.isEmpty()) {
+            return null;
+        }
+        long feedbackVersion = categorizationService.feedbackVersion(userId);
+        Evaluation evaluation = evaluate(chunk, userId, feedbackVersion, memo);
+        UUID last = chunk.get(chunk.size() - 1).getId();
+        transactionTemplate.executeWithoutResult(status -> writeChunk(job, item, leaseToken, chunk, evaluation, last));
+        return chunk.size() < chunkSize ? null : last;
+    }
+
+    /**
+     * Apply a chunk's suggestions in the current transaction. Re-categorized rows are grouped by
+     * target category and written with one set-based UPDATE per category, and the item
+     * checkpoint and job counters are advanced in the same transaction.
+     */
+    private void writeChunk(BulkCategorizationJob job, BulkCategorizationWorkItem item, UUID leaseToken,
+                            List<BulkCategorizationCandidateView> chunk, Evaluation evaluation, UUID last) {
+        Map<UUID, List<UUID>> idsByCategory = new HashMap<>();
+        long skipped = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            BulkCategorizationCandidateView tx = chunk.get(i);
+            CategorySuggestion suggestion = evaluation.suggestions().get(i);
+            if (suggestion != null && suggestion.getConfidence() >= job.getConfidenceThreshold()
+                    && suggestion.getCategoryId() != null) {
+                UUID suggestedId = suggestion.getCategoryId();
+                // avoid unnecessary writes if already that category
+                if (!suggestedId.equals(tx.getCategoryId())) {
+                    if (categoryRegistry.findById(suggestedId).isPresent()) {
+                        idsByCategory.computeIfAbsent(suggestedId, id -> new ArrayList<>()).add(tx.getId());
+                    } else {
+                        skipped++;
                     }
-                } else {
-                    skipped++;
                 }
+            } else {
+                skipped++;
             }
+        }
+        long updated = 0;
+        for (Map.Entry<UUID, List<UUID>> target : idsByCategory.entrySet()) {
+            updated += transactionRepository.updateCategory(job.getUserId(), target.getValue(), target.getKey());
+        }
+        if (workItemRepository.recordProgress(item.getId(), leaseToken, last, leaseSeconds) == 0) {
+            // rolls back this chunk's updates; the worker that took over repeats them, a cancelled job keeps none
+            throw new LeaseLostException();
+        }
+        jobRepository.addProgress(job.getId(), chunk.size(), updated, skipped,
+                evaluation.memoHits(), chunk.size() - evaluation.memoHits());
+    }
 
-            status.setTotalProcessed(transactions.size());
-            status.setTotalUpdated(updated);
-            status.setTotalSkippedLowConfidence(skipped);
-            status.setStatus(BulkCategorizationJobStatus.Status.COMPLETED);
-        } catch (Exception ex) {
-            status.setStatus(BulkCategorizationJobStatus.Status.FAILED);
-            status.setError(ex.getMessage());
+    /**
+     * Suggest categories for a chunk, evaluating each memo slot once per job on this node. Rows
+     * whose slot was already evaluated, by this or another worker of the job, reuse the memoized
+     * suggestion; the distinct remainder is evaluated in parallel, bypassing the interactive
+     * suggestion cache. A row whose slot another worker reserved but has not filled yet is
+     * evaluated again rather than waited for.
+     */
+    private Evaluation evaluate(List<BulkCategorizationCandidateView> chunk, UUID userId, long feedbackVersion,
+                                SuggestionMemo memo) {
+        int[] slots = new int[chunk.size()];
+        List<Integer> pendingRows = new ArrayList<>();
+        List<Integer> memoRows = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            BulkCategorizationCandidateView tx = chunk.get(i);
+            slots[i] = memo.slot(tx.getDescription(), tx.getTransactionType(), tx.getAmount());
+            if (slots[i] < 0 || memo.reserve(slots[i])) {
+                pendingRows.add(i);
+            } else {
+                memoRows.add(i);
+            }
+        }
+        CategorySuggestion[] suggestions = new CategorySuggestion[chunk.size()];
+        List<CategorySuggestion> evaluated = suggest(chunk, pendingRows, userId, feedbackVersion);
+        for (int j = 0; j < pendingRows.size(); j++) {
+            int row = pendingRows.get(j);
+            suggestions[row] = evaluated.get(j);
+            if (slots[row] >= 0) {
+                memo.put(slots[row], evaluated.get(j));
+            }
+        }
+        List<Integer> inFlightRows = new ArrayList<>();
+        for (int row : memoRows) {
+            if (memo.isEvaluated(slots[row])) {
+                suggestions[row] = memo.get(slots[row]);
+            } else {
+                inFlightRows.add(row);
+            }
+        }
+        List<CategorySuggestion> reevaluated = suggest(chunk, inFlightRows, userId, feedbackVersion);
+        for (int j = 0; j < inFlightRows.size(); j++) {
+            suggestions[inFlightRows.get(j)] = reevaluated.get(j);
+        }
+        return new Evaluation(Arrays.asList(suggestions), memoRows.size() - inFlightRows.size());
+    }
+
+    private List<CategorySuggestion> suggest(List<BulkCategorizationCandidateView> chunk, List<Integer> rows, UUID userId,
+                                             long feedbackVersion) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        return jobExecutor.parallelMap(rows, row -> {
+            BulkCategorizationCandidateView tx = chunk.get(row);
+            return categorizationService.suggestCategoryUncached(
+                    tx.getDescription(), tx.getAmount(), tx.getTransactionType(), userId, feedbackVersion);
+        });
+    }
+
+    /**
+     * Apply a completion or release of the item and finish the job if it was the last one. The
+     * job row is locked after the item update, so of two workers settling a job's last items at
+     * once, the second sees the first's committed item and finishes the job.
+     */
+    private void settle(BulkCategorizationWorkItem item, IntSupplier update) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                if (update.getAsInt() == 0) {
+                    return;
+                }
+                jobRepository.lockById(item.getJobId());
+                jobRepository.finishIfDone(item.getJobId());
+            });
+        } catch (RuntimeException ex) {
+            // the lease expires and the item is claimed again
+            log.warn("Could not settle work item {} of bulk categorization job {}", item.getId(), item.getJobId(), ex);
+        }
+    }
+
+    private BulkCategorizationJobStatus toStatus(BulkCategorizationJob job) {
+        BulkCategorizationJobStatus status = new BulkCategorizationJobStatus(
+                job.getId(), BulkCategorizationJobStatus.Status.valueOf(job.getStatus().name()));
+        status.setTotalProcessed(job.getTotalProcessed());
+        status.setTotalUpdated(job.getTotalUpdated());
+        status.setTotalSkippedLowConfidence(job.getTotalSkippedLowConfidence());
+        status.setMemoHits(job.getMemoHits());
+        status.setMemoMisses(job.getMemoMisses());
+        status.setError(job.getError());
+        status.setCreatedAt(job.getCreatedAt());
+        status.setStartedAt(job.getStartedAt());
+        status.setFinishedAt(job.getFinishedAt());
+        if (job.getStatus() == BulkCategorizationJob.Status.PENDING) {
+            long ahead = jobRepository.countByStatusAndCreatedAtBefore(BulkCategorizationJob.Status.PENDING, job.getCreatedAt());
+            status.setQueuePosition((int) Math.min(Integer.MAX_VALUE, ahead + 1));
+        }
+        return status;
+    }
+
+    private static String truncate(String message) {
+        return message != null && message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    /**
+     * Suggestions of a chunk in row order, and how many rows were answered from the memo.
+     */
+    private record Evaluation(List<CategorySuggestion> suggestions, int memoHits) {
+    }
+
+    /**
+     * Thrown inside a chunk transaction when another worker has claimed the item.
+     */
+    private static final class LeaseLostException extends RuntimeException {
+        LeaseLostException() {
+            super(null, null, false, false);
         }
     }
 }
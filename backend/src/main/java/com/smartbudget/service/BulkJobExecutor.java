@@ -0,0 +1,158 @@
+package com.smartbudget.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Fixed pool of background workers on virtual threads that drain a shared work queue.
+ * <p>
+ * Each worker repeatedly asks the queue for one unit of work; when there is none it sleeps for
+ * the idle poll interval or until {@link #wakeUp()} signals that work was added on this node.
+ * Work added on other nodes is picked up at the next poll, so the queue itself is the only
+ * coordination between nodes.
+ * <p>
+ * CPU-bound steps of the workers can be spread over a shared fork-join pool with
+ * {@link #parallelMap}; it is sized independently of the worker count, which bounds the
+ * database connections the workers hold at once.
+ */
+@Component
+public class BulkJobExecutor implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkJobExecutor.class);
+
+    private final int workers;
+    private final long idlePollMillis;
+    private final ExecutorService executor;
+    private final ForkJoinPool evaluationPool;
+    private final int parallelThreshold;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition workAvailable = lock.newCondition();
+    private long wakeUps;
+    private boolean started;
+    private volatile boolean stopped;
+
+    public BulkJobExecutor(@Value("${categorization.bulk.workers:4}") int workers,
+                           @Value("${categorization.bulk.idle-poll-interval-ms:2000}") long idlePollMillis,
+                           @Value("${categorization.bulk.evaluation-parallelism:0}") int evaluationParallelism,
+                           @Value("${categorization.bulk.parallel-threshold:64}") int parallelThreshold) {
+        this.workers = workers;
+        this.idlePollMillis = idlePollMillis;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("bulk-worker-", 0).factory());
+        this.evaluationPool = new ForkJoinPool(evaluationParallelism > 0
+                ? evaluationParallelism
+                : Runtime.getRuntime().availableProcessors());
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Start the workers. {@code pollOnce} processes at most one unit of work and returns whether
+     * it found any. Later calls are ignored.
+     */
+    public void start(BooleanSupplier pollOnce) {
+        lock.lock();
+        try {
+            if (started || stopped) {
+                return;
+            }
+            started = true;
+        } finally {
+            lock.unlock();
+        }
+        for (int i = 0; i < workers; i++) {
+            executor.execute(() -> work(pollOnce));
+        }
+    }
+
+    /**
+     * Wake idle workers, e.g. after work was queued on this node.
+     */
+    public void wakeUp() {
+        lock.lock();
+        try {
+            wakeUps++;
+            workAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Apply a CPU-bound function to every item on the evaluation pool and return the results in
+     * item order. Lists below the parallel threshold are mapped on the calling thread.
+     */
+    public <T, R> List<R> parallelMap(List<T> items, Function<? super T, ? extends R> mapper) {
+        if (items.size() < parallelThreshold) {
+            return items.stream().<R>map(mapper).toList();
+        }
+        return evaluationPool.submit(() -> items.parallelStream().<R>map(mapper).toList()).join();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        stopped = true;
+        wakeUp();
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+        evaluationPool.shutdown();
+    }
+
+    private void work(BooleanSupplier pollOnce) {
+        while (!stopped) {
+            long seen = currentWakeUps();
+            boolean found;
+            try {
+                found = pollOnce.getAsBoolean();
+            } catch (RuntimeException ex) {
+                log.warn("Background worker poll failed", ex);
+                found = false;
+            }
+            if (!found && !awaitWork(seen)) {
+                return;
+            }
+        }
+    }
+
+    private long currentWakeUps() {
+        lock.lock();
+        try {
+            return wakeUps;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sleep until woken or the poll interval elapses, unless a wake-up arrived since {@code seen}.
+     *
+     * @return false when the worker was interrupted and should exit
+     */
+    private boolean awaitWork(long seen) {
+        lock.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(idlePollMillis);
+            while (wakeUps == seen && !stopped && remaining > 0) {
+                remaining = workAvailable.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.smartbudget.service;
+
+import com.smartbudget.dto.BulkCategorizationJobStatus;
+import com.smartbudget.dto.BulkCategorizationProgressEvent;
+import com.smartbudget.entity.BulkCategorizationJob;
+import com.smartbudget.entity.BulkCategorizationWorkItem;
+import com.smartbudget.exception.ForbiddenOperationException;
+import com.smartbudget.exception.ResourceNotFoundException;
+import com.smartbudget.repository.BulkCategorizationJobRepository;
+import com.smartbudget.repository.BulkCategorizationWorkItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes bulk categorization progress to Server-Sent Events subscribers.
+ * <p>
+ * Subscribers are kept in a registry of {@link SseEmitter}s keyed by job; an open stream holds
+ * neither a thread nor a connection. Once per interval a single scheduled pass reads every
+ * watched job and its work items in two queries and sends each job's progress to its
+ * subscribers, skipping jobs that have not moved. Progress comes from the committed job rows, so
+ * subscribers see jobs running on any node. Streams end after the job's final event.
+ * <p>
+ * The scheduled pass only queries and hands events over: sends run on virtual threads, one drain
+ * per stream at a time, and a stream that is still busy with an earlier event only gets the latest
+ * one. A slow client therefore delays neither other streams nor the other scheduled tasks.
+ */
+@Service
+public class BulkJobProgressBroadcaster implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkJobProgressBroadcaster.class);
+
+    private static final String EVENT_NAME = "progress";
+    private static final double ID_SPACE = 0x1p64;
+
+    private final BulkCategorizationJobRepository jobRepository;
+    private final BulkCategorizationWorkItemRepository workItemRepository;
+    private final long timeoutMillis;
+    private final ExecutorService sender;
+    private final Map<UUID, Watchers> watchers = new ConcurrentHashMap<>();
+
+    public BulkJobProgressBroadcaster(BulkCategorizationJobRepository jobRepository,
+                                      BulkCategorizationWorkItemRepository workItemRepository,
+                                      @Value("${categorization.bulk.progress.timeout-ms:1800000}") long timeoutMillis) {
+        this.jobRepository = jobRepository;
+        this.workItemRepository = workItemRepository;
+        this.timeoutMillis = timeoutMillis;
+        this.sender = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-progress-", 0).factory());
+    }
+
+    /**
+     * Open an event stream for one of the user's jobs. The current progress is sent right away;
+     * a finished job gets that single event and the stream ends.
+     */
+    public SseEmitter subscribe(UUID userId, UUID jobId) {
+        BulkCategorizationJob job = jobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Bulk categorization job not found"));
+        if (!job.getUserId().equals(userId)) {
+            throw new ForbiddenOperationException("You do not have access to this bulk categorization job");
+        }
+        BulkCategorizationProgressEvent event = progress(job, workItemRepository.findByJobIdIn(List.of(jobId)), Instant.now());
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        if (!send(emitter, event)) {
+            return emitter;
+        }
+        if (isFinished(job)) {
+            emitter.complete();
+            return emitter;
+        }
+        Subscriber subscriber = new Subscriber(jobId, emitter);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(ex -> unsubscribe(subscriber));
+        watchers.compute(jobId, (id, current) -> {
+            Watchers next = current != null ? current : new Watchers(event);
+            next.subscribers.add(subscriber);
+            return next;
+        });
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${categorization.bulk.progress.interval-ms:1000}")
+    public void broadcastQuietly() {
+        try {
+            broadcast();
+        } catch (RuntimeException ex) {
+            log.warn("Broadcasting bulk categorization progress failed", ex);
+        }
+    }
+
+    /**
+     * Queue fresh progress for every watched job that moved since its last event.
+     *
+     * @return number of jobs whose progress was queued
+     */
+    public int broadcast() {
+        if (watchers.isEmpty()) {
+            return 0;
+        }
+        Set<UUID> jobIds = Set.copyOf(watchers.keySet());
+        Map<UUID, BulkCategorizationJob> jobs = new HashMap<>();
+        jobRepository.findAllById(jobIds).forEach(job -> jobs.put(job.getId(), job));
+        Map<UUID, List<BulkCategorizationWorkItem>> itemsByJob = workItemRepository.findByJobIdIn(jobIds).stream()
+                .collect(Collectors.groupingBy(BulkCategorizationWorkItem::getJobId));
+        Instant now = Instant.now();
+
+        int sent = 0;
+        for (UUID jobId : jobIds) {
+            Watchers watching = watchers.get(jobId);
+            if (watching == null) {
+                continue;
+            }
+            BulkCategorizationJob job = jobs.get(jobId);
+            if (job == null) {
+                // purged while watched
+                watchers.remove(jobId);
+                watching.subscribers.forEach(subscriber -> subscriber.offer(null, true));
+                continue;
+            }
+            BulkCategorizationProgressEvent event = progress(job, itemsByJob.getOrDefault(jobId, List.of()), now);
+            if (!watching.advance(event)) {
+                continue;
+            }
+            boolean finished = isFinished(job);
+            if (finished) {
+                watchers.remove(jobId);
+            }
+            for (Subscriber subscriber : watching.subscribers) {
+                subscriber.offer(event, finished);
+            }
+            sent++;
+        }
+        return sent;
+    }
+
+    /**
+     * Number of jobs with at least one open stream.
+     */
+    int watchedJobs() {
+        return watchers.size();
+    }
+
+    /**
+     * Progress of a job from its counters and how far its work items have walked their id ranges.
+     * Throughput is averaged since the job started and the ETA extrapolates it over the share of
+     * the id space still ahead.
+     */
+    static BulkCategorizationProgressEvent progress(BulkCategorizationJob job, List<BulkCategorizationWorkItem> items,
+                                                    Instant now) {
+        BulkCategorizationProgressEvent event = new BulkCategorizationProgressEvent(
+                job.getId(), BulkCategorizationJobStatus.Status.valueOf(job.getStatus().name()));
+        event.setTotalProcessed(job.getTotalProcessed());
+        event.setTotalUpdated(job.getTotalUpdated());
+        event.setTotalSkippedLowConfidence(job.getTotalSkippedLowConfidence());
+        double fraction = job.getStatus() == BulkCategorizationJob.Status.COMPLETED ? 1.0 : fractionComplete(items);
+        event.setFractionComplete(fraction);
+        if (job.getStartedAt() != null) {
+            Instant end = job.getFinishedAt() != null ? job.getFinishedAt() : now;
+            double seconds = Duration.between(job.getStartedAt(), end).toMillis() / 1000.0;
+            if (seconds > 0) {
+                event.setThroughputPerSecond(job.getTotalProcessed() / seconds);
+            }
+            if (job.getStatus() == BulkCategorizationJob.Status.RUNNING && fraction > 0 && fraction < 1) {
+                event.setEtaSeconds(Math.round(seconds * (1 - fraction) / fraction));
+            }
+        }
+        return event;
+    }
+
+    /**
+     * Share of the items' id ranges behind their checkpoints; done items count in full.
+     */
+    static double fractionComplete(List<BulkCategorizationWorkItem> items) {
+        double covered = 0;
+        double width = 0;
+        for (BulkCategorizationWorkItem item : items) {
+            double start = position(item.getRangeStart());
+            double end = item.getRangeEnd() != null ? position(item.getRangeEnd()) : ID_SPACE;
+            width += end - start;
+            if (item.getStatus() == BulkCategorizationWorkItem.Status.DONE) {
+                covered += end - start;
+            } else if (item.getCheckpointId() != null) {
+                covered += Math.min(end, position(item.getCheckpointId())) - start;
+            }
+        }
+        return width > 0 ? covered / width : 0;
+    }
+
+    /**
+     * Position of an id in Postgres' unsigned UUID order, from its leading 64 bits.
+     */
+    private static double position(UUID id) {
+        long high = id.getMostSignificantBits();
+        return (high >>> 1) * 2.0 + (high & 1);
+    }
+
+    private static boolean isFinished(BulkCategorizationJob job) {
+        return job.getStatus() != BulkCategorizationJob.Status.PENDING
+                && job.getStatus() != BulkCategorizationJob.Status.RUNNING;
+    }
+
+    private static boolean send(SseEmitter emitter, BulkCategorizationProgressEvent event) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(event, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException ex) {
+            // client went away; the container completes the emitter
+            return false;
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        watchers.computeIfPresent(subscriber.jobId, (id, current) -> {
+            current.subscribers.remove(subscriber);
+            return current.subscribers.isEmpty() ? null : current;
+        });
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        sender.shutdown();
+        sender.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * One open stream. Events offered while a send is in flight replace each other, so the
+     * stream always catches up to the latest progress and never gets two sends at once.
+     */
+    private final class Subscriber {
+        private final UUID jobId;
+        private final SseEmitter emitter;
+        private final AtomicReference<Delivery> pending = new AtomicReference<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(UUID jobId, SseEmitter emitter) {
+            this.jobId = jobId;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Queue an event, or none, and whether the stream ends after it.
+         */
+        void offer(BulkCategorizationProgressEvent event, boolean last) {
+            pending.set(new Delivery(event, last));
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException ex) {
+                    // shutting down
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            do {
+                Delivery delivery;
+                while ((delivery = pending.getAndSet(null)) != null) {
+                    if (delivery.event() != null && !send(emitter, delivery.event())) {
+                        unsubscribe(this);
+                        return;
+                    }
+                    if (delivery.last()) {
+                        emitter.complete();
+                        return;
+                    }
+                }
+                draining.set(false);
+            } while (pending.get() != null && draining.compareAndSet(false, true));
+        }
+    }
+
+    private record Delivery(BulkCategorizationProgressEvent event, boolean last) {
+    }
+
+    /**
+     * Open streams of one job and the last progress queued for them. {@code last} is only touched
+     * by the broadcast pass.
+     */
+    private static final class Watchers {
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private BulkCategorizationProgressEvent last;
+
+        Watchers(BulkCategorizationProgressEvent initial) {
+            this.last = initial;
+        }
+
+        /**
+         * Record the event and return whether it differs from the last one queued.
+         */
+        boolean advance(BulkCategorizationProgressEvent event) {
+            boolean moved = event.getStatus() != last.getStatus()
+                    || event.getTotalProcessed() != last.getTotalProcessed();
+            if (moved) {
+                last = event;
+            }
+            return moved;
+        }
+    }
+}
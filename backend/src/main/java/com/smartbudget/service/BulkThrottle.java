@@ -0,0 +1,124 @@
+package com.smartbudget.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adaptive backpressure for bulk work, driven by the Hikari connection pool.
+ * <p>
+ * Before each chunk a bulk worker asks for capacity. At most once per sampling interval, the
+ * first worker to ask samples the pool: while threads are waiting for a connection or the share
+ * of active connections is above the threshold, the shared delay doubles up to the maximum; once
+ * the pool is healthy again it halves back to zero. Other workers asking within the interval
+ * reuse the delay, so it moves by one step per interval however many workers run. Interactive
+ * requests therefore keep getting connections promptly while bulk jobs run. Without a Hikari pool
+ * nothing is throttled.
+ */
+@Component
+public class BulkThrottle {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkThrottle.class);
+
+    private final HikariDataSource pool;
+    private final double maxActiveRatio;
+    private final long minDelayMillis;
+    private final long maxDelayMillis;
+    private final long sampleIntervalNanos;
+    private final AtomicLong delayMillis = new AtomicLong();
+    private final AtomicLong lastAdjustedNanos;
+
+    public BulkThrottle(DataSource dataSource,
+                        @Value("${categorization.bulk.throttle.max-active-ratio:0.75}") double maxActiveRatio,
+                        @Value("${categorization.bulk.throttle.min-delay-ms:50}") long minDelayMillis,
+                        @Value("${categorization.bulk.throttle.max-delay-ms:2000}") long maxDelayMillis,
+                        @Value("${categorization.bulk.throttle.sample-interval-ms:250}") long sampleIntervalMillis) {
+        this.pool = hikari(dataSource);
+        this.maxActiveRatio = maxActiveRatio;
+        this.minDelayMillis = minDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.sampleIntervalNanos = TimeUnit.MILLISECONDS.toNanos(sampleIntervalMillis);
+        // the first request samples the pool
+        this.lastAdjustedNanos = new AtomicLong(System.nanoTime() - sampleIntervalNanos);
+    }
+
+    /**
+     * Pause the calling worker for the current delay, after updating it from the pool state when
+     * the sampling interval has passed.
+     */
+    public void awaitCapacity() {
+        long delay = adjustIfDue(System.nanoTime());
+        if (delay == 0) {
+            return;
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Current delay before each chunk, in milliseconds.
+     */
+    public long currentDelayMillis() {
+        return delayMillis.get();
+    }
+
+    boolean underPressure() {
+        HikariPoolMXBean metrics = pool != null ? pool.getHikariPoolMXBean() : null;
+        if (metrics == null) {
+            return false;
+        }
+        return metrics.getThreadsAwaitingConnection() > 0
+                || metrics.getActiveConnections() >= maxActiveRatio * pool.getMaximumPoolSize();
+    }
+
+    /**
+     * Sample the pool and adjust the delay if no worker did so within the sampling interval; the
+     * worker that wins the timestamp swap is the only one adjusting.
+     *
+     * @return the delay in effect
+     */
+    long adjustIfDue(long nowNanos) {
+        long last = lastAdjustedNanos.get();
+        if (nowNanos - last < sampleIntervalNanos || !lastAdjustedNanos.compareAndSet(last, nowNanos)) {
+            return delayMillis.get();
+        }
+        return adjust(underPressure());
+    }
+
+    long adjust(boolean pressured) {
+        long previous = delayMillis.get();
+        long next = delayMillis.updateAndGet(current -> pressured
+                ? Math.min(maxDelayMillis, Math.max(minDelayMillis, current * 2))
+                : current / 2 < minDelayMillis ? 0 : current / 2);
+        if (previous == 0 && next > 0) {
+            log.info("Connection pool under pressure, throttling bulk categorization");
+        } else if (previous > 0 && next == 0) {
+            log.info("Connection pool recovered, bulk categorization no longer throttled");
+        }
+        return next;
+    }
+
+    private static HikariDataSource hikari(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource hikari) {
+            return hikari;
+        }
+        try {
+            return dataSource != null && dataSource.isWrapperFor(HikariDataSource.class)
+                    ? dataSource.unwrap(HikariDataSource.class)
+                    : null;
+        } catch (SQLException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.smartbudget.service;
+
+import com.smartbudget.repository.CategorizationRuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the in-memory categorization rule snapshot and swaps it atomically when the rule set changes.
+ * <p>
+ * Readers always see a complete, immutable snapshot; reloads build a new one off to the side and
+ * publish it in a single reference swap (copy-on-write), so the suggest path never touches the database
+ * for rule evaluation. Each swap publishes a {@link CategorizationRulesChangedEvent} with the old and
+ * new versions.
+ */
+@Service
+public class CategorizationRuleCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CategorizationRuleCache.class);
+
+    private final CategorizationRuleRepository ruleRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AtomicReference<CategorizationRuleSnapshot> snapshot = new AtomicReference<>();
+
+    public CategorizationRuleCache(CategorizationRuleRepository ruleRepository,
+                                   ApplicationEventPublisher eventPublisher) {
+        this.ruleRepository = ruleRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Current rule snapshot, loading it on first use.
+     */
+    CategorizationRuleSnapshot current() {
+        CategorizationRuleSnapshot current = snapshot.get();
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot.get();
+            if (current == null) {
+                current = load();
+                snapshot.set(current);
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Version of the currently published snapshot.
+     */
+    public long currentVersion() {
+        return current().version();
+    }
+
+    /**
+     * Reload the snapshot if the rule-table version moved since it was built.
+     *
+     * @return version of the snapshot in use after the check
+     */
+    public synchronized long refreshIfChanged() {
+        CategorizationRuleSnapshot current = snapshot.get();
+        long latestVersion = ruleRepository.findRuleSetVersion().orElse(CategorizationRuleSnapshot.UNVERSIONED);
+        if (current != null && current.version() == latestVersion && latestVersion != CategorizationRuleSnapshot.UNVERSIONED) {
+            return current.version();
+        }
+        CategorizationRuleSnapshot reloaded = load();
+        snapshot.set(reloaded);
+        if (current != null) {
+            log.info("Reloaded categorization rules: version {} -> {}", current.version(), reloaded.version());
+            eventPublisher.publishEvent(new CategorizationRulesChangedEvent(current.version(), reloaded.version()));
+        }
+        return reloaded.version();
+    }
+
+    @Scheduled(fixedDelayString = "${categorization.rules.poll-interval-ms:30000}",
+            initialDelayString = "${categorization.rules.poll-interval-ms:30000}")
+    public void pollForChanges() {
+        try {
+            refreshIfChanged();
+        } catch (RuntimeException ex) {
+            log.warn("Categorization rule poll failed, keeping snapshot in use", ex);
+        }
+    }
+
+    private CategorizationRuleSnapshot load() {
+        // read the version first so a concurrent change is picked up again by the next poll
+        long version = ruleRepository.findRuleSetVersion().orElse(CategorizationRuleSnapshot.UNVERSIONED);
+        return CategorizationRuleSnapshot.compile(version, ruleRepository.findAllWithCategory());
+    }
+}
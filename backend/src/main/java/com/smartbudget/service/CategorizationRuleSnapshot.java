@@ -0,0 +1,80 @@
+package com.smartbudget.service;
+
+import com.smartbudget.entity.CategorizationRule;
+import com.smartbudget.entity.Category;
+import com.smartbudget.entity.TransactionType;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable, versioned view of the categorization rules with one compiled matcher and one fuzzy
+ * keyword index per transaction type.
+ */
+final class CategorizationRuleSnapshot {
+
+    static final long UNVERSIONED = -1L;
+
+    /**
+     * Shorter keywords ("gas", "bus") are one typo away from too many unrelated words to match fuzzily.
+     */
+    static final int MIN_FUZZY_KEYWORD_LENGTH = 4;
+
+    private static final KeywordAutomaton<Category> EMPTY_MATCHER = KeywordAutomaton.<Category>builder().build();
+    private static final BkTree<Category> EMPTY_FUZZY_INDEX = BkTree.<Category>builder().build();
+
+    private final long version;
+    private final Map<TransactionType, KeywordAutomaton<Category>> matchers;
+    private final Map<TransactionType, BkTree<Category>> fuzzyIndexes;
+
+    private CategorizationRuleSnapshot(long version,
+                                       Map<TransactionType, KeywordAutomaton<Category>> matchers,
+                                       Map<TransactionType, BkTree<Category>> fuzzyIndexes) {
+        this.version = version;
+        this.matchers = matchers;
+        this.fuzzyIndexes = fuzzyIndexes;
+    }
+
+    /**
+     * Compile a snapshot from rules whose categories are already initialized.
+     */
+    static CategorizationRuleSnapshot compile(long version, List<CategorizationRule> rules) {
+        Map<TransactionType, KeywordAutomaton.Builder<Category>> builders = new EnumMap<>(TransactionType.class);
+        Map<TransactionType, BkTree.Builder<Category>> fuzzyBuilders = new EnumMap<>(TransactionType.class);
+        for (CategorizationRule rule : rules) {
+            if (rule.getTransactionType() == null || rule.getCategory() == null
+                    || rule.getKeyword() == null || rule.getKeyword().isBlank()) {
+                continue;
+            }
+            String keyword = rule.getKeyword().trim().toLowerCase(Locale.ENGLISH);
+            builders.computeIfAbsent(rule.getTransactionType(), type -> KeywordAutomaton.builder())
+                    .add(keyword, rule.getCategory());
+            if (keyword.length() >= MIN_FUZZY_KEYWORD_LENGTH) {
+                fuzzyBuilders.computeIfAbsent(rule.getTransactionType(), type -> BkTree.builder())
+                        .add(keyword, rule.getCategory());
+            }
+        }
+
+        Map<TransactionType, KeywordAutomaton<Category>> matchers = new EnumMap<>(TransactionType.class);
+        builders.forEach((type, builder) -> matchers.put(type, builder.build()));
+        Map<TransactionType, BkTree<Category>> fuzzyIndexes = new EnumMap<>(TransactionType.class);
+        fuzzyBuilders.forEach((type, builder) -> fuzzyIndexes.put(type, builder.build()));
+        return new CategorizationRuleSnapshot(version, Collections.unmodifiableMap(matchers),
+                Collections.unmodifiableMap(fuzzyIndexes));
+    }
+
+    long version() {
+        return version;
+    }
+
+    KeywordAutomaton<Category> matcherFor(TransactionType transactionType) {
+        return matchers.getOrDefault(transactionType, EMPTY_MATCHER);
+    }
+
+    BkTree<Category> fuzzyIndexFor(TransactionType transactionType) {
+        return fuzzyIndexes.getOrDefault(transactionType, EMPTY_FUZZY_INDEX);
+    }
+}
@@ -0,0 +1,8 @@
+package com.smartbudget.service;
+
+/**
+ * Published by {@link CategorizationRuleCache} on the node that noticed a rule-set change. What
+ * changed is recorded in the database per version, so every node sees the same changes.
+ */
+record CategorizationRulesChangedEvent(long previousVersion, long version) {
+}
@@ -1,22 +1,20 @@
 package com.smartbudget.service;
 
 import com.smartbudget.dto.CategorySuggestion;
-import com.smartbudget.entity.CategorizationRule;
+import com.smartbudget.dto.CategorySuggestionRequest;
 import com.smartbudget.entity.Category;
 import com.smartbudget.entity.TransactionType;
-import com.smartbudget.repository.CategorizationRuleRepository;
-import com.smartbudget.repository.CategoryRepository;
-import com.smartbudget.repository.CategorizationFeedbackRepository;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.regex.Pattern;
 
 /**
  * Provides keyword and heuristic-based category suggestions.
@@ -25,31 +23,50 @@ import java.util.regex.Pattern;
 public class CategorizationService {
 
     static final double EXACT_MATCH_CONFIDENCE = 0.9;
+    static final double DICTIONARY_MATCH_CONFIDENCE = 0.8;
     static final double PARTIAL_MATCH_CONFIDENCE = 0.6;
+    static final double CLASSIFIER_CONFIDENCE_CEILING = 0.7;
+    static final double CLASSIFIER_MIN_PROBABILITY = 0.6;
+    static final long CLASSIFIER_MIN_TRAINING_EXAMPLES = 50L;
+    static final double FUZZY_MATCH_CONFIDENCE = 0.5;
+    static final double FUZZY_DISTANCE_PENALTY = 0.05;
     static final double AMOUNT_HEURISTIC_CONFIDENCE = 0.4;
     static final double MIN_CONFIDENCE_THRESHOLD = 0.3;
     static final double PERSONALIZED_CONFIDENCE = 0.95;
     static final long PERSONALIZATION_THRESHOLD = 3L;
+    static final double PERSONALIZATION_MIN_SHARE = 0.5;
+    static final int MAX_FUZZY_QUERIES = 8;
 
-    private static final BigDecimal LARGE_TRANSACTION_THRESHOLD = BigDecimal.valueOf(1000);
-    private static final BigDecimal SMALL_TRANSACTION_THRESHOLD = BigDecimal.TEN;
+    private final CategorizationRuleCache ruleCache;
+    private final CategoryRegistry categoryRegistry;
+    private final PersonalizationIndex personalizationIndex;
+    private final CategorySuggestionCache suggestionCache;
+    private final CategoryClassifier categoryClassifier;
+    private final MerchantDictionary merchantDictionary;
+    private final boolean fuzzyMatchingEnabled;
+    private final int fuzzyMaxNodes;
 
-    private final CategorizationRuleRepository ruleRepository;
-    private final CategoryRepository categoryRepository;
-    private final CategorizationFeedbackRepository feedbackRepository;
-
-    public CategorizationService(CategorizationRuleRepository ruleRepository,
-                                 CategoryRepository categoryRepository,
-                                 CategorizationFeedbackRepository feedbackRepository) {
-        this.ruleRepository = ruleRepository;
-        this.categoryRepository = categoryRepository;
-        this.feedbackRepository = feedbackRepository;
+    public CategorizationService(CategorizationRuleCache ruleCache,
+                                 CategoryRegistry categoryRegistry,
+                                 PersonalizationIndex personalizationIndex,
+                                 CategorySuggestionCache suggestionCache,
+                                 CategoryClassifier categoryClassifier,
+                                 MerchantDictionary merchantDictionary,
+                                 @Value("${categorization.fuzzy.enabled:true}") boolean fuzzyMatchingEnabled,
+                                 @Value("${categorization.fuzzy.max-nodes:256}") int fuzzyMaxNodes) {
+        this.ruleCache = ruleCache;
+        this.categoryRegistry = categoryRegistry;
+        this.personalizationIndex = personalizationIndex;
+        this.suggestionCache = suggestionCache;
+        this.categoryClassifier = categoryClassifier;
+        this.merchantDictionary = merchantDictionary;
+        this.fuzzyMatchingEnabled = fuzzyMatchingEnabled;
+        this.fuzzyMaxNodes = fuzzyMaxNodes;
     }
 
     /**
      * Suggest a category for the provided description/amount combination.
      */
-    @Transactional(readOnly = true)
     public CategorySuggestion suggestCategory(String description,
                                               BigDecimal amount,
                                               TransactionType transactionType) {
@@ -59,7 +76,6 @@ public class CategorizationService {
     /**
      * Suggest a category for the provided description/amount combination with optional personalization.
      */
-    @Transactional(readOnly = true)
     public CategorySuggestion suggestCategory(String description,
                                               BigDecimal amount,
                                               TransactionType transactionType,
@@ -67,22 +83,124 @@ public class CategorizationService {
         if (transactionType == null) {
             return null;
         }
+        CategorizationRuleSnapshot snapshot = ruleCache.current();
+        long feedbackVersion = personalizationIndex.feedbackVersion(userId);
+        CategorySuggestionCache.Key key = cacheKey(snapshot, feedbackVersion, description, amount, transactionType, userId);
+        return suggestCached(key, snapshot, feedbackVersion, description, amount, transactionType, userId);
+    }
+
+    /**
+     * Committed feedback version of the user, read once per request or bulk chunk and passed to
+     * {@link #suggestCategoryUncached} so evaluation itself stays off the database.
+     */
+    public long feedbackVersion(UUID userId) {
+        return personalizationIndex.feedbackVersion(userId);
+    }
+
+    /**
+     * Suggest a category without reading or filling the suggestion cache. Bulk runs memoize their
+     * own suggestions and would otherwise evict the entries interactive requests rely on.
+     *
+     * @param feedbackVersion the user's feedback version as returned by {@link #feedbackVersion}
+     */
+    public CategorySuggestion suggestCategoryUncached(String description,
+                                                      BigDecimal amount,
+                                                      TransactionType transactionType,
+                                                      UUID userId,
+                                                      long feedbackVersion) {
+        if (transactionType == null) {
+            return null;
+        }
+        return suggest(ruleCache.current(), feedbackVersion, description, amount, transactionType, userId);
+    }
+
+    /**
+     * Suggest categories for many transactions at once against a single rule snapshot.
+     * Items with the same normalized description, amount band, type and user are evaluated only once,
+     * and each user's feedback version is read once for the whole batch.
+     *
+     * @return suggestions in request order, with {@code null} where no category qualified
+     */
+    public List<CategorySuggestion> suggestCategories(List<CategorySuggestionRequest> requests) {
+        CategorizationRuleSnapshot snapshot = ruleCache.current();
+        Map<UUID, Long> feedbackVersions = new HashMap<>();
+        Map<CategorySuggestionCache.Key, CategorySuggestion> evaluated = new HashMap<>();
+        List<CategorySuggestion> suggestions = new ArrayList<>(requests.size());
+        for (CategorySuggestionRequest request : requests) {
+            if (request.getTransactionType() == null) {
+                suggestions.add(null);
+                continue;
+            }
+            long feedbackVersion = request.getUserId() == null ? 0L
+                    : feedbackVersions.computeIfAbsent(request.getUserId(), personalizationIndex::feedbackVersion);
+            CategorySuggestionCache.Key key = cacheKey(snapshot, feedbackVersion, request.getDescription(),
+                    request.getAmount(), request.getTransactionType(), request.getUserId());
+            CategorySuggestion suggestion;
+            if (evaluated.containsKey(key)) {
+                suggestion = evaluated.get(key);
+            } else {
+                suggestion = suggestCached(key, snapshot, feedbackVersion, request.getDescription(),
+                        request.getAmount(), request.getTransactionType(), request.getUserId());
+                evaluated.put(key, suggestion);
+            }
+            suggestions.add(suggestion);
+        }
+        return suggestions;
+    }
+
+    private CategorySuggestion suggestCached(CategorySuggestionCache.Key key,
+                                             CategorizationRuleSnapshot snapshot,
+                                             long feedbackVersion,
+                                             String description,
+                                             BigDecimal amount,
+                                             TransactionType transactionType,
+                                             UUID userId) {
+        return suggestionCache.get(key,
+                () -> suggest(snapshot, feedbackVersion, description, amount, transactionType, userId));
+    }
+
+    private CategorySuggestionCache.Key cacheKey(CategorizationRuleSnapshot snapshot,
+                                                 long feedbackVersion,
+                                                 String description,
+                                                 BigDecimal amount,
+                                                 TransactionType transactionType,
+                                                 UUID userId) {
+        String normalizedDescription = description == null ? "" : description.trim().toLowerCase(Locale.ENGLISH);
+        return new CategorySuggestionCache.Key(userId, transactionType, normalizedDescription,
+                AmountBucket.of(amount), snapshot.version(), feedbackVersion,
+                categoryClassifier.modelVersion());
+    }
+
+    private CategorySuggestion suggest(CategorizationRuleSnapshot snapshot,
+                                       long feedbackVersion,
+                                       String description,
+                                       BigDecimal amount,
+                                       TransactionType transactionType,
+                                       UUID userId) {
+        if (transactionType == null) {
+            return null;
+        }
 
         Candidate bestCandidate = null;
 
-        Candidate personalized = findPersonalizedCandidate(description, userId);
+        Candidate personalized = findPersonalizedCandidate(description, userId, feedbackVersion);
         bestCandidate = pickBetter(bestCandidate, personalized);
 
+        Candidate classified = findClassifierCandidate(description, amount, transactionType);
+        bestCandidate = pickBetter(bestCandidate, classified);
+
         String normalizedDescription = description == null ? "" : description.trim();
-        String normalizedLower = normalizedDescription.toLowerCase(Locale.ENGLISH);
         if (!normalizedDescription.isEmpty()) {
-            List<CategorizationRule> rules = ruleRepository.findByTransactionType(transactionType);
-            for (CategorizationRule rule : rules) {
-                Optional<Candidate> match = findRuleMatch(rule, description, normalizedLower);
-                if (match.isPresent()) {
-                    bestCandidate = pickBetter(bestCandidate, match.get());
-                }
+            String normalizedLower = normalizedDescription.toLowerCase(Locale.ENGLISH);
+            RuleMatchCollector collector = new RuleMatchCollector();
+            snapshot.matcherFor(transactionType).scan(normalizedLower, collector);
+            Candidate ruleCandidate = collector.best;
+            Candidate dictionaryCandidate = findDictionaryCandidate(normalizedDescription, transactionType);
+            bestCandidate = pickBetter(bestCandidate, dictionaryCandidate);
+            if (ruleCandidate == null && dictionaryCandidate == null && fuzzyMatchingEnabled) {
+                ruleCandidate = findFuzzyCandidate(snapshot.fuzzyIndexFor(transactionType), normalizedDescription);
             }
+            bestCandidate = pickBetter(bestCandidate, ruleCandidate);
         }
 
         Optional<Candidate> heuristicMatch = findAmountHeuristic(amount, transactionType);
@@ -98,45 +216,21 @@ public class CategorizationService {
         return new CategorySuggestion(category.getId(), category.getName(), bestCandidate.confidence());
     }
 
-    private Optional<Candidate> findRuleMatch(CategorizationRule rule, String originalDescription, String normalizedLowerDescription) {
-        if (rule.getKeyword() == null || rule.getKeyword().isBlank() || rule.getCategory() == null) {
-            return Optional.empty();
-        }
-
-        String normalizedKeyword = rule.getKeyword().trim().toLowerCase(Locale.ENGLISH);
-        if (normalizedKeyword.isEmpty()) {
-            return Optional.empty();
-        }
-
-        if (containsWholeWord(originalDescription, normalizedKeyword)) {
-            return Optional.of(new Candidate(rule.getCategory(), EXACT_MATCH_CONFIDENCE));
-        }
-
-        if (normalizedLowerDescription.contains(normalizedKeyword)) {
-            return Optional.of(new Candidate(rule.getCategory(), PARTIAL_MATCH_CONFIDENCE));
-        }
-
-        return Optional.empty();
-    }
-
     private Optional<Candidate> findAmountHeuristic(BigDecimal amount, TransactionType transactionType) {
-        if (amount == null) {
-            return Optional.empty();
-        }
-
+        AmountBucket bucket = AmountBucket.of(amount);
         if (transactionType == TransactionType.EXPENSE) {
-            if (amount.compareTo(LARGE_TRANSACTION_THRESHOLD) > 0) {
+            if (bucket == AmountBucket.LARGE) {
                 return materializeHeuristicCategory("Rent");
             }
-            if (amount.compareTo(SMALL_TRANSACTION_THRESHOLD) < 0) {
+            if (bucket == AmountBucket.SMALL) {
                 return materializeHeuristicCategory("Food")
                         .or(() -> materializeHeuristicCategory("Transport"));
             }
         } else if (transactionType == TransactionType.INCOME) {
-            if (amount.compareTo(LARGE_TRANSACTION_THRESHOLD) > 0) {
+            if (bucket == AmountBucket.LARGE) {
                 return materializeHeuristicCategory("Salary");
             }
-            if (amount.compareTo(SMALL_TRANSACTION_THRESHOLD) < 0) {
+            if (bucket == AmountBucket.SMALL) {
                 return materializeHeuristicCategory("Other")
                         .or(() -> materializeHeuristicCategory("Investments"));
             }
@@ -146,53 +240,75 @@ public class CategorizationService {
     }
 
     private Optional<Candidate> materializeHeuristicCategory(String categoryName) {
-        return categoryRepository.findFirstByNameIgnoreCase(categoryName)
+        return categoryRegistry.findByName(categoryName)
                 .map(category -> new Candidate(category, AMOUNT_HEURISTIC_CONFIDENCE));
     }
 
-    private Candidate findPersonalizedCandidate(String description, UUID userId) {
-        if (userId == null) {
+    private Candidate findDictionaryCandidate(String description, TransactionType transactionType) {
+        String categoryName = merchantDictionary.findCategoryName(description, transactionType);
+        if (categoryName == null) {
             return null;
         }
-        String token = extractToken(description);
-        if (token.isBlank()) {
+        return categoryRegistry.findByName(categoryName)
+                .map(category -> new Candidate(category, DICTIONARY_MATCH_CONFIDENCE))
+                .orElse(null);
+    }
+
+    /**
+     * Look up each token and each adjacent token pair (for multi-word keywords) in the fuzzy index,
+     * sharing one node budget across all lookups so latency stays bounded.
+     */
+    private Candidate findFuzzyCandidate(BkTree<Category> fuzzyIndex, String description) {
+        if (fuzzyIndex.size() == 0) {
             return null;
         }
-        Category category = getPersonalizedCategory(userId, token);
-        if (category == null) {
-            return null;
+        List<String> tokens = DescriptionTokenizer.tokens(description);
+        FuzzyMatchCollector collector = new FuzzyMatchCollector();
+        int budget = fuzzyMaxNodes;
+        int queries = 0;
+        for (int i = 0; i < tokens.size() && queries < MAX_FUZZY_QUERIES && budget > 0; i++) {
+            String token = tokens.get(i);
+            budget -= fuzzyIndex.search(token, fuzzyTolerance(token), budget, collector);
+            queries++;
+            if (i + 1 < tokens.size() && budget > 0) {
+                String pair = token + " " + tokens.get(i + 1);
+                budget -= fuzzyIndex.search(pair, fuzzyTolerance(pair), budget, collector);
+            }
         }
-        return new Candidate(category, PERSONALIZED_CONFIDENCE);
+        return collector.best;
     }
 
-    @Cacheable(value = "categorizationPersonalized", key = "T(String).format('%s:%s', #userId, #token)", unless = "#result == null")
-    protected Category getPersonalizedCategory(UUID userId, String token) {
-        return feedbackRepository.findTopCategoriesForUserAndToken(userId, token).stream()
-                .filter(entry -> entry.getCorrectionCount() != null && entry.getCorrectionCount() >= PERSONALIZATION_THRESHOLD)
-                .map(entry -> entry.getCategory())
-                .findFirst()
-                .orElse(null);
+    private static int fuzzyTolerance(String query) {
+        return query.length() <= 5 ? 1 : 2;
     }
 
-    private String extractToken(String description) {
-        if (description == null) {
-            return "";
+    private Candidate findClassifierCandidate(String description, BigDecimal amount, TransactionType transactionType) {
+        if (categoryClassifier.trainedExamples() < CLASSIFIER_MIN_TRAINING_EXAMPLES) {
+            return null;
         }
-        String[] parts = description.toLowerCase(Locale.ENGLISH).split("\\s+");
-        for (String part : parts) {
-            if (part.length() >= 3) {
-                return part;
-            }
+        NaiveBayesModel.Prediction prediction = categoryClassifier.predict(description, amount, transactionType);
+        if (prediction == null || prediction.probability() < CLASSIFIER_MIN_PROBABILITY) {
+            return null;
         }
-        return description.trim().toLowerCase(Locale.ENGLISH);
+        return categoryRegistry.findById(prediction.categoryId())
+                .map(category -> new Candidate(category, CLASSIFIER_CONFIDENCE_CEILING * prediction.probability()))
+                .orElse(null);
     }
 
-    private boolean containsWholeWord(String text, String keyword) {
-        if (text == null || text.isBlank()) {
-            return false;
+    private Candidate findPersonalizedCandidate(String description, UUID userId, long feedbackVersion) {
+        if (userId == null) {
+            return null;
         }
-        Pattern pattern = Pattern.compile("\\b" + Pattern.quote(keyword) + "\\b", Pattern.CASE_INSENSITIVE);
-        return pattern.matcher(text).find();
+        List<String> tokens = DescriptionTokenizer.tokens(description);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        return personalizationIndex.score(userId, feedbackVersion, tokens)
+                .filter(score -> score.support() >= PERSONALIZATION_THRESHOLD
+                        && score.share() >= PERSONALIZATION_MIN_SHARE)
+                .flatMap(score -> categoryRegistry.findById(score.categoryId()))
+                .map(category -> new Candidate(category, PERSONALIZED_CONFIDENCE))
+                .orElse(null);
     }
 
     private Candidate pickBetter(Candidate current, Candidate next) {
@@ -222,4 +338,35 @@ public class CategorizationService {
     }
 
     private record Candidate(Category category, double confidence) { }
+
+    /**
+     * Keeps the best rule candidate seen while scanning a description.
+     */
+    private final class RuleMatchCollector implements KeywordAutomaton.MatchListener<Category> {
+
+        private Candidate best;
+
+        @Override
+        public void onMatch(Category category, boolean wholeWord) {
+            double confidence = wholeWord ? EXACT_MATCH_CONFIDENCE : PARTIAL_MATCH_CONFIDENCE;
+            if (best != null && best.confidence() > confidence) {
+                return;
+            }
+            best = pickBetter(best, new Candidate(category, confidence));
+        }
+    }
+
+    /**
+     * Keeps the best fuzzy candidate; closer keywords get higher confidence.
+     */
+    private final class FuzzyMatchCollector implements BkTree.MatchListener<Category> {
+
+        private Candidate best;
+
+        @Override
+        public void onMatch(Category category, int distance) {
+            double confidence = FUZZY_MATCH_CONFIDENCE - FUZZY_DISTANCE_PENALTY * Math.max(0, distance - 1);
+            best = pickBetter(best, new Candidate(category, confidence));
+        }
+    }
 }
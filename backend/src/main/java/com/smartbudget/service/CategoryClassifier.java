@@ -0,0 +1,155 @@
+package com.smartbudget.service;
+
+import com.smartbudget.entity.TransactionType;
+import com.smartbudget.repository.CategorizationFeedbackRepository;
+import com.smartbudget.repository.projection.FeedbackTrainingView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Naive Bayes category classifier trained from categorization feedback.
+ * <p>
+ * Only labels a user confirmed are learned: each feedback row is a transaction whose category the
+ * user accepted or corrected against a suggestion. Transaction rows are not read, since their
+ * category may have been written by a bulk or rule-change job and the model would learn its own
+ * predictions back.
+ * <p>
+ * The model lives in a memory-mapped file. Training runs on a schedule and only reads feedback
+ * recorded after the watermark stored in the current model, folds it into its counts, writes a
+ * new file and swaps the mapping in. Feedback younger than the settle delay is left for the next
+ * run, so a write that commits late is still read after it commits.
+ * <p>
+ * The model is node-local: each node trains its own file from the same examples and its
+ * {@link #modelVersion()} only keys caches on that node.
+ */
+@Service
+public class CategoryClassifier {
+
+    static final int TRAINING_BATCH_SIZE = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryClassifier.class);
+
+    private final CategorizationFeedbackRepository feedbackRepository;
+    private final Path modelPath;
+    private final int maxExamplesPerRun;
+    private final Duration settleDelay;
+    private final AtomicReference<NaiveBayesModel> model = new AtomicReference<>(NaiveBayesModel.empty());
+    private final AtomicLong modelVersion = new AtomicLong();
+
+    public CategoryClassifier(CategorizationFeedbackRepository feedbackRepository,
+                              @Value("${categorization.model.path:data/categorization-model.bin}") String modelPath,
+                              @Value("${categorization.model.max-examples-per-run:100000}") int maxExamplesPerRun,
+                              @Value("${categorization.model.settle-seconds:60}") long settleSeconds) {
+        this.feedbackRepository = feedbackRepository;
+        this.modelPath = Path.of(modelPath);
+        this.maxExamplesPerRun = maxExamplesPerRun;
+        this.settleDelay = Duration.ofSeconds(settleSeconds);
+    }
+
+    /**
+     * Map the model written by a previous run, if any.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadModel() {
+        if (!Files.exists(modelPath)) {
+            return;
+        }
+        try {
+            swap(NaiveBayesModel.load(modelPath));
+            log.info("Loaded categorization model from {} ({} examples)", modelPath, model.get().totalDocuments());
+        } catch (IOException ex) {
+            log.warn("Could not load categorization model from {}, starting untrained", modelPath, ex);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${categorization.model.training-interval-ms:600000}",
+            initialDelayString = "${categorization.model.training-interval-ms:600000}")
+    public void trainQuietly() {
+        try {
+            train();
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Categorization model training failed, keeping current model", ex);
+        }
+    }
+
+    /**
+     * Fold feedback recorded since the last run into the model.
+     *
+     * @return number of examples added
+     */
+    public synchronized int train() throws IOException {
+        NaiveBayesModel current = model.get();
+        NaiveBayesTrainer trainer = NaiveBayesTrainer.from(current);
+        Instant settledBefore = Instant.now().minus(settleDelay);
+        foldFeedback(trainer, settledBefore);
+        if (trainer.feedbackWatermark().equals(current.feedbackWatermark())) {
+            return 0;
+        }
+        trainer.writeTo(modelPath);
+        swap(NaiveBayesModel.load(modelPath));
+        log.info("Trained categorization model with {} new examples", trainer.examplesAdded());
+        return trainer.examplesAdded();
+    }
+
+    /**
+     * Changes whenever a different model is swapped in, so cached suggestions can be keyed by it.
+     */
+    public long modelVersion() {
+        return modelVersion.get();
+    }
+
+    NaiveBayesModel.Prediction predict(String description, BigDecimal amount, TransactionType transactionType) {
+        return model.get().predict(description, AmountBucket.of(amount), transactionType);
+    }
+
+    long trainedExamples() {
+        return model.get().totalDocuments();
+    }
+
+    private void foldFeedback(NaiveBayesTrainer trainer, Instant settledBefore) {
+        while (trainer.examplesAdded() < maxExamplesPerRun) {
+            NaiveBayesModel.Watermark after = trainer.feedbackWatermark();
+            List<FeedbackTrainingView> batch = feedbackRepository.findTrainingExamplesAfter(
+                    toInstant(after.epochMicros()), after.id(), settledBefore, PageRequest.of(0, TRAINING_BATCH_SIZE));
+            for (FeedbackTrainingView example : batch) {
+                trainer.add(example.getDescription(), example.getAmount(), example.getTransactionType(),
+                        example.getCategoryId());
+                trainer.advanceFeedbackWatermark(new NaiveBayesModel.Watermark(
+                        toEpochMicros(example.getCreatedAt()), example.getId()));
+            }
+            if (batch.size() < TRAINING_BATCH_SIZE) {
+                return;
+            }
+        }
+    }
+
+    private void swap(NaiveBayesModel loaded) {
+        model.set(loaded);
+        modelVersion.incrementAndGet();
+    }
+
+    private static long toEpochMicros(Instant instant) {
+        return ChronoUnit.MICROS.between(Instant.EPOCH, instant);
+    }
+
+    private static Instant toInstant(long epochMicros) {
+        return Instant.EPOCH.plus(epochMicros, ChronoUnit.MICROS);
+    }
+}
@@ -0,0 +1,135 @@
+package com.smartbudget.service;
+
+import com.smartbudget.entity.Category;
+import com.smartbudget.repository.CategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Process-wide, immutable index of categories by id and lower-cased name.
+ * <p>
+ * Categories are a small, rarely changing table, so every service resolves them from this registry
+ * instead of querying per request. The index is rebuilt on startup, periodically, and on a lookup miss
+ * (rate limited) so newly inserted categories become visible without a restart. Returned instances are
+ * detached; they are safe to assign to associations because categories are never cascaded.
+ */
+@Service
+public class CategoryRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryRegistry.class);
+    private static final long MISS_REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final CategoryRepository categoryRepository;
+    private final AtomicReference<Index> index = new AtomicReference<>();
+    private volatile long lastRefreshNanos;
+
+    public CategoryRegistry(CategoryRepository categoryRepository) {
+        this.categoryRepository = categoryRepository;
+    }
+
+    /**
+     * Find a category by id, refreshing the index once if the id is unknown.
+     */
+    public Optional<Category> findById(UUID id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Category category = index().byId().get(id);
+        if (category == null && refreshAfterMiss()) {
+            category = index().byId().get(id);
+        }
+        return Optional.ofNullable(category);
+    }
+
+    /**
+     * Find the first category (ordered by name, then id) whose name matches ignoring case.
+     */
+    public Optional<Category> findByName(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        String key = name.trim().toLowerCase(Locale.ENGLISH);
+        Category category = index().byLowerName().get(key);
+        if (category == null && refreshAfterMiss()) {
+            category = index().byLowerName().get(key);
+        }
+        return Optional.ofNullable(category);
+    }
+
+    /**
+     * Rebuild the index from the database and publish it atomically.
+     */
+    public synchronized void refresh() {
+        List<Category> categories = categoryRepository.findAll(Sort.by(Sort.Direction.ASC, "name", "id"));
+        Map<UUID, Category> byId = new HashMap<>(categories.size() * 2);
+        Map<String, Category> byLowerName = new HashMap<>(categories.size() * 2);
+        for (Category category : categories) {
+            byId.put(category.getId(), category);
+            if (category.getName() != null) {
+                byLowerName.putIfAbsent(category.getName().trim().toLowerCase(Locale.ENGLISH), category);
+            }
+        }
+        index.set(new Index(Collections.unmodifiableMap(byId), Collections.unmodifiableMap(byLowerName)));
+        lastRefreshNanos = System.nanoTime();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refreshQuietly();
+    }
+
+    @Scheduled(fixedDelayString = "${categorization.categories.refresh-interval-ms:300000}",
+            initialDelayString = "${categorization.categories.refresh-interval-ms:300000}")
+    public void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException ex) {
+            log.warn("Category registry refresh failed, keeping current index", ex);
+        }
+    }
+
+    private Index index() {
+        Index current = index.get();
+        if (current == null) {
+            synchronized (this) {
+                current = index.get();
+                if (current == null) {
+                    refresh();
+                    current = index.get();
+                }
+            }
+        }
+        return current;
+    }
+
+    private boolean refreshAfterMiss() {
+        if (System.nanoTime() - lastRefreshNanos < MISS_REFRESH_INTERVAL_NANOS) {
+            return false;
+        }
+        synchronized (this) {
+            if (System.nanoTime() - lastRefreshNanos < MISS_REFRESH_INTERVAL_NANOS) {
+                return false;
+            }
+            refresh();
+            return true;
+        }
+    }
+
+    private record Index(Map<UUID, Category> byId, Map<String, Category> byLowerName) {
+    }
+}
@@ -0,0 +1,66 @@
+package com.smartbudget.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.smartbudget.dto.CategorySuggestion;
+import com.smartbudget.dto.SuggestionCacheStatsResponse;
+import com.smartbudget.entity.TransactionType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of computed category suggestions.
+ * <p>
+ * Keys carry the rule-set version, the user's feedback version and the classifier model version,
+ * so a rule change, new feedback or a retrained model makes the affected entries unreachable
+ * immediately; they then age out by size and TTL.
+ */
+@Service
+public class CategorySuggestionCache {
+
+    private final Cache<Key, Optional<CategorySuggestion>> suggestions;
+
+    public CategorySuggestionCache(@Value("${categorization.suggestions.cache.max-size:50000}") long maxSize,
+                                   @Value("${categorization.suggestions.cache.ttl-minutes:10}") long ttlMinutes) {
+        this.suggestions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Cached suggestion for the key, computing it on a miss. Absent suggestions are cached too.
+     */
+    CategorySuggestion get(Key key, Supplier<CategorySuggestion> loader) {
+        return suggestions.get(key, ignored -> Optional.ofNullable(loader.get())).orElse(null);
+    }
+
+    public SuggestionCacheStatsResponse stats() {
+        CacheStats stats = suggestions.stats();
+        return new SuggestionCacheStatsResponse(
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                suggestions.estimatedSize());
+    }
+
+    /**
+     * Everything a suggestion depends on; {@code userId} is {@code null} for anonymous requests.
+     */
+    record Key(UUID userId,
+               TransactionType transactionType,
+               String description,
+               AmountBucket amountBucket,
+               long ruleVersion,
+               long feedbackVersion,
+               long modelVersion) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.smartbudget.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits transaction descriptions into the normalized tokens used for personalization statistics.
+ * <p>
+ * Tokens are lower-cased runs of letters and digits of at least {@link #MIN_TOKEN_LENGTH} characters,
+ * truncated to {@link #MAX_TOKEN_LENGTH}. The database backfills use the same rules, so keep both in sync.
+ */
+final class DescriptionTokenizer {
+
+    static final int MIN_TOKEN_LENGTH = 3;
+    static final int MAX_TOKEN_LENGTH = 64;
+
+    private DescriptionTokenizer() {
+    }
+
+    /**
+     * Distinct tokens of the description in order of first appearance.
+     */
+    static List<String> tokens(String description) {
+        if (description == null || description.isBlank()) {
+            return List.of();
+        }
+        String lower = description.toLowerCase(Locale.ENGLISH);
+        Set<String> tokens = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start >= MIN_TOKEN_LENGTH) {
+                    tokens.add(lower.substring(start, Math.min(i, start + MAX_TOKEN_LENGTH)));
+                }
+                start = -1;
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+}
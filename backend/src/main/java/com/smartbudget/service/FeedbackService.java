@@ -5,6 +5,7 @@ import com.smartbudget.entity.Category;
 import com.smartbudget.entity.Transaction;
 import com.smartbudget.entity.User;
 import com.smartbudget.repository.CategorizationFeedbackRepository;
+import com.smartbudget.repository.CategorizationTokenStatRepository;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
@@ -17,13 +18,17 @@ import org.springframework.transaction.annotation.Transactional;
 public class FeedbackService {
 
     private final CategorizationFeedbackRepository feedbackRepository;
+    private final CategorizationTokenStatRepository tokenStatRepository;
 
-    public FeedbackService(CategorizationFeedbackRepository feedbackRepository) {
+    public FeedbackService(CategorizationFeedbackRepository feedbackRepository,
+                           CategorizationTokenStatRepository tokenStatRepository) {
         this.feedbackRepository = feedbackRepository;
+        this.tokenStatRepository = tokenStatRepository;
     }
 
     /**
      * Persist feedback asynchronously and in its own transaction to avoid slowing down the main flow.
+     * The user's token statistics are upserted in the same transaction.
      */
     @Async
     @Transactional(propagation = Propagation.REQUIRES_NEW)
@@ -42,5 +47,12 @@ public class FeedbackService {
         feedback.setActualCategory(actualCategory);
         feedback.setTransaction(transaction);
         feedbackRepository.save(feedback);
+
+        if (user.getId() != null && actualCategory.getId() != null) {
+            // the upserts bump users.feedback_version, which retires cached suggestions and statistics on every node
+            for (String token : DescriptionTokenizer.tokens(description)) {
+                tokenStatRepository.incrementCount(user.getId(), token, actualCategory.getId());
+            }
+        }
     }
 }
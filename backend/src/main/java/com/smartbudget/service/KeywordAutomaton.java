@@ -0,0 +1,239 @@
+package com.smartbudget.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable Aho-Corasick automaton over lower-cased keywords.
+ * <p>
+ * A single left-to-right pass over the text reports every keyword occurrence together with
+ * whether the occurrence sits on word boundaries, so the cost of matching is proportional to
+ * the text length plus the number of hits rather than to the number of keywords.
+ *
+ * @param <T> payload attached to each keyword (e.g. the rule category)
+ */
+final class KeywordAutomaton<T> {
+
+    /**
+     * Receives keyword hits in text order.
+     */
+    @FunctionalInterface
+    interface MatchListener<T> {
+        void onMatch(T payload, boolean wholeWord);
+    }
+
+    private static final int ROOT = 0;
+
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] failure;
+    private final int[] outputLink;
+    private final int[] keywordAt;
+    private final int[] keywordLengths;
+    private final List<List<T>> payloads;
+
+    private KeywordAutomaton(char[][] edgeChars,
+                             int[][] edgeTargets,
+                             int[] failure,
+                             int[] outputLink,
+                             int[] keywordAt,
+                             int[] keywordLengths,
+                             List<List<T>> payloads) {
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.failure = failure;
+        this.outputLink = outputLink;
+        this.keywordAt = keywordAt;
+        this.keywordLengths = keywordLengths;
+        this.payloads = payloads;
+    }
+
+    /**
+     * Number of distinct keywords compiled into the automaton.
+     */
+    int size() {
+        return keywordLengths.length;
+    }
+
+    /**
+     * Scan already lower-cased text and report each keyword occurrence to the listener.
+     */
+    void scan(String lowerText, MatchListener<T> listener) {
+        if (lowerText == null || lowerText.isEmpty() || keywordLengths.length == 0) {
+            return;
+        }
+        int state = ROOT;
+        int length = lowerText.length();
+        for (int i = 0; i < length; i++) {
+            char c = lowerText.charAt(i);
+            int next = transition(state, c);
+            while (next < 0 && state != ROOT) {
+                state = failure[state];
+                next = transition(state, c);
+            }
+            state = next < 0 ? ROOT : next;
+
+            int hit = keywordAt[state] >= 0 ? state : outputLink[state];
+            while (hit > ROOT) {
+                int keyword = keywordAt[hit];
+                int end = i + 1;
+                int start = end - keywordLengths[keyword];
+                boolean wholeWord = isBoundary(lowerText, start) && isBoundary(lowerText, end);
+                for (T payload : payloads.get(keyword)) {
+                    listener.onMatch(payload, wholeWord);
+                }
+                hit = outputLink[hit];
+            }
+        }
+    }
+
+    private int transition(int state, char c) {
+        int index = Arrays.binarySearch(edgeChars[state], c);
+        return index < 0 ? -1 : edgeTargets[state][index];
+    }
+
+    /**
+     * Mirrors regex {@code \b}: a boundary exists where word-ness changes between neighbours.
+     */
+    private static boolean isBoundary(String text, int index) {
+        boolean before = index > 0 && isWordChar(text.charAt(index - 1));
+        boolean after = index < text.length() && isWordChar(text.charAt(index));
+        return before != after;
+    }
+
+    private static boolean isWordChar(char c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+
+    static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Collects keywords and compiles them into an immutable automaton.
+     */
+    static final class Builder<T> {
+
+        private final List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        private final List<Integer> terminal = new ArrayList<>();
+        private final Map<String, Integer> keywordIds = new HashMap<>();
+        private final List<Integer> keywordLengths = new ArrayList<>();
+        private final List<List<T>> payloads = new ArrayList<>();
+
+        private Builder() {
+            newNode();
+        }
+
+        /**
+         * Register a keyword; it is trimmed and must already be lower-cased. Blank keywords are ignored.
+         */
+        Builder<T> add(String keyword, T payload) {
+            if (keyword == null) {
+                return this;
+            }
+            String normalized = keyword.trim();
+            if (normalized.isEmpty()) {
+                return this;
+            }
+            Integer existing = keywordIds.get(normalized);
+            if (existing != null) {
+                payloads.get(existing).add(payload);
+                return this;
+            }
+
+            int node = ROOT;
+            for (int i = 0; i < normalized.length(); i++) {
+                char c = normalized.charAt(i);
+                Integer next = children.get(node).get(c);
+                if (next == null) {
+                    next = newNode();
+                    children.get(node).put(c, next);
+                }
+                node = next;
+            }
+            int id = keywordLengths.size();
+            keywordIds.put(normalized, id);
+            keywordLengths.add(normalized.length());
+            List<T> keywordPayloads = new ArrayList<>(1);
+            keywordPayloads.add(payload);
+            payloads.add(keywordPayloads);
+            terminal.set(node, id);
+            return this;
+        }
+
+        KeywordAutomaton<T> build() {
+            int nodeCount = children.size();
+            char[][] edgeChars = new char[nodeCount][];
+            int[][] edgeTargets = new int[nodeCount][];
+            for (int node = 0; node < nodeCount; node++) {
+                TreeMap<Character, Integer> edges = children.get(node);
+                char[] chars = new char[edges.size()];
+                int[] targets = new int[edges.size()];
+                int index = 0;
+                for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                    chars[index] = edge.getKey();
+                    targets[index] = edge.getValue();
+                    index++;
+                }
+                edgeChars[node] = chars;
+                edgeTargets[node] = targets;
+            }
+
+            int[] keywordAt = new int[nodeCount];
+            for (int node = 0; node < nodeCount; node++) {
+                keywordAt[node] = terminal.get(node);
+            }
+
+            int[] failure = new int[nodeCount];
+            int[] outputLink = new int[nodeCount];
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            for (int child : edgeTargets[ROOT]) {
+                failure[child] = ROOT;
+                outputLink[child] = ROOT;
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                for (int i = 0; i < edgeChars[node].length; i++) {
+                    char c = edgeChars[node][i];
+                    int child = edgeTargets[node][i];
+
+                    int fallback = failure[node];
+                    int target = step(edgeChars, edgeTargets, fallback, c);
+                    while (target < 0 && fallback != ROOT) {
+                        fallback = failure[fallback];
+                        target = step(edgeChars, edgeTargets, fallback, c);
+                    }
+                    int childFailure = target < 0 ? ROOT : target;
+                    failure[child] = childFailure;
+                    outputLink[child] = keywordAt[childFailure] >= 0 ? childFailure : outputLink[childFailure];
+                    queue.add(child);
+                }
+            }
+
+            int[] lengths = keywordLengths.stream().mapToInt(Integer::intValue).toArray();
+            List<List<T>> frozenPayloads = new ArrayList<>(payloads.size());
+            for (List<T> keywordPayloads : payloads) {
+                frozenPayloads.add(List.copyOf(keywordPayloads));
+            }
+            return new KeywordAutomaton<>(edgeChars, edgeTargets, failure, outputLink, keywordAt, lengths,
+                    List.copyOf(frozenPayloads));
+        }
+
+        private static int step(char[][] edgeChars, int[][] edgeTargets, int state, char c) {
+            int index = Arrays.binarySearch(edgeChars[state], c);
+            return index < 0 ? -1 : edgeTargets[state][index];
+        }
+
+        private int newNode() {
+            children.add(new TreeMap<>());
+            terminal.add(-1);
+            return children.size() - 1;
+        }
+    }
+}
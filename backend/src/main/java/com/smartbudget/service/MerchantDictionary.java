@@ -0,0 +1,98 @@
+package com.smartbudget.service;
+
+import com.smartbudget.entity.TransactionType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Merchant-name to category dictionary compiled at build time and memory-mapped at startup.
+ * <p>
+ * The build ships the compiled dictionary next to the application jar, and the default
+ * {@code categorization.dictionary.location} is a {@code file:} path to it, so startup maps it in
+ * place whatever its size. A copy is also packaged inside the jar; a jar entry cannot be mapped,
+ * so it is only read into memory as the explicit {@code categorization.dictionary.fallback-location}
+ * when the file is missing, e.g. under {@code bootRun}, and startup then grows with its size.
+ */
+@Service
+public class MerchantDictionary {
+
+    private static final Logger log = LoggerFactory.getLogger(MerchantDictionary.class);
+
+    private final MerchantTrie trie;
+
+    public MerchantDictionary(ResourceLoader resourceLoader,
+                              @Value("${categorization.dictionary.location:file:dictionary/merchants.dict}") String location,
+                              @Value("${categorization.dictionary.fallback-location:classpath:dictionary/merchants.dict}") String fallbackLocation) {
+        this.trie = open(resourceLoader.getResource(location),
+                fallbackLocation.isBlank() ? null : resourceLoader.getResource(fallbackLocation));
+    }
+
+    MerchantDictionary(MerchantTrie trie) {
+        this.trie = trie;
+    }
+
+    /**
+     * Category name of the longest merchant found in the description, or {@code null}.
+     */
+    String findCategoryName(String description, TransactionType transactionType) {
+        return trie.longestMatch(description, transactionType);
+    }
+
+    public int size() {
+        return trie.size();
+    }
+
+    private static MerchantTrie open(Resource resource, Resource fallback) {
+        try {
+            if (resource.exists()) {
+                if (!resource.isFile()) {
+                    throw new IOException("Merchant dictionary " + resource + " is not a file and cannot be mapped; "
+                            + "configure it as categorization.dictionary.fallback-location instead");
+                }
+                MerchantTrie trie = MerchantTrie.load(resource.getFile().toPath());
+                log.info("Mapped merchant dictionary {} ({} merchants)", resource, trie.size());
+                return trie;
+            }
+            if (fallback != null && fallback.exists()) {
+                MerchantTrie trie = read(fallback);
+                log.warn("No merchant dictionary at {}, read fallback {} into memory ({} merchants)",
+                        resource, fallback, trie.size());
+                return trie;
+            }
+        } catch (IOException ex) {
+            log.warn("Could not open merchant dictionary {}, dictionary matching disabled", resource, ex);
+            return MerchantTrie.empty();
+        }
+        log.info("No merchant dictionary at {}, dictionary matching disabled", resource);
+        return MerchantTrie.empty();
+    }
+
+    private static MerchantTrie read(Resource resource) throws IOException {
+        long length = resource.contentLength();
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IOException("Unsupported merchant dictionary size " + length + ": " + resource);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) length);
+        try (ReadableByteChannel channel = resource.readableChannel()) {
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // fill the buffer straight from the jar entry
+            }
+        }
+        if (buffer.hasRemaining()) {
+            throw new IOException("Truncated merchant dictionary: " + resource);
+        }
+        try {
+            return MerchantTrie.wrap(buffer.flip());
+        } catch (IllegalArgumentException ex) {
+            throw new IOException(ex.getMessage() + ": " + resource, ex);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.smartbudget.service;
+
+import com.smartbudget.entity.TransactionType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Read-only view of a compiled merchant dictionary file.
+ * <p>
+ * The file holds a minimized trie (shared suffixes collapse into one path) in flat arrays:
+ * per-node first-edge offsets and values, sorted edge characters and edge targets, followed by
+ * the category labels. Every lookup reads straight from the buffer, so when the file is
+ * memory-mapped, heap cost and open time do not depend on the number of merchants; a buffer read
+ * from a jar entry costs its full size. Keys are stored as the transaction-type ordinal character
+ * followed by the {@link #normalize normalized} merchant name. The file is produced at build time
+ * by {@link MerchantTrieCompiler}.
+ */
+final class MerchantTrie {
+
+    static final int MAGIC = 0x53424D44;
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int MIN_MATCH_LENGTH = 3;
+
+    private static final int ROOT = 0;
+
+    private final ByteBuffer buffer;
+    private final int nodeCount;
+    private final int edgeCount;
+    private final int entryCount;
+    private final int firstEdgeOffset;
+    private final int valueOffset;
+    private final int edgeCharOffset;
+    private final int edgeTargetOffset;
+    private final String[] labelNames;
+    private final int[] labelTypes;
+
+    private MerchantTrie(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a merchant dictionary");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported merchant dictionary format");
+        }
+        this.buffer = buffer;
+        this.nodeCount = buffer.getInt(8);
+        this.edgeCount = buffer.getInt(12);
+        int labelCount = buffer.getInt(16);
+        this.entryCount = buffer.getInt(20);
+        int labelsOffset = buffer.getInt(24);
+        this.firstEdgeOffset = HEADER_BYTES;
+        this.valueOffset = firstEdgeOffset + (nodeCount + 1) * Integer.BYTES;
+        this.edgeCharOffset = valueOffset + nodeCount * Integer.BYTES;
+        this.edgeTargetOffset = align(edgeCharOffset + edgeCount * Character.BYTES);
+        if (edgeTargetOffset + edgeCount * Integer.BYTES != labelsOffset || labelsOffset > buffer.capacity()) {
+            throw new IllegalArgumentException("Truncated merchant dictionary");
+        }
+
+        this.labelNames = new String[labelCount];
+        this.labelTypes = new int[labelCount];
+        int position = labelsOffset;
+        for (int i = 0; i < labelCount; i++) {
+            labelTypes[i] = buffer.get(position);
+            int length = buffer.getShort(position + 1) & 0xFFFF;
+            byte[] name = new byte[length];
+            buffer.get(position + 3, name);
+            labelNames[i] = new String(name, StandardCharsets.UTF_8);
+            position += 3 + length;
+        }
+    }
+
+    static MerchantTrie empty() {
+        return wrap(MerchantTrieCompiler.compile(List.of()));
+    }
+
+    static MerchantTrie wrap(ByteBuffer buffer) {
+        return new MerchantTrie(buffer.asReadOnlyBuffer());
+    }
+
+    /**
+     * Memory-map a compiled dictionary. The mapping outlives the channel.
+     */
+    static MerchantTrie load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            try {
+                return new MerchantTrie(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (IllegalArgumentException ex) {
+                throw new IOException(ex.getMessage() + ": " + path, ex);
+            }
+        }
+    }
+
+    /**
+     * Number of merchants compiled into the dictionary.
+     */
+    int size() {
+        return entryCount;
+    }
+
+    /**
+     * Longest merchant name that appears in the description on word boundaries, restricted to
+     * entries of the given transaction type; the leftmost one wins among equally long matches.
+     *
+     * @return the matched category name, or {@code null} when nothing matched
+     */
+    String longestMatch(String description, TransactionType transactionType) {
+        if (entryCount == 0 || description == null || transactionType == null) {
+            return null;
+        }
+        int typeRoot = child(ROOT, typeChar(transactionType));
+        if (typeRoot < 0) {
+            return null;
+        }
+        String text = normalize(description);
+        int length = text.length();
+        int bestLength = MIN_MATCH_LENGTH - 1;
+        int bestLabel = -1;
+        for (int start = 0; start < length; start++) {
+            if (start > 0 && text.charAt(start - 1) != ' ') {
+                continue;
+            }
+            if (length - start <= bestLength) {
+                break;
+            }
+            int node = typeRoot;
+            for (int i = start; i < length; i++) {
+                node = child(node, text.charAt(i));
+                if (node < 0) {
+                    break;
+                }
+                int end = i + 1;
+                int label = value(node);
+                if (label >= 0 && end - start > bestLength && (end == length || text.charAt(end) == ' ')) {
+                    bestLength = end - start;
+                    bestLabel = label;
+                }
+            }
+        }
+        if (bestLabel < 0 || labelTypes[bestLabel] != transactionType.ordinal()) {
+            return null;
+        }
+        return labelNames[bestLabel];
+    }
+
+    /**
+     * Lower-case the text and collapse every run of non letter/digit characters into a single space.
+     */
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && !normalized.isEmpty()) {
+                    normalized.append(' ');
+                }
+                pendingSpace = false;
+                normalized.append(c);
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return normalized.toString().toLowerCase(Locale.ENGLISH);
+    }
+
+    static char typeChar(TransactionType transactionType) {
+        return (char) ('0' + transactionType.ordinal());
+    }
+
+    private int child(int node, char c) {
+        int low = buffer.getInt(firstEdgeOffset + node * Integer.BYTES);
+        int high = buffer.getInt(firstEdgeOffset + (node + 1) * Integer.BYTES) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char label = buffer.getChar(edgeCharOffset + mid * Character.BYTES);
+            if (label < c) {
+                low = mid + 1;
+            } else if (label > c) {
+                high = mid - 1;
+            } else {
+                return buffer.getInt(edgeTargetOffset + mid * Integer.BYTES);
+            }
+        }
+        return -1;
+    }
+
+    private int value(int node) {
+        return buffer.getInt(valueOffset + node * Integer.BYTES);
+    }
+
+    static int align(int offset) {
+        return (offset + Integer.BYTES - 1) & -Integer.BYTES;
+    }
+}
@@ -0,0 +1,208 @@
+package com.smartbudget.service;
+
+import com.smartbudget.entity.TransactionType;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Build-time compiler from the merchant CSV ({@code merchant,category,transactionType}) to the
+ * {@link MerchantTrie} file format. Run by the {@code compileMerchantDictionary} Gradle task.
+ * <p>
+ * The trie is minimized before it is written: nodes with the same value and the same outgoing
+ * edges are merged, so common suffixes such as "store", "market" or "inc" are stored once.
+ */
+public final class MerchantTrieCompiler {
+
+    private MerchantTrieCompiler() {
+    }
+
+    /**
+     * Usage: {@code MerchantTrieCompiler <input.csv> <output.dict>}.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: MerchantTrieCompiler <input.csv> <output.dict>");
+        }
+        List<Entry> entries = read(Path.of(args[0]));
+        ByteBuffer compiled = compile(entries);
+        Path output = Path.of(args[1]);
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (compiled.hasRemaining()) {
+                channel.write(compiled);
+            }
+        }
+        System.out.printf("Compiled %d merchants into %s%n", entries.size(), output);
+    }
+
+    /**
+     * Parse the CSV. Blank lines, {@code #} comments and the header row are skipped; the merchant
+     * column may itself contain commas because the last two columns are split off from the right.
+     */
+    static List<Entry> read(Path csv) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")
+                        || (lineNumber == 1 && trimmed.toLowerCase(Locale.ENGLISH).startsWith("merchant,"))) {
+                    continue;
+                }
+                int typeSeparator = trimmed.lastIndexOf(',');
+                int categorySeparator = typeSeparator < 0 ? -1 : trimmed.lastIndexOf(',', typeSeparator - 1);
+                if (categorySeparator <= 0) {
+                    throw new IllegalArgumentException("Malformed merchant entry on line " + lineNumber + ": " + line);
+                }
+                entries.add(new Entry(
+                        trimmed.substring(0, categorySeparator).trim(),
+                        trimmed.substring(categorySeparator + 1, typeSeparator).trim(),
+                        TransactionType.valueOf(trimmed.substring(typeSeparator + 1).trim().toUpperCase(Locale.ENGLISH))));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Compile entries into the dictionary format. Later entries win for duplicate merchant/type keys.
+     */
+    static ByteBuffer compile(List<Entry> entries) {
+        Map<String, Integer> labelIds = new LinkedHashMap<>();
+        List<Entry> labels = new ArrayList<>();
+        Node root = new Node();
+        int entryCount = 0;
+        for (Entry entry : entries) {
+            String merchant = MerchantTrie.normalize(entry.merchant());
+            if (merchant.length() < MerchantTrie.MIN_MATCH_LENGTH || entry.category().isBlank()) {
+                continue;
+            }
+            Integer label = labelIds.get(entry.transactionType() + "|" + entry.category());
+            if (label == null) {
+                label = labels.size();
+                labelIds.put(entry.transactionType() + "|" + entry.category(), label);
+                labels.add(entry);
+            }
+            Node node = root.child(MerchantTrie.typeChar(entry.transactionType()));
+            for (int i = 0; i < merchant.length(); i++) {
+                node = node.child(merchant.charAt(i));
+            }
+            if (node.value < 0) {
+                entryCount++;
+            }
+            node.value = label;
+        }
+
+        Node minimized = minimize(root, new HashMap<>());
+        List<Node> order = new ArrayList<>();
+        Map<Node, Integer> ids = new HashMap<>();
+        number(minimized, order, ids);
+
+        int edgeCount = order.stream().mapToInt(node -> node.children.size()).sum();
+        byte[][] labelBytes = new byte[labels.size()][];
+        int labelsSize = 0;
+        for (int i = 0; i < labels.size(); i++) {
+            labelBytes[i] = labels.get(i).category().getBytes(StandardCharsets.UTF_8);
+            labelsSize += 3 + labelBytes[i].length;
+        }
+        int firstEdgeOffset = MerchantTrie.HEADER_BYTES;
+        int valueOffset = firstEdgeOffset + (order.size() + 1) * Integer.BYTES;
+        int edgeCharOffset = valueOffset + order.size() * Integer.BYTES;
+        int edgeTargetOffset = MerchantTrie.align(edgeCharOffset + edgeCount * Character.BYTES);
+        int labelsOffset = edgeTargetOffset + edgeCount * Integer.BYTES;
+
+        ByteBuffer buffer = ByteBuffer.allocate(labelsOffset + labelsSize);
+        buffer.putInt(0, MerchantTrie.MAGIC)
+                .putInt(4, MerchantTrie.FORMAT_VERSION)
+                .putInt(8, order.size())
+                .putInt(12, edgeCount)
+                .putInt(16, labels.size())
+                .putInt(20, entryCount)
+                .putInt(24, labelsOffset);
+        int edge = 0;
+        for (int id = 0; id < order.size(); id++) {
+            Node node = order.get(id);
+            buffer.putInt(firstEdgeOffset + id * Integer.BYTES, edge);
+            buffer.putInt(valueOffset + id * Integer.BYTES, node.value);
+            for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+                buffer.putChar(edgeCharOffset + edge * Character.BYTES, child.getKey());
+                buffer.putInt(edgeTargetOffset + edge * Integer.BYTES, ids.get(child.getValue()));
+                edge++;
+            }
+        }
+        buffer.putInt(firstEdgeOffset + order.size() * Integer.BYTES, edge);
+        buffer.position(labelsOffset);
+        for (int i = 0; i < labels.size(); i++) {
+            buffer.put((byte) labels.get(i).transactionType().ordinal())
+                    .putShort((short) labelBytes[i].length)
+                    .put(labelBytes[i]);
+        }
+        return buffer.clear();
+    }
+
+    /**
+     * Replace every subtree by a canonical equivalent, bottom-up.
+     */
+    private static Node minimize(Node node, Map<String, Node> canonical) {
+        StringBuilder signature = new StringBuilder().append(node.value);
+        for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+            Node minimizedChild = minimize(child.getValue(), canonical);
+            child.setValue(minimizedChild);
+            signature.append('|').append(child.getKey()).append(minimizedChild.id());
+        }
+        return canonical.computeIfAbsent(signature.toString(), key -> node.assignId(canonical.size()));
+    }
+
+    /**
+     * Number nodes in depth-first pre-order so the root gets id 0.
+     */
+    private static void number(Node node, List<Node> order, Map<Node, Integer> ids) {
+        if (ids.containsKey(node)) {
+            return;
+        }
+        ids.put(node, order.size());
+        order.add(node);
+        for (Node child : node.children.values()) {
+            number(child, order, ids);
+        }
+    }
+
+    record Entry(String merchant, String category, TransactionType transactionType) {
+    }
+
+    private static final class Node {
+
+        private final TreeMap<Character, Node> children = new TreeMap<>();
+        private int value = -1;
+        private int canonicalId = -1;
+
+        Node child(char c) {
+            return children.computeIfAbsent(c, ignored -> new Node());
+        }
+
+        Node assignId(int id) {
+            canonicalId = id;
+            return this;
+        }
+
+        int id() {
+            return canonicalId;
+        }
+    }
+}
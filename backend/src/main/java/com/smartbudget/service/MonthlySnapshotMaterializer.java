@@ -0,0 +1,82 @@
+package com.smartbudget.service;
+
+import com.smartbudget.repository.TransactionMonthlySnapshotRepository;
+import com.smartbudget.repository.projection.UnmaterializedMonthView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Materializes the analytics snapshots of closed months.
+ * <p>
+ * Each run picks up months that closed since the previous run and months whose snapshot was
+ * dropped because a write touched one of their dates. Until a month is materialized again the
+ * analytics read it from the daily rollups, so a late run only costs speed, never correctness.
+ */
+@Service
+public class MonthlySnapshotMaterializer {
+
+    private static final Logger log = LoggerFactory.getLogger(MonthlySnapshotMaterializer.class);
+
+    private final TransactionMonthlySnapshotRepository snapshotRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public MonthlySnapshotMaterializer(TransactionMonthlySnapshotRepository snapshotRepository,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${analytics.snapshots.batch-size:500}") int batchSize) {
+        this.snapshotRepository = snapshotRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.snapshots.materialize-interval-ms:600000}")
+    public void materializeQuietly() {
+        try {
+            materializeClosedMonths();
+        } catch (RuntimeException ex) {
+            log.warn("Materializing monthly analytics snapshots failed", ex);
+        }
+    }
+
+    /**
+     * Materialize every closed month that has rollups but no valid snapshot, one batch at a time.
+     *
+     * @return number of months materialized
+     */
+    public int materializeClosedMonths() {
+        YearMonth current = YearMonth.now();
+        int materialized = 0;
+        List<UnmaterializedMonthView> batch;
+        do {
+            batch = snapshotRepository.findUnmaterializedMonths(current.atDay(1), batchSize);
+            for (UnmaterializedMonthView month : batch) {
+                materialize(month.getUserId(), YearMonth.parse(month.getMonth()));
+            }
+            materialized += batch.size();
+        } while (batch.size() == batchSize);
+        if (materialized > 0) {
+            log.info("Materialized {} monthly analytics snapshots", materialized);
+        }
+        return materialized;
+    }
+
+    /**
+     * Replace one closed month's snapshot with the current sum of its daily rollups, in one
+     * transaction.
+     */
+    public void materialize(UUID userId, YearMonth month) {
+        if (!month.isBefore(YearMonth.now())) {
+            throw new IllegalArgumentException("Only closed months can be materialized.");
+        }
+        transactionTemplate.executeWithoutResult(tx -> snapshotRepository.materialize(userId, month.atDay(1)));
+    }
+}
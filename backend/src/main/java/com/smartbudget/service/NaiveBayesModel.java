@@ -0,0 +1,246 @@
+package com.smartbudget.service;
+
+import com.smartbudget.entity.TransactionType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * Immutable multinomial Naive Bayes model over hashed description tokens and the amount band.
+ * <p>
+ * The model is a flat binary file: a fixed header, one record per category and a dense
+ * {@code int} count matrix of categories x features. It is memory-mapped read-only, so heap cost
+ * does not grow with the model and loading does not parse the matrix. Inference hashes tokens
+ * straight from the description characters and scores into per-thread scratch arrays, so the
+ * only allocation per call is the returned {@link Prediction}.
+ */
+final class NaiveBayesModel {
+
+    static final int MAGIC = 0x53424E42;
+    static final int FORMAT_VERSION = 3;
+    static final int TOKEN_FEATURE_BITS = 14;
+    static final int TOKEN_FEATURES = 1 << TOKEN_FEATURE_BITS;
+    static final int FEATURE_COUNT = TOKEN_FEATURES + AmountBucket.values().length;
+    static final int MAX_FEATURES_PER_EXAMPLE = 32;
+    static final int HEADER_BYTES = 40;
+    static final int CLASS_BYTES = 40;
+
+    private static final double SMOOTHING = 1.0;
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final ByteBuffer buffer;
+    private final int classCount;
+    private final int countsOffset;
+    private final UUID[] classIds;
+    private final int[] classTypes;
+    private final long[] documentCounts;
+    private final long[] featureTotals;
+    private final double[] logPriors;
+    private final double[] logDenominators;
+    private final long totalDocuments;
+    private final Watermark feedbackWatermark;
+
+    private NaiveBayesModel(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a categorization model");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION || buffer.getInt(8) != FEATURE_COUNT) {
+            throw new IllegalArgumentException("Unsupported categorization model format");
+        }
+        this.buffer = buffer;
+        this.classCount = buffer.getInt(12);
+        this.feedbackWatermark = new Watermark(buffer.getLong(16), new UUID(buffer.getLong(24), buffer.getLong(32)));
+        this.countsOffset = HEADER_BYTES + classCount * CLASS_BYTES;
+        if ((long) countsOffset + (long) classCount * FEATURE_COUNT * Integer.BYTES != buffer.capacity()) {
+            throw new IllegalArgumentException("Truncated categorization model");
+        }
+
+        this.classIds = new UUID[classCount];
+        this.classTypes = new int[classCount];
+        this.documentCounts = new long[classCount];
+        this.featureTotals = new long[classCount];
+        long documents = 0;
+        for (int c = 0; c < classCount; c++) {
+            int offset = HEADER_BYTES + c * CLASS_BYTES;
+            classIds[c] = new UUID(buffer.getLong(offset), buffer.getLong(offset + 8));
+            classTypes[c] = buffer.getInt(offset + 16);
+            documentCounts[c] = buffer.getLong(offset + 24);
+            featureTotals[c] = buffer.getLong(offset + 32);
+            documents += documentCounts[c];
+        }
+        this.totalDocuments = documents;
+
+        this.logPriors = new double[classCount];
+        this.logDenominators = new double[classCount];
+        for (int c = 0; c < classCount; c++) {
+            logPriors[c] = Math.log((documentCounts[c] + SMOOTHING) / (documents + SMOOTHING * classCount));
+            logDenominators[c] = Math.log(featureTotals[c] + SMOOTHING * FEATURE_COUNT);
+        }
+    }
+
+    static NaiveBayesModel empty() {
+        return wrap(new NaiveBayesTrainer().encode());
+    }
+
+    static NaiveBayesModel wrap(ByteBuffer buffer) {
+        return new NaiveBayesModel(buffer.asReadOnlyBuffer());
+    }
+
+    /**
+     * Memory-map a model file. The mapping outlives the channel and stays valid if the file is replaced.
+     */
+    static NaiveBayesModel load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            try {
+                return new NaiveBayesModel(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            } catch (IllegalArgumentException ex) {
+                throw new IOException(ex.getMessage() + ": " + path, ex);
+            }
+        }
+    }
+
+    int classCount() {
+        return classCount;
+    }
+
+    UUID classId(int classIndex) {
+        return classIds[classIndex];
+    }
+
+    int classType(int classIndex) {
+        return classTypes[classIndex];
+    }
+
+    long documentCount(int classIndex) {
+        return documentCounts[classIndex];
+    }
+
+    long featureTotal(int classIndex) {
+        return featureTotals[classIndex];
+    }
+
+    int count(int classIndex, int feature) {
+        return buffer.getInt(countsOffset + (classIndex * FEATURE_COUNT + feature) * Integer.BYTES);
+    }
+
+    long totalDocuments() {
+        return totalDocuments;
+    }
+
+    Watermark feedbackWatermark() {
+        return feedbackWatermark;
+    }
+
+    /**
+     * Most probable category of the given transaction type, or {@code null} when the description
+     * has no usable token or no category of that type has been trained.
+     */
+    Prediction predict(String description, AmountBucket amountBucket, TransactionType transactionType) {
+        if (classCount == 0 || transactionType == null) {
+            return null;
+        }
+        Scratch scratch = SCRATCH.get();
+        int[] features = scratch.features;
+        int featureCount = tokenFeatures(description, features);
+        if (featureCount == 0) {
+            return null;
+        }
+        features[featureCount++] = amountFeature(amountBucket);
+
+        double[] scores = scratch.scores(classCount);
+        int type = transactionType.ordinal();
+        int best = -1;
+        for (int c = 0; c < classCount; c++) {
+            if (classTypes[c] != type || documentCounts[c] == 0) {
+                scores[c] = Double.NEGATIVE_INFINITY;
+                continue;
+            }
+            double score = logPriors[c] - featureCount * logDenominators[c];
+            for (int i = 0; i < featureCount; i++) {
+                score += Math.log(count(c, features[i]) + SMOOTHING);
+            }
+            scores[c] = score;
+            if (best < 0 || score > scores[best]) {
+                best = c;
+            }
+        }
+        if (best < 0) {
+            return null;
+        }
+
+        double normalizer = 0;
+        for (int c = 0; c < classCount; c++) {
+            if (scores[c] != Double.NEGATIVE_INFINITY) {
+                normalizer += Math.exp(scores[c] - scores[best]);
+            }
+        }
+        return new Prediction(classIds[best], 1.0 / normalizer);
+    }
+
+    /**
+     * Hash each lower-cased letter/digit run of at least {@link DescriptionTokenizer#MIN_TOKEN_LENGTH}
+     * characters (first {@link DescriptionTokenizer#MAX_TOKEN_LENGTH} characters only) into a token feature.
+     *
+     * @return number of features written, at most {@link #MAX_FEATURES_PER_EXAMPLE} - 1
+     */
+    static int tokenFeatures(String description, int[] features) {
+        if (description == null) {
+            return 0;
+        }
+        int limit = MAX_FEATURES_PER_EXAMPLE - 1;
+        int count = 0;
+        int length = 0;
+        int hash = 0x811C9DC5;
+        for (int i = 0; i <= description.length() && count < limit; i++) {
+            char c = i < description.length() ? description.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (length < DescriptionTokenizer.MAX_TOKEN_LENGTH) {
+                    hash = (hash ^ Character.toLowerCase(c)) * 0x01000193;
+                }
+                length++;
+            } else {
+                if (length >= DescriptionTokenizer.MIN_TOKEN_LENGTH) {
+                    features[count++] = (hash ^ (hash >>> TOKEN_FEATURE_BITS)) & (TOKEN_FEATURES - 1);
+                }
+                length = 0;
+                hash = 0x811C9DC5;
+            }
+        }
+        return count;
+    }
+
+    static int amountFeature(AmountBucket amountBucket) {
+        return TOKEN_FEATURES + (amountBucket == null ? AmountBucket.NONE : amountBucket).ordinal();
+    }
+
+    /**
+     * Most probable category together with its posterior probability among categories of the same type.
+     */
+    record Prediction(UUID categoryId, double probability) {
+    }
+
+    /**
+     * Position of the last training example folded into the model, as (createdAt in epoch micros, id).
+     */
+    record Watermark(long epochMicros, UUID id) {
+
+        static final Watermark START = new Watermark(0L, new UUID(0L, 0L));
+    }
+
+    private static final class Scratch {
+
+        private final int[] features = new int[MAX_FEATURES_PER_EXAMPLE];
+        private double[] scores = new double[0];
+
+        double[] scores(int size) {
+            if (scores.length < size) {
+                scores = new double[size];
+            }
+            return scores;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.smartbudget.service;
+
+import com.smartbudget.entity.TransactionType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Mutable counterpart of {@link NaiveBayesModel} used to fold new training examples into an
+ * existing model. Counts are additive, so training resumes from the previous model and its
+ * watermark instead of re-reading all history.
+ */
+final class NaiveBayesTrainer {
+
+    private final Map<UUID, Integer> classIndex = new HashMap<>();
+    private final List<UUID> classIds = new ArrayList<>();
+    private final List<int[]> counts = new ArrayList<>();
+    private int[] classTypes = new int[0];
+    private long[] documentCounts = new long[0];
+    private long[] featureTotals = new long[0];
+    private final int[] features = new int[NaiveBayesModel.MAX_FEATURES_PER_EXAMPLE];
+    private NaiveBayesModel.Watermark feedbackWatermark = NaiveBayesModel.Watermark.START;
+    private int examplesAdded;
+
+    NaiveBayesTrainer() {
+    }
+
+    /**
+     * Start from the counts and watermark of an existing model.
+     */
+    static NaiveBayesTrainer from(NaiveBayesModel model) {
+        NaiveBayesTrainer trainer = new NaiveBayesTrainer();
+        for (int c = 0; c < model.classCount(); c++) {
+            int index = trainer.classFor(model.classId(c), model.classType(c));
+            int[] classCounts = trainer.counts.get(index);
+            for (int f = 0; f < NaiveBayesModel.FEATURE_COUNT; f++) {
+                classCounts[f] = model.count(c, f);
+            }
+            trainer.documentCounts[index] = model.documentCount(c);
+            trainer.featureTotals[index] = model.featureTotal(c);
+        }
+        trainer.feedbackWatermark = model.feedbackWatermark();
+        return trainer;
+    }
+
+    /**
+     * Count one labelled example. Examples without a usable description token are skipped.
+     */
+    void add(String description, BigDecimal amount, TransactionType transactionType, UUID categoryId) {
+        if (categoryId == null || transactionType == null) {
+            return;
+        }
+        int featureCount = NaiveBayesModel.tokenFeatures(description, features);
+        if (featureCount == 0) {
+            return;
+        }
+        features[featureCount++] = NaiveBayesModel.amountFeature(AmountBucket.of(amount));
+
+        int index = classFor(categoryId, transactionType.ordinal());
+        int[] classCounts = counts.get(index);
+        for (int i = 0; i < featureCount; i++) {
+            classCounts[features[i]] = saturatedIncrement(classCounts[features[i]]);
+        }
+        documentCounts[index]++;
+        featureTotals[index] += featureCount;
+        examplesAdded++;
+    }
+
+    void advanceFeedbackWatermark(NaiveBayesModel.Watermark watermark) {
+        this.feedbackWatermark = watermark;
+    }
+
+    NaiveBayesModel.Watermark feedbackWatermark() {
+        return feedbackWatermark;
+    }
+
+    /**
+     * Examples counted since this trainer was created.
+     */
+    int examplesAdded() {
+        return examplesAdded;
+    }
+
+    ByteBuffer encode() {
+        int classCount = classIds.size();
+        int countsOffset = NaiveBayesModel.HEADER_BYTES + classCount * NaiveBayesModel.CLASS_BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(countsOffset + classCount * NaiveBayesModel.FEATURE_COUNT * Integer.BYTES);
+        buffer.putInt(NaiveBayesModel.MAGIC)
+                .putInt(NaiveBayesModel.FORMAT_VERSION)
+                .putInt(NaiveBayesModel.FEATURE_COUNT)
+                .putInt(classCount);
+        putWatermark(buffer, feedbackWatermark);
+        for (int c = 0; c < classCount; c++) {
+            UUID id = classIds.get(c);
+            buffer.putLong(id.getMostSignificantBits())
+                    .putLong(id.getLeastSignificantBits())
+                    .putInt(classTypes[c])
+                    .putInt(0)
+                    .putLong(documentCounts[c])
+                    .putLong(featureTotals[c]);
+        }
+        for (int[] classCounts : counts) {
+            buffer.asIntBuffer().put(classCounts);
+            buffer.position(buffer.position() + classCounts.length * Integer.BYTES);
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Write the model next to the target and atomically move it into place, so readers never map a partial file.
+     */
+    void writeTo(Path target) throws IOException {
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = encode();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private int classFor(UUID categoryId, int transactionType) {
+        Integer existing = classIndex.get(categoryId);
+        if (existing != null) {
+            return existing;
+        }
+        int index = classIds.size();
+        classIndex.put(categoryId, index);
+        classIds.add(categoryId);
+        counts.add(new int[NaiveBayesModel.FEATURE_COUNT]);
+        classTypes = Arrays.copyOf(classTypes, index + 1);
+        classTypes[index] = transactionType;
+        documentCounts = Arrays.copyOf(documentCounts, index + 1);
+        featureTotals = Arrays.copyOf(featureTotals, index + 1);
+        return index;
+    }
+
+    private static void putWatermark(ByteBuffer buffer, NaiveBayesModel.Watermark watermark) {
+        buffer.putLong(watermark.epochMicros())
+                .putLong(watermark.id().getMostSignificantBits())
+                .putLong(watermark.id().getLeastSignificantBits());
+    }
+
+    private static int saturatedIncrement(int value) {
+        return value == Integer.MAX_VALUE ? value : value + 1;
+    }
+}
@@ -0,0 +1,101 @@
+package com.smartbudget.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.smartbudget.repository.CategorizationTokenStatRepository;
+import com.smartbudget.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded in-memory view of the per-user token statistics in {@code categorization_token_stats}.
+ * <p>
+ * Each user's counts are loaded with one query on first use and then answered from memory, so
+ * personalization cost no longer depends on how much feedback a user has given. Loaded counts are
+ * tagged with the user's {@code users.feedback_version}, which database triggers bump whenever the
+ * statistics are written on any node; counts loaded under an older version are loaded again.
+ */
+@Service
+public class PersonalizationIndex {
+
+    static final int MAX_TOKENS_PER_USER = 5000;
+    static final int MAX_SCORED_TOKENS = 16;
+
+    private final CategorizationTokenStatRepository statRepository;
+    private final UserRepository userRepository;
+    private final Cache<UUID, VersionedStats> users;
+    private final long scoringBudgetNanos;
+
+    public PersonalizationIndex(CategorizationTokenStatRepository statRepository,
+                                UserRepository userRepository,
+                                @Value("${categorization.personalization.max-users:10000}") long maxUsers,
+                                @Value("${categorization.personalization.ttl-minutes:30}") long ttlMinutes,
+                                @Value("${categorization.personalization.budget-micros:500}") long budgetMicros) {
+        this.statRepository = statRepository;
+        this.userRepository = userRepository;
+        this.scoringBudgetNanos = TimeUnit.MICROSECONDS.toNanos(budgetMicros);
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    /**
+     * Score all description tokens against the user's statistics within the per-request time budget.
+     * The caller reads {@link #feedbackVersion} once per request or bulk chunk and passes it in, so
+     * scoring itself never touches the database while the loaded statistics are current. When the
+     * version has moved on, one caller reloads the user's statistics and concurrent callers wait for
+     * that load instead of repeating it.
+     */
+    public Optional<Score> score(UUID userId, long feedbackVersion, List<String> tokens) {
+        if (userId == null || tokens == null || tokens.isEmpty()) {
+            return Optional.empty();
+        }
+        VersionedStats cached = users.getIfPresent(userId);
+        if (cached == null || cached.version() < feedbackVersion) {
+            cached = users.asMap().compute(userId, (id, current) ->
+                    current != null && current.version() >= feedbackVersion
+                            ? current
+                            : new VersionedStats(feedbackVersion, load(id)));
+        }
+        return cached.stats().score(tokens, MAX_SCORED_TOKENS, System.nanoTime() + scoringBudgetNanos);
+    }
+
+    /**
+     * Committed version of the user's feedback, the same on every node; 0 without a user. This is
+     * a primary-key lookup, so callers read it once and pass it down.
+     */
+    public long feedbackVersion(UUID userId) {
+        if (userId == null) {
+            return 0L;
+        }
+        return userRepository.findFeedbackVersion(userId).orElse(0L);
+    }
+
+    private UserTokenStats load(UUID userId) {
+        return UserTokenStats.build(statRepository.findCountsByUserId(userId, PageRequest.of(0, MAX_TOKENS_PER_USER)));
+    }
+
+    /**
+     * A user's statistics and the feedback version they were loaded under.
+     */
+    private record VersionedStats(long version, UserTokenStats stats) {
+    }
+
+    /**
+     * Best personalized category for a description.
+     *
+     * @param categoryId winning category
+     * @param support    highest single-token count backing the category
+     * @param share      fraction of the total token score held by the category
+     */
+    public record Score(UUID categoryId, long support, double share) {
+    }
+}
@@ -0,0 +1,167 @@
+package com.smartbudget.service;
+
+import com.smartbudget.entity.BulkCategorizationJob;
+import com.smartbudget.repository.BulkCategorizationJobRepository;
+import com.smartbudget.repository.BulkCategorizationWorkItemRepository;
+import com.smartbudget.repository.CategorizationRuleRepository;
+import com.smartbudget.repository.TransactionTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Re-evaluates the transactions affected by a categorization rule change.
+ * <p>
+ * When the rule cache reports a new rule-set version, the node that claims it reads the keywords
+ * the rule table triggers recorded for every version since the last claim, and queues one bulk
+ * categorization job per user with transactions in the token index under those keywords. The jobs
+ * read only the indexed transactions, so the cost follows the number of affected rows rather than
+ * the size of the table. Matches the index cannot see, a keyword inside a longer word, a fuzzy
+ * match of a misspelling or a keyword with no token long enough to be indexed, still need a full
+ * bulk job; the last are logged when their version is claimed.
+ * <p>
+ * Nobody asked for these jobs, so they only revisit categories an earlier job wrote. A category
+ * the user set, or confirmed through categorization feedback, is never overridden by a rule change.
+ */
+@Service
+public class RuleChangeRecategorizer {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleChangeRecategorizer.class);
+
+    private final CategorizationRuleRepository ruleRepository;
+    private final TransactionTokenRepository tokenRepository;
+    private final BulkCategorizationJobRepository jobRepository;
+    private final BulkCategorizationWorkItemRepository workItemRepository;
+    private final BulkJobExecutor jobExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final double confidenceThreshold;
+
+    public RuleChangeRecategorizer(CategorizationRuleRepository ruleRepository,
+                                   TransactionTokenRepository tokenRepository,
+                                   BulkCategorizationJobRepository jobRepository,
+                                   BulkCategorizationWorkItemRepository workItemRepository,
+                                   BulkJobExecutor jobExecutor,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${categorization.rules.recategorize.enabled:true}") boolean enabled,
+                                   @Value("${categorization.rules.recategorize.confidence-threshold:0.7}") double confidenceThreshold) {
+        this.ruleRepository = ruleRepository;
+        this.tokenRepository = tokenRepository;
+        this.jobRepository = jobRepository;
+        this.workItemRepository = workItemRepository;
+        this.jobExecutor = jobExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.confidenceThreshold = confidenceThreshold;
+    }
+
+    @EventListener
+    public void onRulesChangedQuietly(CategorizationRulesChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            recategorize(event.version());
+        } catch (RuntimeException ex) {
+            log.warn("Queueing re-categorization for rule-set version {} failed", event.version(), ex);
+        }
+    }
+
+    /**
+     * Queue the re-categorization of every rule-set version up to {@code version} that no node has
+     * claimed yet. The recorded changes of the claimed versions are dropped with the claim.
+     *
+     * @return number of jobs queued
+     */
+    public int recategorize(long version) {
+        Claim claim = transactionTemplate.execute(tx -> {
+            Long recategorized = ruleRepository.lockRecategorizedVersion().orElse(null);
+            if (recategorized == null || recategorized >= version || ruleRepository.claimRecategorization(version) == 0) {
+                return null;
+            }
+            List<String> keywords = ruleRepository.findChangedKeywords(recategorized, version);
+            ruleRepository.deleteChangesUpTo(version);
+            String prefixes = indexPrefixes(keywords);
+            int jobs = prefixes != null ? queueJobs(prefixes) : 0;
+            return new Claim(recategorized, jobs, unindexableKeywords(keywords));
+        });
+        if (claim == null) {
+            return 0;
+        }
+        if (!claim.unindexable().isEmpty()) {
+            log.warn("Rule-set versions {} to {} changed keywords without an indexable token {}; "
+                            + "transactions matching them are re-evaluated only by a full bulk categorization",
+                    claim.fromVersion() + 1, version, claim.unindexable());
+        }
+        if (claim.jobs() > 0) {
+            log.info("Queued {} re-categorization jobs for rule-set version {}", claim.jobs(), version);
+            jobExecutor.wakeUp();
+        }
+        return claim.jobs();
+    }
+
+    private int queueJobs(String prefixes) {
+        List<UUID> userIds = tokenRepository.findUserIdsWithTokenPrefixes(prefixes);
+        for (UUID userId : userIds) {
+            BulkCategorizationJob job = new BulkCategorizationJob();
+            job.setUserId(userId);
+            job.setKeywordTokens(prefixes);
+            job.setConfidenceThreshold(confidenceThreshold);
+            BulkCategorizationJob saved = jobRepository.save(job);
+            // affected rows are few, one item per job is enough
+            workItemRepository.saveAll(BulkCategorizationService.workItems(saved.getId(), 1));
+        }
+        return userIds.size();
+    }
+
+    /**
+     * Space-separated index prefixes covering the keywords, or {@code null} when none of them has a
+     * token long enough to be indexed. Wherever a keyword occurs, each of its tokens after the first
+     * starts a description token, so the longest of those is used; a single-token keyword is only
+     * found where it starts a word.
+     */
+    static String indexPrefixes(Collection<String> keywords) {
+        TreeSet<String> prefixes = new TreeSet<>();
+        for (String keyword : keywords) {
+            List<String> tokens = DescriptionTokenizer.tokens(keyword);
+            if (tokens.isEmpty()) {
+                continue;
+            }
+            String prefix = tokens.get(tokens.size() - 1);
+            for (String token : tokens.subList(1, tokens.size())) {
+                if (token.length() > prefix.length()) {
+                    prefix = token;
+                }
+            }
+            prefixes.add(prefix);
+        }
+        return prefixes.isEmpty() ? null : String.join(" ", prefixes);
+    }
+
+    /**
+     * Keywords without a token long enough to be indexed, such as "bp", which the token index
+     * cannot find.
+     */
+    static List<String> unindexableKeywords(Collection<String> keywords) {
+        return keywords.stream()
+                .filter(keyword -> DescriptionTokenizer.tokens(keyword).isEmpty())
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Outcome of a claim: the last version claimed before it, the jobs queued and the keywords
+     * left to a full bulk job.
+     */
+    private record Claim(long fromVersion, int jobs, List<String> unindexable) {
+    }
+}
@@ -0,0 +1,96 @@
+package com.smartbudget.service;
+
+import com.smartbudget.dto.CategorySuggestion;
+import com.smartbudget.entity.TransactionType;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Memo of suggestions for one bulk job on this node, keyed like the suggestion cache by
+ * normalized description, transaction type and amount band.
+ * <p>
+ * Each distinct description is given a dense id once; the suggestion for a (description, type,
+ * band) combination then lives in a flat array at an int slot derived from that id, so repeated
+ * rows cost one map lookup and an array read. Once {@code maxDescriptions} distinct descriptions
+ * have been seen, further new descriptions are not memoized. The workers of a job share its memo:
+ * a worker reserves the slots it evaluates and fills them afterwards, and a slot reserved by
+ * another worker that is not filled yet reads as not {@link #isEvaluated evaluated}.
+ */
+final class SuggestionMemo {
+
+    private static final int BUCKETS = AmountBucket.values().length;
+    private static final int SLOTS_PER_DESCRIPTION = TransactionType.values().length * BUCKETS;
+
+    private final int maxDescriptions;
+    private final Map<String, Integer> descriptionIds = new HashMap<>();
+    private final BitSet reserved = new BitSet();
+    private final BitSet evaluated = new BitSet();
+    private CategorySuggestion[] suggestions = new CategorySuggestion[SLOTS_PER_DESCRIPTION * 64];
+
+    SuggestionMemo(int maxDescriptions) {
+        this.maxDescriptions = maxDescriptions;
+    }
+
+    /**
+     * Slot of a candidate, or -1 when it cannot be memoized.
+     */
+    synchronized int slot(String description, TransactionType transactionType, BigDecimal amount) {
+        if (transactionType == null) {
+            return -1;
+        }
+        String normalized = description == null ? "" : description.trim().toLowerCase(Locale.ENGLISH);
+        Integer id = descriptionIds.get(normalized);
+        if (id == null) {
+            if (descriptionIds.size() >= maxDescriptions) {
+                return -1;
+            }
+            id = descriptionIds.size();
+            descriptionIds.put(normalized, id);
+        }
+        return id * SLOTS_PER_DESCRIPTION + transactionType.ordinal() * BUCKETS + AmountBucket.of(amount).ordinal();
+    }
+
+    /**
+     * Claim a slot for evaluation.
+     *
+     * @return false when the slot was already evaluated or claimed, i.e. a memo hit
+     */
+    synchronized boolean reserve(int slot) {
+        if (reserved.get(slot)) {
+            return false;
+        }
+        reserved.set(slot);
+        return true;
+    }
+
+    synchronized void put(int slot, CategorySuggestion suggestion) {
+        if (slot >= suggestions.length) {
+            suggestions = Arrays.copyOf(suggestions, Math.max(slot + 1, suggestions.length * 2));
+        }
+        suggestions[slot] = suggestion;
+        evaluated.set(slot);
+    }
+
+    /**
+     * Whether a suggestion was put for the slot.
+     */
+    synchronized boolean isEvaluated(int slot) {
+        return evaluated.get(slot);
+    }
+
+    /**
+     * Memoized suggestion of an evaluated slot; {@code null} when no category qualified.
+     */
+    synchronized CategorySuggestion get(int slot) {
+        return slot < suggestions.length ? suggestions[slot] : null;
+    }
+
+    synchronized int distinctDescriptions() {
+        return descriptionIds.size();
+    }
+}
@@ -0,0 +1,74 @@
+package com.smartbudget.service;
+
+import com.smartbudget.repository.TransactionDailyRollupRepository;
+import com.smartbudget.repository.TransactionMonthlySnapshotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Periodically compares the daily transaction rollups with their transactions and rebuilds the
+ * rollups of users that drifted, e.g. after writes made with the triggers disabled or a manual
+ * fix in the database.
+ */
+@Service
+public class TransactionRollupVerifier {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionRollupVerifier.class);
+
+    private final TransactionDailyRollupRepository rollupRepository;
+    private final TransactionMonthlySnapshotRepository snapshotRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public TransactionRollupVerifier(TransactionDailyRollupRepository rollupRepository,
+                                     TransactionMonthlySnapshotRepository snapshotRepository,
+                                     PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.snapshotRepository = snapshotRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.rollups.verify-interval-ms:86400000}",
+            initialDelayString = "${analytics.rollups.verify-interval-ms:86400000}")
+    public void verifyQuietly() {
+        try {
+            rebuildDrifted();
+        } catch (RuntimeException ex) {
+            log.warn("Verifying transaction rollups failed", ex);
+        }
+    }
+
+    /**
+     * Rebuild the rollups of every user whose rollups no longer match their transactions.
+     *
+     * @return number of users rebuilt
+     */
+    public int rebuildDrifted() {
+        List<UUID> drifted = rollupRepository.findUserIdsWithDrift();
+        for (UUID userId : drifted) {
+            rebuild(userId);
+        }
+        if (!drifted.isEmpty()) {
+            log.warn("Rebuilt drifted transaction rollups of {} users", drifted.size());
+        }
+        return drifted.size();
+    }
+
+    /**
+     * Replace a user's rollups with a fresh aggregation of their transactions, in one transaction.
+     * The user's monthly snapshots were taken from the drifted rollups, so they are dropped too.
+     */
+    public void rebuild(UUID userId) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            rollupRepository.deleteByUserId(userId);
+            rollupRepository.rebuildForUser(userId);
+            snapshotRepository.deleteByUserId(userId);
+        });
+    }
+}
@@ -3,13 +3,14 @@ package com.smartbudget.service;
 import com.smartbudget.dto.TransactionRequest;
 import com.smartbudget.dto.TransactionResponse;
 import com.smartbudget.entity.Category;
+import com.smartbudget.entity.CategorySource;
 import com.smartbudget.entity.Transaction;
 import com.smartbudget.entity.TransactionType;
 import com.smartbudget.entity.User;
 import com.smartbudget.exception.ForbiddenOperationException;
 import com.smartbudget.exception.ResourceNotFoundException;
-import com.smartbudget.repository.CategoryRepository;
 import com.smartbudget.repository.TransactionRepository;
+import com.smartbudget.repository.TransactionTokenRepository;
 import com.smartbudget.repository.UserRepository;
 import com.smartbudget.service.FeedbackService;
 import org.springframework.data.domain.Page;
@@ -22,10 +23,14 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 /**
  * Business logic for transaction CRUD operations with ownership validation.
+ * <p>
+ * Description tokens are kept in the reverse token index in the same transaction as the write;
+ * deletes are cleaned up by the foreign key cascade.
  */
 @Service
 public class TransactionService {
@@ -34,18 +39,21 @@ public class TransactionService {
     private static final String DEFAULT_SORT_PROPERTY = "transactionDate";
 
     private final TransactionRepository transactionRepository;
-    private final CategoryRepository categoryRepository;
+    private final CategoryRegistry categoryRegistry;
     private final UserRepository userRepository;
     private final FeedbackService feedbackService;
+    private final TransactionTokenRepository transactionTokenRepository;
 
     public TransactionService(TransactionRepository transactionRepository,
-                              CategoryRepository categoryRepository,
+                              CategoryRegistry categoryRegistry,
                               UserRepository userRepository,
-                              FeedbackService feedbackService) {
+                              FeedbackService feedbackService,
+                              TransactionTokenRepository transactionTokenRepository) {
         this.transactionRepository = transactionRepository;
-        this.categoryRepository = categoryRepository;
+        this.categoryRegistry = categoryRegistry;
         this.userRepository = userRepository;
         this.feedbackService = feedbackService;
+        this.transactionTokenRepository = transactionTokenRepository;
     }
 
     /**
@@ -92,7 +100,7 @@ public class TransactionService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
-        Category category = categoryRepository.findById(request.getCategoryId())
+        Category category = categoryRegistry.findById(request.getCategoryId())
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found"));
 
         Transaction transaction = new Transaction();
@@ -100,6 +108,7 @@ public class TransactionService {
         applyRequest(transaction, request, category);
 
         Transaction saved = transactionRepository.save(transaction);
+        indexDescription(userId, saved);
         maybeRecordFeedback(user, request, category, saved);
         return mapToResponse(saved);
     }
@@ -111,11 +120,16 @@ public class TransactionService {
     public TransactionResponse updateTransaction(UUID userId, UUID transactionId, TransactionRequest request) {
         Transaction transaction = fetchOwnedTransaction(transactionId, userId);
 
-        Category category = categoryRepository.findById(request.getCategoryId())
+        Category category = categoryRegistry.findById(request.getCategoryId())
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found"));
 
+        String previousDescription = transaction.getDescription();
         applyRequest(transaction, request, category);
         Transaction saved = transactionRepository.save(transaction);
+        if (!Objects.equals(previousDescription, saved.getDescription())) {
+            transactionTokenRepository.deleteByTransactionId(saved.getId());
+            indexDescription(userId, saved);
+        }
         maybeRecordFeedback(transaction.getUser(), request, category, saved);
         return mapToResponse(saved);
     }
@@ -134,14 +148,21 @@ public class TransactionService {
         transaction.setTransactionDate(request.getTransactionDate());
         transaction.setDescription(request.getDescription());
         transaction.setCategory(category);
+        transaction.setCategorySource(CategorySource.USER);
         transaction.setTransactionType(request.getTransactionType());
     }
 
+    private void indexDescription(UUID userId, Transaction transaction) {
+        for (String token : DescriptionTokenizer.tokens(transaction.getDescription())) {
+            transactionTokenRepository.insertToken(userId, token, transaction.getId());
+        }
+    }
+
     private void maybeRecordFeedback(User user, TransactionRequest request, Category actualCategory, Transaction transaction) {
         if (request.getSuggestedCategoryId() == null) {
             return;
         }
-        Category suggested = categoryRepository.findById(request.getSuggestedCategoryId()).orElse(null);
+        Category suggested = categoryRegistry.findById(request.getSuggestedCategoryId()).orElse(null);
         feedbackService.recordFeedback(user, request.getDescription(), suggested, actualCategory, transaction);
     }
 
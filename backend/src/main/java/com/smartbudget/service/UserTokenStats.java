@@ -0,0 +1,158 @@
+package com.smartbudget.service;
+
+import com.smartbudget.repository.projection.TokenCategoryCountView;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Compact, immutable token -> category count table of a single user.
+ * <p>
+ * Tokens live in an open-addressing table whose slots point into flat {@code int} arrays of
+ * (category index, count) entries, so a user's statistics cost a handful of arrays instead of
+ * one map entry and boxed value per row.
+ */
+final class UserTokenStats {
+
+    static final UserTokenStats EMPTY = build(List.of());
+
+    private final UUID[] categories;
+    private final String[] slotTokens;
+    private final int[] slotStart;
+    private final int[] slotLength;
+    private final int[] slotTotal;
+    private final int[] entryCategory;
+    private final int[] entryCount;
+    private final int mask;
+
+    private UserTokenStats(UUID[] categories, String[] slotTokens, int[] slotStart, int[] slotLength,
+                           int[] slotTotal, int[] entryCategory, int[] entryCount) {
+        this.categories = categories;
+        this.slotTokens = slotTokens;
+        this.slotStart = slotStart;
+        this.slotLength = slotLength;
+        this.slotTotal = slotTotal;
+        this.entryCategory = entryCategory;
+        this.entryCount = entryCount;
+        this.mask = slotTokens.length - 1;
+    }
+
+    static UserTokenStats build(List<TokenCategoryCountView> rows) {
+        Map<String, List<TokenCategoryCountView>> byToken = new LinkedHashMap<>();
+        Map<UUID, Integer> categoryIndex = new HashMap<>();
+        List<UUID> categories = new ArrayList<>();
+        for (TokenCategoryCountView row : rows) {
+            if (row.getToken() == null || row.getCategoryId() == null || row.getCorrectionCount() <= 0) {
+                continue;
+            }
+            byToken.computeIfAbsent(row.getToken(), token -> new ArrayList<>(2)).add(row);
+            categoryIndex.computeIfAbsent(row.getCategoryId(), id -> {
+                categories.add(id);
+                return categories.size() - 1;
+            });
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(2, byToken.size() * 2 - 1)) << 1;
+        String[] slotTokens = new String[capacity];
+        int[] slotStart = new int[capacity];
+        int[] slotLength = new int[capacity];
+        int[] slotTotal = new int[capacity];
+        int entries = byToken.values().stream().mapToInt(List::size).sum();
+        int[] entryCategory = new int[entries];
+        int[] entryCount = new int[entries];
+
+        int mask = capacity - 1;
+        int cursor = 0;
+        for (Map.Entry<String, List<TokenCategoryCountView>> token : byToken.entrySet()) {
+            int slot = spread(token.getKey().hashCode()) & mask;
+            while (slotTokens[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            slotTokens[slot] = token.getKey();
+            slotStart[slot] = cursor;
+            slotLength[slot] = token.getValue().size();
+            long total = 0;
+            for (TokenCategoryCountView row : token.getValue()) {
+                int count = (int) Math.min(Integer.MAX_VALUE, row.getCorrectionCount());
+                entryCategory[cursor] = categoryIndex.get(row.getCategoryId());
+                entryCount[cursor] = count;
+                total += count;
+                cursor++;
+            }
+            slotTotal[slot] = (int) Math.min(Integer.MAX_VALUE, total);
+        }
+
+        return new UserTokenStats(categories.toArray(new UUID[0]), slotTokens, slotStart, slotLength,
+                slotTotal, entryCategory, entryCount);
+    }
+
+    /**
+     * Score every token of a description and return the strongest category.
+     * <p>
+     * Each token contributes its per-category share weighted by {@code log(1 + occurrences)} times an
+     * inverse category frequency {@code log(1 + userCategories / tokenCategories)}, so distinctive
+     * merchant tokens outweigh generic ones like "card" or "purchase". Scoring stops after
+     * {@code maxTokens} known tokens or once {@code deadlineNanos} passes.
+     */
+    Optional<PersonalizationIndex.Score> score(List<String> tokens, int maxTokens, long deadlineNanos) {
+        if (categories.length == 0 || tokens.isEmpty()) {
+            return Optional.empty();
+        }
+        double[] scores = new double[categories.length];
+        int[] support = new int[categories.length];
+        double totalScore = 0;
+        int scored = 0;
+        for (String token : tokens) {
+            if (scored >= maxTokens || System.nanoTime() - deadlineNanos > 0) {
+                break;
+            }
+            int slot = find(token);
+            if (slot < 0) {
+                continue;
+            }
+            scored++;
+            double tokenTotal = slotTotal[slot];
+            int start = slotStart[slot];
+            int end = start + slotLength[slot];
+            double weight = Math.log1p(tokenTotal) * Math.log1p((double) categories.length / slotLength[slot]);
+            for (int entry = start; entry < end; entry++) {
+                int category = entryCategory[entry];
+                double contribution = weight * entryCount[entry] / tokenTotal;
+                scores[category] += contribution;
+                totalScore += contribution;
+                support[category] = Math.max(support[category], entryCount[entry]);
+            }
+        }
+        if (totalScore <= 0) {
+            return Optional.empty();
+        }
+
+        int best = 0;
+        for (int category = 1; category < scores.length; category++) {
+            if (scores[category] > scores[best]) {
+                best = category;
+            }
+        }
+        return Optional.of(new PersonalizationIndex.Score(categories[best], support[best], scores[best] / totalScore));
+    }
+
+    private int find(String token) {
+        int slot = spread(token.hashCode()) & mask;
+        while (slotTokens[slot] != null) {
+            if (slotTokens[slot].equals(token)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,35 @@
+-- Transaction description token index
+-- Migration: V10__transaction_tokens.sql
+-- Description: Reverse index from normalized description tokens to transactions, maintained on transaction
+-- writes, so that a categorization rule change re-evaluates only the transactions that mention its keywords.
+
+-- Tokens use the C collation so that a token prefix is a plain byte range of the primary key
+CREATE TABLE transaction_tokens (
+    user_id UUID NOT NULL,
+    token VARCHAR(64) COLLATE "C" NOT NULL,
+    transaction_id UUID NOT NULL,
+    PRIMARY KEY (user_id, token, transaction_id),
+    CONSTRAINT fk_transaction_tokens_transaction FOREIGN KEY (transaction_id) REFERENCES transactions(id) ON DELETE CASCADE
+);
+
+-- Cascaded deletes and re-indexing after a description change look rows up by transaction
+CREATE INDEX idx_transaction_tokens_transaction ON transaction_tokens(transaction_id);
+
+COMMENT ON TABLE transaction_tokens IS 'Per-user description token to transaction reverse index';
+
+INSERT INTO transaction_tokens (user_id, token, transaction_id)
+SELECT DISTINCT t.user_id, LEFT(tok.token, 64), t.id
+FROM transactions t
+CROSS JOIN LATERAL regexp_split_to_table(LOWER(COALESCE(t.description, '')), '[^[:alnum:]]+') AS tok(token)
+WHERE LENGTH(tok.token) >= 3;
+
+-- The node that advances recategorized_version queues the re-categorization for a rule change
+ALTER TABLE categorization_rule_version ADD COLUMN recategorized_version BIGINT;
+UPDATE categorization_rule_version SET recategorized_version = version;
+ALTER TABLE categorization_rule_version ALTER COLUMN recategorized_version SET NOT NULL;
+
+COMMENT ON COLUMN categorization_rule_version.recategorized_version IS 'Last rule-set version whose changes were queued for re-categorization';
+
+ALTER TABLE bulk_categorization_jobs ADD COLUMN keyword_tokens TEXT;
+
+COMMENT ON COLUMN bulk_categorization_jobs.keyword_tokens IS 'Space-separated token prefixes; when set, only transactions indexed under one of them are processed';
@@ -0,0 +1,97 @@
+-- Daily transaction rollups for analytics
+-- Migration: V11__transaction_daily_rollups.sql
+-- Description: Per-user daily sums and counts by category and transaction type, kept up to date by
+-- statement-level triggers on transactions in the writing transaction, so dashboard aggregations read a
+-- few rows per day instead of every transaction. A scheduled verify job rebuilds users whose rollups drift.
+
+CREATE TABLE transaction_daily_rollups (
+    user_id UUID NOT NULL,
+    day DATE NOT NULL,
+    category_id UUID NOT NULL,
+    transaction_type VARCHAR(20) NOT NULL,
+    total_amount NUMERIC(19, 2) NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    PRIMARY KEY (user_id, day, category_id, transaction_type),
+    CONSTRAINT fk_daily_rollups_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    CONSTRAINT fk_daily_rollups_category FOREIGN KEY (category_id) REFERENCES categories(id) ON DELETE CASCADE
+);
+
+COMMENT ON TABLE transaction_daily_rollups IS 'Per-user daily transaction totals by category and type, maintained by triggers on transactions';
+
+INSERT INTO transaction_daily_rollups (user_id, day, category_id, transaction_type, total_amount, transaction_count)
+SELECT user_id, transaction_date, category_id, transaction_type, SUM(amount), COUNT(*)
+FROM transactions
+GROUP BY user_id, transaction_date, category_id, transaction_type;
+
+-- Deltas are aggregated per statement from the transition tables, so a bulk UPDATE of many rows costs one
+-- upsert per touched day and category. Keys are written in primary key order to avoid deadlocks between
+-- concurrent statements. Deletes only decrement existing rows: when a user is deleted, the cascade may
+-- already have removed the user's rollups.
+CREATE OR REPLACE FUNCTION apply_transaction_rollup_deltas() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO transaction_daily_rollups AS r (user_id, day, category_id, transaction_type, total_amount, transaction_count)
+        SELECT user_id, transaction_date, category_id, transaction_type, SUM(amount), COUNT(*)
+        FROM new_rows
+        GROUP BY user_id, transaction_date, category_id, transaction_type
+        ORDER BY user_id, transaction_date, category_id, transaction_type
+        ON CONFLICT (user_id, day, category_id, transaction_type) DO UPDATE
+        SET total_amount = r.total_amount + EXCLUDED.total_amount,
+            transaction_count = r.transaction_count + EXCLUDED.transaction_count;
+    ELSIF TG_OP = 'UPDATE' THEN
+        INSERT INTO transaction_daily_rollups AS r (user_id, day, category_id, transaction_type, total_amount, transaction_count)
+        SELECT user_id, day, category_id, transaction_type, SUM(amount), SUM(delta)
+        FROM (
+            SELECT user_id, transaction_date AS day, category_id, transaction_type, amount, 1 AS delta FROM new_rows
+            UNION ALL
+            SELECT user_id, transaction_date, category_id, transaction_type, -amount, -1 FROM old_rows
+        ) changes
+        GROUP BY user_id, day, category_id, transaction_type
+        HAVING SUM(delta) <> 0 OR SUM(amount) <> 0
+        ORDER BY user_id, day, category_id, transaction_type
+        ON CONFLICT (user_id, day, category_id, transaction_type) DO UPDATE
+        SET total_amount = r.total_amount + EXCLUDED.total_amount,
+            transaction_count = r.transaction_count + EXCLUDED.transaction_count;
+    ELSE
+        UPDATE transaction_daily_rollups r
+        SET total_amount = r.total_amount - d.total_amount,
+            transaction_count = r.transaction_count - d.transaction_count
+        FROM (
+            SELECT user_id, transaction_date AS day, category_id, transaction_type,
+                   SUM(amount) AS total_amount, COUNT(*) AS transaction_count
+            FROM old_rows
+            GROUP BY user_id, transaction_date, category_id, transaction_type
+        ) d
+        WHERE r.user_id = d.user_id
+          AND r.day = d.day
+          AND r.category_id = d.category_id
+          AND r.transaction_type = d.transaction_type;
+    END IF;
+
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        DELETE FROM transaction_daily_rollups r
+        USING old_rows o
+        WHERE r.user_id = o.user_id
+          AND r.day = o.transaction_date
+          AND r.category_id = o.category_id
+          AND r.transaction_type = o.transaction_type
+          AND r.transaction_count = 0;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_transactions_rollup_insert
+    AFTER INSERT ON transactions
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION apply_transaction_rollup_deltas();
+
+CREATE TRIGGER trg_transactions_rollup_update
+    AFTER UPDATE ON transactions
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION apply_transaction_rollup_deltas();
+
+CREATE TRIGGER trg_transactions_rollup_delete
+    AFTER DELETE ON transactions
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION apply_transaction_rollup_deltas();
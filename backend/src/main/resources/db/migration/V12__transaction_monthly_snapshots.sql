@@ -0,0 +1,107 @@
+-- Monthly analytics snapshots
+-- Migration: V12__transaction_monthly_snapshots.sql
+-- Description: Per-user totals of closed months by category and transaction type, materialized from the daily
+-- rollups once a month has closed. A snapshot never expires; triggers on transactions drop it when a write
+-- touches a date in its month, and the scheduled materializer builds it again.
+
+CREATE TABLE transaction_monthly_snapshots (
+    user_id UUID NOT NULL,
+    month DATE NOT NULL,
+    materialized_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (user_id, month),
+    CONSTRAINT fk_monthly_snapshots_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE TABLE transaction_monthly_snapshot_totals (
+    user_id UUID NOT NULL,
+    month DATE NOT NULL,
+    category_id UUID NOT NULL,
+    transaction_type VARCHAR(20) NOT NULL,
+    total_amount NUMERIC(19, 2) NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    PRIMARY KEY (user_id, month, category_id, transaction_type),
+    CONSTRAINT fk_monthly_snapshot_totals_snapshot FOREIGN KEY (user_id, month)
+        REFERENCES transaction_monthly_snapshots(user_id, month) ON DELETE CASCADE,
+    CONSTRAINT fk_monthly_snapshot_totals_category FOREIGN KEY (category_id) REFERENCES categories(id) ON DELETE CASCADE
+);
+
+COMMENT ON TABLE transaction_monthly_snapshots IS 'Closed months whose totals are materialized; a row exists only while its snapshot is valid';
+COMMENT ON TABLE transaction_monthly_snapshot_totals IS 'Materialized monthly transaction totals by category and type';
+
+-- Writers and the materializer serialize on a per user and month advisory lock. Writers take it shared, so they
+-- never wait for each other; the materializer takes it exclusively, so it either reads the rollups after a
+-- concurrent write has committed or finishes before that write drops its snapshot.
+CREATE OR REPLACE FUNCTION transaction_monthly_snapshot_lock_key(p_user_id UUID, p_month DATE) RETURNS BIGINT AS $$
+    SELECT hashtextextended(p_user_id::text || ':' || p_month::text, 0);
+$$ LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION invalidate_transaction_monthly_snapshot(p_user_id UUID, p_month DATE) RETURNS VOID AS $$
+BEGIN
+    PERFORM pg_advisory_xact_lock_shared(transaction_monthly_snapshot_lock_key(p_user_id, p_month));
+    DELETE FROM transaction_monthly_snapshots WHERE user_id = p_user_id AND month = p_month;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION invalidate_transaction_monthly_snapshots() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM invalidate_transaction_monthly_snapshot(user_id, month)
+        FROM (
+            SELECT DISTINCT user_id, date_trunc('month', transaction_date)::date AS month
+            FROM new_rows
+            ORDER BY user_id, month
+        ) touched;
+    ELSIF TG_OP = 'UPDATE' THEN
+        PERFORM invalidate_transaction_monthly_snapshot(user_id, month)
+        FROM (
+            SELECT user_id, date_trunc('month', transaction_date)::date AS month FROM new_rows
+            UNION
+            SELECT user_id, date_trunc('month', transaction_date)::date FROM old_rows
+            ORDER BY user_id, month
+        ) touched;
+    ELSE
+        PERFORM invalidate_transaction_monthly_snapshot(user_id, month)
+        FROM (
+            SELECT DISTINCT user_id, date_trunc('month', transaction_date)::date AS month
+            FROM old_rows
+            ORDER BY user_id, month
+        ) touched;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_transactions_snapshot_insert
+    AFTER INSERT ON transactions
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION invalidate_transaction_monthly_snapshots();
+
+CREATE TRIGGER trg_transactions_snapshot_update
+    AFTER UPDATE ON transactions
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION invalidate_transaction_monthly_snapshots();
+
+CREATE TRIGGER trg_transactions_snapshot_delete
+    AFTER DELETE ON transactions
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION invalidate_transaction_monthly_snapshots();
+
+-- Replace one month's snapshot with the sum of its daily rollups.
+CREATE OR REPLACE FUNCTION materialize_transaction_monthly_snapshot(p_user_id UUID, p_month DATE) RETURNS INTEGER AS $$
+DECLARE
+    written INTEGER;
+BEGIN
+    PERFORM pg_advisory_xact_lock(transaction_monthly_snapshot_lock_key(p_user_id, p_month));
+    DELETE FROM transaction_monthly_snapshots WHERE user_id = p_user_id AND month = p_month;
+    INSERT INTO transaction_monthly_snapshots (user_id, month) VALUES (p_user_id, p_month);
+    INSERT INTO transaction_monthly_snapshot_totals (user_id, month, category_id, transaction_type, total_amount, transaction_count)
+    SELECT user_id, p_month, category_id, transaction_type, SUM(total_amount), SUM(transaction_count)
+    FROM transaction_daily_rollups
+    WHERE user_id = p_user_id
+      AND day >= p_month
+      AND day < (p_month + INTERVAL '1 month')::date
+    GROUP BY user_id, category_id, transaction_type;
+    GET DIAGNOSTICS written = ROW_COUNT;
+    RETURN written;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,57 @@
+-- Per-user data version
+-- Migration: V13__user_data_version.sql
+-- Description: Counter on users bumped by statement-level triggers whenever a statement writes the user's
+-- transactions, so every node derives the same analytics cache keys and ETags from the database.
+
+ALTER TABLE users ADD COLUMN data_version BIGINT NOT NULL DEFAULT 0;
+
+COMMENT ON COLUMN users.data_version IS 'Bumped on every statement that writes the user''s transactions';
+
+-- Users are bumped in id order so concurrent multi-user statements lock their rows in the same order. A user
+-- deleted in the same statement (cascade) has no row left to update, which is fine.
+CREATE OR REPLACE FUNCTION bump_user_data_versions() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM 1 FROM (
+            SELECT u.id FROM users u
+            WHERE u.id IN (SELECT user_id FROM new_rows)
+            ORDER BY u.id
+            FOR NO KEY UPDATE
+        ) locked;
+        UPDATE users SET data_version = data_version + 1 WHERE id IN (SELECT user_id FROM new_rows);
+    ELSIF TG_OP = 'UPDATE' THEN
+        PERFORM 1 FROM (
+            SELECT u.id FROM users u
+            WHERE u.id IN (SELECT user_id FROM new_rows UNION SELECT user_id FROM old_rows)
+            ORDER BY u.id
+            FOR NO KEY UPDATE
+        ) locked;
+        UPDATE users SET data_version = data_version + 1
+        WHERE id IN (SELECT user_id FROM new_rows UNION SELECT user_id FROM old_rows);
+    ELSE
+        PERFORM 1 FROM (
+            SELECT u.id FROM users u
+            WHERE u.id IN (SELECT user_id FROM old_rows)
+            ORDER BY u.id
+            FOR NO KEY UPDATE
+        ) locked;
+        UPDATE users SET data_version = data_version + 1 WHERE id IN (SELECT user_id FROM old_rows);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_transactions_data_version_insert
+    AFTER INSERT ON transactions
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_user_data_versions();
+
+CREATE TRIGGER trg_transactions_data_version_update
+    AFTER UPDATE ON transactions
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_user_data_versions();
+
+CREATE TRIGGER trg_transactions_data_version_delete
+    AFTER DELETE ON transactions
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_user_data_versions();
@@ -0,0 +1,66 @@
+-- Categorization rule change log
+-- Migration: V14__categorization_rule_changes.sql
+-- Description: Normalized keywords of the rules written by each rule-set version, recorded by the trigger that
+-- bumps the version, so the node that claims a re-categorization reads what changed from the database instead
+-- of diffing its own in-memory snapshots.
+
+CREATE TABLE categorization_rule_changes (
+    version BIGINT NOT NULL,
+    keyword VARCHAR(120) NOT NULL,
+    PRIMARY KEY (version, keyword)
+);
+
+COMMENT ON TABLE categorization_rule_changes IS 'Keywords of the rules added, changed or removed by each rule-set version; pruned once re-categorized';
+
+-- Keywords are normalized like the in-memory rule snapshot: trimmed and lower-cased.
+CREATE OR REPLACE FUNCTION record_categorization_rule_changes() RETURNS TRIGGER AS $$
+DECLARE
+    new_version BIGINT;
+BEGIN
+    UPDATE categorization_rule_version SET version = version + 1 WHERE id = 1 RETURNING version INTO new_version;
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO categorization_rule_changes (version, keyword)
+        SELECT DISTINCT new_version, LOWER(BTRIM(keyword)) FROM new_rows
+        ON CONFLICT DO NOTHING;
+    ELSIF TG_OP = 'UPDATE' THEN
+        INSERT INTO categorization_rule_changes (version, keyword)
+        SELECT new_version, LOWER(BTRIM(keyword)) FROM new_rows
+        UNION
+        SELECT new_version, LOWER(BTRIM(keyword)) FROM old_rows
+        ON CONFLICT DO NOTHING;
+    ELSIF TG_OP = 'DELETE' THEN
+        INSERT INTO categorization_rule_changes (version, keyword)
+        SELECT DISTINCT new_version, LOWER(BTRIM(keyword)) FROM old_rows
+        ON CONFLICT DO NOTHING;
+    ELSE
+        -- TRUNCATE has no transition table; the trigger runs before it, while the rules are still there
+        INSERT INTO categorization_rule_changes (version, keyword)
+        SELECT DISTINCT new_version, LOWER(BTRIM(keyword)) FROM categorization_rules
+        ON CONFLICT DO NOTHING;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Replaces the plain version bump of V4: transition tables need one trigger per event
+DROP TRIGGER trg_categorization_rules_version ON categorization_rules;
+DROP FUNCTION bump_categorization_rule_version();
+
+CREATE TRIGGER trg_categorization_rules_changes_insert
+    AFTER INSERT ON categorization_rules
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION record_categorization_rule_changes();
+
+CREATE TRIGGER trg_categorization_rules_changes_update
+    AFTER UPDATE ON categorization_rules
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION record_categorization_rule_changes();
+
+CREATE TRIGGER trg_categorization_rules_changes_delete
+    AFTER DELETE ON categorization_rules
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION record_categorization_rule_changes();
+
+CREATE TRIGGER trg_categorization_rules_changes_truncate
+    BEFORE TRUNCATE ON categorization_rules
+    FOR EACH STATEMENT EXECUTE FUNCTION record_categorization_rule_changes();
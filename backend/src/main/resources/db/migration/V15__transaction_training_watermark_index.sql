@@ -0,0 +1,14 @@
+-- Classifier training watermark index
+-- Migration: V15__transaction_training_watermark_index.sql
+-- Description: Incremental classifier training reads transactions in (updated_at, id) order after its watermark
+-- and skips the ones backed by categorization feedback.
+
+CREATE INDEX idx_transactions_updated_at_id ON transactions(updated_at, id);
+
+DO $$
+BEGIN
+    IF to_regclass('categorization_feedback') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_categorization_feedback_transaction ON categorization_feedback(transaction_id);
+    END IF;
+END
+$$;
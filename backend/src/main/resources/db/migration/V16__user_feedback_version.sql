@@ -0,0 +1,48 @@
+-- Per-user feedback version
+-- Migration: V16__user_feedback_version.sql
+-- Description: Counter on users bumped by statement-level triggers whenever a statement writes the user's
+-- token statistics, so every node keys cached suggestions and personalization statistics on the same version.
+
+ALTER TABLE users ADD COLUMN feedback_version BIGINT NOT NULL DEFAULT 0;
+
+COMMENT ON COLUMN users.feedback_version IS 'Bumped on every statement that writes the user''s categorization token statistics';
+
+-- Users are bumped in id order, like data_version, so concurrent statements lock their rows in the same order
+CREATE OR REPLACE FUNCTION bump_user_feedback_versions() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        PERFORM 1 FROM (
+            SELECT u.id FROM users u
+            WHERE u.id IN (SELECT user_id FROM old_rows)
+            ORDER BY u.id
+            FOR NO KEY UPDATE
+        ) locked;
+        UPDATE users SET feedback_version = feedback_version + 1 WHERE id IN (SELECT user_id FROM old_rows);
+    ELSE
+        PERFORM 1 FROM (
+            SELECT u.id FROM users u
+            WHERE u.id IN (SELECT user_id FROM new_rows)
+            ORDER BY u.id
+            FOR NO KEY UPDATE
+        ) locked;
+        UPDATE users SET feedback_version = feedback_version + 1 WHERE id IN (SELECT user_id FROM new_rows);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- An upsert fires the insert or the update trigger depending on the path each row took
+CREATE TRIGGER trg_token_stats_feedback_version_insert
+    AFTER INSERT ON categorization_token_stats
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_user_feedback_versions();
+
+CREATE TRIGGER trg_token_stats_feedback_version_update
+    AFTER UPDATE ON categorization_token_stats
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_user_feedback_versions();
+
+CREATE TRIGGER trg_token_stats_feedback_version_delete
+    AFTER DELETE ON categorization_token_stats
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_user_feedback_versions();
@@ -0,0 +1,6 @@
+-- Drop the transaction training watermark index
+-- Migration: V17__drop_transaction_training_index.sql
+-- Description: The classifier trains from categorization feedback only and no longer walks transactions by
+-- updated_at, so the index added for that walk in V15 is only write overhead.
+
+DROP INDEX IF EXISTS idx_transactions_updated_at_id;
@@ -0,0 +1,27 @@
+-- Transaction category source
+-- Migration: V18__transaction_category_source.sql
+-- Description: Records whether a transaction's category was set by the user or written by a bulk or rule-change
+-- job, so that re-categorization started by a rule change never overrides a category the user chose.
+
+-- Existing rows cannot be told apart and are treated as chosen by the user
+ALTER TABLE transactions ADD COLUMN category_source VARCHAR(10) NOT NULL DEFAULT 'USER'
+    CHECK (category_source IN ('USER', 'AUTO'));
+
+COMMENT ON COLUMN transactions.category_source IS 'USER when the user set the category, AUTO when a bulk or rule-change job wrote it';
+
+-- Rule-change re-categorization skips feedback-backed transactions, so the feedback table must exist
+CREATE TABLE IF NOT EXISTS categorization_feedback (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    user_id UUID NOT NULL,
+    description VARCHAR(255),
+    suggested_category_id UUID,
+    actual_category_id UUID NOT NULL,
+    transaction_id UUID NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_categorization_feedback_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    CONSTRAINT fk_categorization_feedback_suggested FOREIGN KEY (suggested_category_id) REFERENCES categories(id),
+    CONSTRAINT fk_categorization_feedback_actual FOREIGN KEY (actual_category_id) REFERENCES categories(id),
+    CONSTRAINT fk_categorization_feedback_transaction FOREIGN KEY (transaction_id) REFERENCES transactions(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_categorization_feedback_transaction ON categorization_feedback(transaction_id);
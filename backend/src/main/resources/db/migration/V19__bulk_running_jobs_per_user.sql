@@ -0,0 +1,6 @@
+-- Per-user running bulk job lookup
+-- Migration: V19__bulk_running_jobs_per_user.sql
+-- Description: Workers cap how many bulk categorization jobs each user has RUNNING at once and count them
+-- on every claim, so index the running jobs by user.
+
+CREATE INDEX idx_bulk_jobs_running_user ON bulk_categorization_jobs(user_id) WHERE status = 'RUNNING';
@@ -0,0 +1,24 @@
+-- Categorization rule-set version
+-- Migration: V4__categorization_rule_version.sql
+-- Description: Single-row counter bumped by any change to categorization_rules so that
+-- application nodes can detect rule changes and reload their in-memory rule snapshot.
+
+CREATE TABLE categorization_rule_version (
+    id SMALLINT PRIMARY KEY CHECK (id = 1),
+    version BIGINT NOT NULL
+);
+
+INSERT INTO categorization_rule_version (id, version) VALUES (1, 1);
+
+CREATE OR REPLACE FUNCTION bump_categorization_rule_version() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE categorization_rule_version SET version = version + 1 WHERE id = 1;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_categorization_rules_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON categorization_rules
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_categorization_rule_version();
+
+COMMENT ON TABLE categorization_rule_version IS 'Monotonic version of the categorization rule set';
@@ -0,0 +1,34 @@
+-- Personalization token statistics
+-- Migration: V5__categorization_token_stats.sql
+-- Description: Per-user token -> category correction counts, upserted on every feedback record so that
+-- personalized suggestions no longer scan the feedback history with LIKE '%token%'.
+
+CREATE TABLE categorization_token_stats (
+    user_id UUID NOT NULL,
+    token VARCHAR(64) NOT NULL,
+    category_id UUID NOT NULL,
+    correction_count BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (user_id, token, category_id),
+    CONSTRAINT fk_token_stats_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    CONSTRAINT fk_token_stats_category FOREIGN KEY (category_id) REFERENCES categories(id) ON DELETE CASCADE
+);
+
+COMMENT ON TABLE categorization_token_stats IS 'Per-user description token to category counts derived from categorization feedback';
+
+-- Backfill from existing feedback when the feedback table is present
+DO $$
+BEGIN
+    IF to_regclass('categorization_feedback') IS NOT NULL THEN
+        INSERT INTO categorization_token_stats (user_id, token, category_id, correction_count)
+        SELECT tokens.user_id, tokens.token, tokens.actual_category_id, COUNT(*)
+        FROM (
+            SELECT DISTINCT f.id, f.user_id, f.actual_category_id,
+                   LEFT(t.token, 64) AS token
+            FROM categorization_feedback f
+            CROSS JOIN LATERAL regexp_split_to_table(LOWER(COALESCE(f.description, '')), '[^[:alnum:]]+') AS t(token)
+            WHERE LENGTH(t.token) >= 3
+        ) tokens
+        GROUP BY tokens.user_id, tokens.token, tokens.actual_category_id;
+    END IF;
+END
+$$;
@@ -0,0 +1,35 @@
+-- Bulk categorization job registry
+-- Migration: V6__bulk_categorization_jobs.sql
+-- Description: Persistent bulk categorization jobs so that any node can report status, jobs interrupted
+-- by a restart resume from their last committed keyset checkpoint, and finished jobs can be purged.
+
+CREATE TABLE bulk_categorization_jobs (
+    id UUID PRIMARY KEY,
+    user_id UUID NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    transaction_type VARCHAR(20),
+    date_from DATE,
+    date_to DATE,
+    current_category_id UUID,
+    confidence_threshold DOUBLE PRECISION NOT NULL,
+    total_processed BIGINT NOT NULL DEFAULT 0,
+    total_updated BIGINT NOT NULL DEFAULT 0,
+    total_skipped_low_confidence BIGINT NOT NULL DEFAULT 0,
+    checkpoint_id UUID,
+    claim_token UUID,
+    error VARCHAR(1000),
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    started_at TIMESTAMP WITH TIME ZONE,
+    heartbeat_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    finished_at TIMESTAMP WITH TIME ZONE,
+    CONSTRAINT fk_bulk_jobs_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    CONSTRAINT chk_bulk_jobs_status CHECK (status IN ('PENDING', 'RUNNING', 'COMPLETED', 'FAILED'))
+);
+
+-- Recovery scans for unfinished jobs with a stale heartbeat; purging scans finished jobs by age
+CREATE INDEX idx_bulk_jobs_unfinished ON bulk_categorization_jobs(heartbeat_at) WHERE status IN ('PENDING', 'RUNNING');
+CREATE INDEX idx_bulk_jobs_finished ON bulk_categorization_jobs(finished_at) WHERE status IN ('COMPLETED', 'FAILED');
+
+COMMENT ON TABLE bulk_categorization_jobs IS 'Bulk auto-categorization jobs with progress counters and resume checkpoint';
+COMMENT ON COLUMN bulk_categorization_jobs.checkpoint_id IS 'Id of the last transaction in the last committed chunk';
+COMMENT ON COLUMN bulk_categorization_jobs.claim_token IS 'Token of the run that currently owns the job; progress writes from other runs are rejected';
@@ -0,0 +1,42 @@
+-- Bulk categorization work queue
+-- Migration: V7__bulk_categorization_work_items.sql
+-- Description: Splits each bulk categorization job into id-range work items that workers on every node
+-- claim with SELECT ... FOR UPDATE SKIP LOCKED under a lease. Progress checkpoints and liveness move from
+-- the job row to the work items, so the job-level claim and heartbeat columns are dropped.
+
+CREATE TABLE bulk_categorization_work_items (
+    id BIGSERIAL PRIMARY KEY,
+    job_id UUID NOT NULL,
+    range_start UUID NOT NULL,
+    range_end UUID,
+    checkpoint_id UUID,
+    status VARCHAR(20) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    lease_token UUID,
+    lease_expires_at TIMESTAMP WITH TIME ZONE,
+    last_error VARCHAR(1000),
+    CONSTRAINT fk_bulk_work_items_job FOREIGN KEY (job_id) REFERENCES bulk_categorization_jobs(id) ON DELETE CASCADE,
+    CONSTRAINT chk_bulk_work_items_status CHECK (status IN ('PENDING', 'RUNNING', 'DONE', 'FAILED'))
+);
+
+-- Workers scan for claimable items; job completion checks a job's unfinished items
+CREATE INDEX idx_bulk_work_items_claimable ON bulk_categorization_work_items(id) WHERE status IN ('PENDING', 'RUNNING');
+CREATE INDEX idx_bulk_work_items_job ON bulk_categorization_work_items(job_id, status);
+
+COMMENT ON TABLE bulk_categorization_work_items IS 'Transaction id ranges of bulk categorization jobs, claimed by workers under a lease';
+COMMENT ON COLUMN bulk_categorization_work_items.range_start IS 'Exclusive lower bound of the transaction ids covered by the item';
+COMMENT ON COLUMN bulk_categorization_work_items.range_end IS 'Inclusive upper bound of the transaction ids covered by the item, NULL for the last range';
+COMMENT ON COLUMN bulk_categorization_work_items.checkpoint_id IS 'Id of the last transaction in the last committed chunk';
+COMMENT ON COLUMN bulk_categorization_work_items.lease_token IS 'Token of the worker that currently holds the lease; progress writes from other workers are rejected';
+
+-- Jobs left unfinished by the previous version continue from their job-level checkpoint as a single item
+INSERT INTO bulk_categorization_work_items (job_id, range_start, range_end, checkpoint_id, status)
+SELECT id, '00000000-0000-0000-0000-000000000000', NULL, checkpoint_id, 'PENDING'
+FROM bulk_categorization_jobs
+WHERE status IN ('PENDING', 'RUNNING');
+
+DROP INDEX idx_bulk_jobs_unfinished;
+ALTER TABLE bulk_categorization_jobs DROP COLUMN checkpoint_id;
+ALTER TABLE bulk_categorization_jobs DROP COLUMN claim_token;
+ALTER TABLE bulk_categorization_jobs DROP COLUMN heartbeat_at;
+CREATE INDEX idx_bulk_jobs_pending ON bulk_categorization_jobs(created_at) WHERE status = 'PENDING';
@@ -0,0 +1,10 @@
+-- Bulk categorization memo counters
+-- Migration: V8__bulk_categorization_memo_counters.sql
+-- Description: Reports how many rows of a bulk categorization job reused a suggestion memoized for the
+-- same normalized description, type and amount band, and how many had to be evaluated.
+
+ALTER TABLE bulk_categorization_jobs ADD COLUMN memo_hits BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE bulk_categorization_jobs ADD COLUMN memo_misses BIGINT NOT NULL DEFAULT 0;
+
+COMMENT ON COLUMN bulk_categorization_jobs.memo_hits IS 'Rows answered from the job-scoped suggestion memo';
+COMMENT ON COLUMN bulk_categorization_jobs.memo_misses IS 'Rows whose suggestion was evaluated';
@@ -0,0 +1,15 @@
+-- Bulk categorization cancellation
+-- Migration: V9__bulk_categorization_cancellation.sql
+-- Description: Adds the CANCELLED status to bulk categorization jobs and their work items. Cancelling marks
+-- the unfinished items, so a worker holding one stops at its next chunk commit.
+
+ALTER TABLE bulk_categorization_jobs DROP CONSTRAINT chk_bulk_jobs_status;
+ALTER TABLE bulk_categorization_jobs ADD CONSTRAINT chk_bulk_jobs_status
+    CHECK (status IN ('PENDING', 'RUNNING', 'COMPLETED', 'FAILED', 'CANCELLED'));
+
+ALTER TABLE bulk_categorization_work_items DROP CONSTRAINT chk_bulk_work_items_status;
+ALTER TABLE bulk_categorization_work_items ADD CONSTRAINT chk_bulk_work_items_status
+    CHECK (status IN ('PENDING', 'RUNNING', 'DONE', 'FAILED', 'CANCELLED'));
+
+DROP INDEX idx_bulk_jobs_finished;
+CREATE INDEX idx_bulk_jobs_finished ON bulk_categorization_jobs(finished_at) WHERE status IN ('COMPLETED', 'FAILED', 'CANCELLED');
@@ -17,6 +17,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.DynamicPropertyRegistry;
@@ -33,6 +34,7 @@ import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -139,6 +141,47 @@ class AnalyticsControllerIntegrationTest {
                 .andExpect(jsonPath("$[2].totalIncome").value(200.0));
     }
 
+    @Test
+    void summaryEndpoint_ShouldAnswerNotModifiedUntilTransactionsChange() throws Exception {
+        createTransaction(expenseCategory, TransactionType.EXPENSE, new BigDecimal("50"), LocalDate.of(2025, 2, 10));
+
+        String etag = mockMvc.perform(get("/api/analytics/summary")
+                        .param("startDate", "2025-02-01")
+                        .param("endDate", "2025-02-28")
+                        .header("Authorization", bearer(token)))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/analytics/summary")
+                        .param("startDate", "2025-02-01")
+                        .param("endDate", "2025-02-28")
+                        .header("Authorization", bearer(token))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(get("/api/analytics/summary")
+                        .param("startDate", "2025-02-01")
+                        .param("endDate", "2025-03-31")
+                        .header("Authorization", bearer(token))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalExpenses").value(50.0));
+
+        // written outside the service, as a job on another node would; the trigger-maintained version still moves
+        createTransaction(expenseCategory, TransactionType.EXPENSE, new BigDecimal("30"), LocalDate.of(2025, 2, 20));
+
+        mockMvc.perform(get("/api/analytics/summary")
+                        .param("startDate", "2025-02-01")
+                        .param("endDate", "2025-02-28")
+                        .header("Authorization", bearer(token))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalExpenses").value(80.0));
+    }
+
     private Transaction createTransaction(Category category, TransactionType type, BigDecimal amount, LocalDate date) {
         Transaction transaction = new Transaction(user, amount, date, category.getName(), category, type);
         return transactionRepository.save(transaction);
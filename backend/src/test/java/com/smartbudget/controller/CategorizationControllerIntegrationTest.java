@@ -22,6 +22,7 @@ import java.math.BigDecimal;
 
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -88,6 +89,18 @@ class CategorizationControllerIntegrationTest {
                 .andExpect(jsonPath("$.confidence").value(0.0));
     }
 
+    @Test
+    void reloadRules_WithoutToken_ShouldReturn401() throws Exception {
+        mockMvc.perform(post("/api/categorization/rules/reload"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void suggestionCacheStats_WithoutToken_ShouldReturn401() throws Exception {
+        mockMvc.perform(get("/api/categorization/suggest/cache"))
+                .andExpect(status().isUnauthorized());
+    }
+
     private static boolean isDockerAvailable() {
         try {
             DockerClientFactory.instance().client();
@@ -2,9 +2,13 @@ package com.smartbudget.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.smartbudget.dto.CategorySuggestion;
+import com.smartbudget.dto.CategorySuggestionBatchRequest;
 import com.smartbudget.dto.CategorySuggestionRequest;
+import com.smartbudget.dto.SuggestionCacheStatsResponse;
 import com.smartbudget.entity.TransactionType;
+import com.smartbudget.service.CategorizationRuleCache;
 import com.smartbudget.service.CategorizationService;
+import com.smartbudget.service.CategorySuggestionCache;
 import com.smartbudget.service.JwtService;
 import com.smartbudget.config.JwtAuthenticationFilter;
 import org.junit.jupiter.api.Test;
@@ -18,11 +22,15 @@ import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -40,6 +48,12 @@ class CategorizationControllerTest {
     @MockBean
     private CategorizationService categorizationService;
 
+    @MockBean
+    private CategorizationRuleCache categorizationRuleCache;
+
+    @MockBean
+    private CategorySuggestionCache suggestionCache;
+
     @MockBean
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
@@ -99,4 +113,47 @@ class CategorizationControllerTest {
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void suggestCategories_ShouldAnswerInRequestOrder() throws Exception {
+        UUID categoryId = UUID.randomUUID();
+        Mockito.when(categorizationService.suggestCategories(anyList()))
+                .thenReturn(Arrays.asList(new CategorySuggestion(categoryId, "Food", 0.9), null));
+
+        CategorySuggestionRequest coffee = new CategorySuggestionRequest();
+        coffee.setDescription("Starbucks latte");
+        coffee.setTransactionType(TransactionType.EXPENSE);
+        CategorySuggestionRequest unknown = new CategorySuggestionRequest();
+        unknown.setDescription("Unknown vendor");
+        unknown.setTransactionType(TransactionType.EXPENSE);
+        CategorySuggestionBatchRequest batch = new CategorySuggestionBatchRequest();
+        batch.setItems(List.of(coffee, unknown));
+
+        mockMvc.perform(post("/api/categorization/suggest/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].categoryName").value("Food"))
+                .andExpect(jsonPath("$[1].categoryId").value(nullValue()))
+                .andExpect(jsonPath("$[1].confidence").value(0.0));
+    }
+
+    @Test
+    void suggestCategories_EmptyBatch_ShouldReturnBadRequest() throws Exception {
+        mockMvc.perform(post("/api/categorization/suggest/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CategorySuggestionBatchRequest())))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void suggestionCacheStats_ShouldExposeHitAndMissCounts() throws Exception {
+        Mockito.when(suggestionCache.stats()).thenReturn(new SuggestionCacheStatsResponse(30, 10, 0.75, 2, 8));
+
+        mockMvc.perform(get("/api/categorization/suggest/cache"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hitCount").value(30))
+                .andExpect(jsonPath("$.missCount").value(10))
+                .andExpect(jsonPath("$.hitRate").value(0.75));
+    }
 }
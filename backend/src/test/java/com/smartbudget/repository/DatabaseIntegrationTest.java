@@ -1,11 +1,17 @@
 package com.smartbudget.repository;
 
 import com.smartbudget.entity.*;
+import com.smartbudget.repository.projection.BulkCategorizationCandidateView;
+import com.smartbudget.repository.projection.CategoryBreakdownView;
+import com.smartbudget.repository.projection.TransactionSummaryView;
+import com.smartbudget.service.MonthlySnapshotMaterializer;
 import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.DockerClientFactory;
@@ -14,11 +20,14 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.math.BigDecimal;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 /**
  * Integration test for database setup, migrations, and repository operations.
@@ -50,6 +59,18 @@ class DatabaseIntegrationTest {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private TransactionDailyRollupRepository rollupRepository;
+
+    @Autowired
+    private TransactionMonthlySnapshotRepository snapshotRepository;
+
+    @Autowired
+    private MonthlySnapshotMaterializer snapshotMaterializer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @BeforeAll
     static void ensureDockerAvailable() {
         Assumptions.assumeTrue(isDockerAvailable(), "Docker is required for Testcontainers-based tests.");
@@ -215,6 +236,96 @@ class DatabaseIntegrationTest {
         assertThat(updatedUser.getUpdatedAt()).isAfter(savedUser.getCreatedAt());
     }
 
+    @Test
+    void testDailyRollupsFollowTransactionWrites() {
+        User user = userRepository.save(new User("rollups@example.com", "password"));
+        List<Category> expenseCategories = categoryRepository.findByType(CategoryType.EXPENSE);
+        Category first = expenseCategories.get(0);
+        Category second = expenseCategories.get(1);
+        LocalDate today = LocalDate.now();
+
+        Transaction groceries = transactionRepository.save(new Transaction(
+                user, new BigDecimal("40.00"), today, "Groceries", first, TransactionType.EXPENSE));
+        Transaction fuel = transactionRepository.save(new Transaction(
+                user, new BigDecimal("60.00"), today, "Fuel", first, TransactionType.EXPENSE));
+
+        TransactionSummaryView summary = rollupRepository.summarizeTransactions(user.getId(), today, today);
+        assertThat(summary.getExpenses()).isEqualByComparingTo("100.00");
+        assertThat(summary.getTransactionCount()).isEqualTo(2);
+
+        fuel.setCategory(second);
+        transactionRepository.save(fuel);
+
+        List<CategoryBreakdownView> breakdown = rollupRepository.getCategoryBreakdown(user.getId(), today, today);
+        assertThat(breakdown)
+                .extracting(CategoryBreakdownView::getCategoryId, CategoryBreakdownView::getTransactionCount)
+                .containsExactlyInAnyOrder(tuple(first.getId(), 1L), tuple(second.getId(), 1L));
+        assertThat(rollupRepository.aggregateByPeriod(user.getId(), today, today, "week"))
+                .singleElement()
+                .satisfies(week -> {
+                    assertThat(week.getPeriod()).isEqualTo(today.with(DayOfWeek.MONDAY));
+                    assertThat(week.getTransactionCount()).isEqualTo(2);
+                });
+
+        transactionRepository.delete(groceries);
+
+        summary = rollupRepository.summarizeTransactions(user.getId(), today, today);
+        assertThat(summary.getExpenses()).isEqualByComparingTo("60.00");
+        assertThat(summary.getTransactionCount()).isEqualTo(1);
+        assertThat(rollupRepository.findUserIdsWithDrift()).doesNotContain(user.getId());
+    }
+
+    @Test
+    void testMonthlySnapshotIsDroppedWhenItsMonthIsWritten() {
+        User user = userRepository.save(new User("snapshots@example.com", "password"));
+        Category category = categoryRepository.findByType(CategoryType.EXPENSE).get(0);
+        YearMonth closed = YearMonth.now().minusMonths(2);
+
+        transactionRepository.save(new Transaction(
+                user, new BigDecimal("25.00"), closed.atDay(3), "Lunch", category, TransactionType.EXPENSE));
+        snapshotMaterializer.materialize(user.getId(), closed);
+
+        assertThat(snapshotRepository.findMaterializedMonths(user.getId(), closed.atDay(1), closed.atDay(1)))
+                .containsExactly(closed.atDay(1));
+        assertThat(snapshotRepository.summarizeTransactions(user.getId(), closed.atDay(1), closed.atDay(1))
+                .getExpenses()).isEqualByComparingTo("25.00");
+
+        transactionRepository.save(new Transaction(
+                user, new BigDecimal("15.00"), closed.atEndOfMonth(), "Dinner", category, TransactionType.EXPENSE));
+
+        assertThat(snapshotRepository.findMaterializedMonths(user.getId(), closed.atDay(1), closed.atDay(1))).isEmpty();
+        assertThat(snapshotRepository.summarizeTransactions(user.getId(), closed.atDay(1), closed.atDay(1))
+                .getTransactionCount()).isZero();
+    }
+
+    @Test
+    void testKeywordRecategorizationLeavesUserChosenCategoriesAlone() {
+        User user = userRepository.save(new User("recategorize@example.com", "password"));
+        Category category = categoryRepository.findByType(CategoryType.EXPENSE).get(0);
+        LocalDate today = LocalDate.now();
+        Transaction automatic = transactionRepository.save(new Transaction(
+                user, new BigDecimal("18.00"), today, "Uber ride", category, TransactionType.EXPENSE));
+        Transaction withFeedback = transactionRepository.save(new Transaction(
+                user, new BigDecimal("22.00"), today, "Uber ride home", category, TransactionType.EXPENSE));
+        Transaction chosen = transactionRepository.save(new Transaction(
+                user, new BigDecimal("25.00"), today, "Uber eats", category, TransactionType.EXPENSE));
+        for (Transaction transaction : List.of(automatic, withFeedback, chosen)) {
+            jdbcTemplate.update("INSERT INTO transaction_tokens (user_id, token, transaction_id) VALUES (?, 'uber', ?)",
+                    user.getId(), transaction.getId());
+        }
+        jdbcTemplate.update("UPDATE transactions SET category_source = 'AUTO' WHERE id IN (?, ?)",
+                automatic.getId(), withFeedback.getId());
+        jdbcTemplate.update("""
+                INSERT INTO categorization_feedback (user_id, description, actual_category_id, transaction_id)
+                VALUES (?, 'Uber ride home', ?, ?)
+                """, user.getId(), category.getId(), withFeedback.getId());
+
+        List<BulkCategorizationCandidateView> candidates = transactionRepository.findForKeywordRecategorization(
+                user.getId(), "uber", TransactionRepository.KEYSET_START, null, PageRequest.of(0, 10));
+
+        assertThat(candidates).extracting(BulkCategorizationCandidateView::getId).containsExactly(automatic.getId());
+    }
+
     @Test
     void testCascadeDeleteOnUserDeletion() {
         // Create user with transactions
@@ -0,0 +1,96 @@
+package com.smartbudget.service;
+
+import com.smartbudget.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AnalyticsResponseCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private AnalyticsResponseCache cache;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        cache = new AnalyticsResponseCache(userRepository, mock(PlatformTransactionManager.class), 100, 5);
+        userId = UUID.randomUUID();
+        lenient().when(userRepository.findDataVersion(any())).thenReturn(Optional.of(7L));
+    }
+
+    @Test
+    void get_ShouldComputeOncePerKey() {
+        AtomicInteger loads = new AtomicInteger();
+        LocalDate start = LocalDate.of(2025, 1, 1);
+
+        String first = cache.get(cache.key(userId, "summary", start, null), () -> "response-" + loads.incrementAndGet()).body();
+        String second = cache.get(cache.key(userId, "summary", start, null), () -> "response-" + loads.incrementAndGet()).body();
+
+        assertThat(first).isEqualTo("response-1");
+        assertThat(second).isEqualTo("response-1");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void key_ShouldFollowPersistedDataVersion() {
+        when(userRepository.findDataVersion(userId)).thenReturn(Optional.of(7L), Optional.of(7L), Optional.of(8L));
+
+        AnalyticsResponseCache.Key before = cache.key(userId, "trends", null, null, "MONTH");
+        cache.get(before, () -> "old");
+        AnalyticsResponseCache.Key after = cache.key(userId, "trends", null, null, "MONTH");
+
+        assertThat(after.dataVersion()).isEqualTo(8L);
+        assertThat(cache.etag(after)).isNotEqualTo(cache.etag(before));
+        assertThat(cache.<String>get(after, () -> "new").body()).isEqualTo("new");
+    }
+
+    @Test
+    void get_ShouldKeyResponseByVersionReadInItsTransaction() {
+        when(userRepository.findDataVersion(userId)).thenReturn(Optional.of(7L), Optional.of(8L));
+
+        AnalyticsResponseCache.Key requested = cache.key(userId, "summary", null, null);
+        AnalyticsResponseCache.Response<String> computed = cache.get(requested, () -> "newer");
+        AnalyticsResponseCache.Key current = cache.key(userId, "summary", null, null);
+
+        assertThat(computed.key().dataVersion()).isEqualTo(8L);
+        assertThat(cache.etag(computed.key())).isNotEqualTo(cache.etag(requested)).isEqualTo(cache.etag(current));
+        assertThat(cache.<String>get(current, () -> "reloaded").body()).isEqualTo("newer");
+        assertThat(cache.<String>get(requested, () -> "older").body()).isEqualTo("newer");
+    }
+
+    @Test
+    void etag_ShouldBeStrongAndDependOnlyOnKey() {
+        String summary = cache.etag(cache.key(userId, "summary", null, null));
+
+        assertThat(summary).startsWith("\"").endsWith("\"").doesNotStartWith("W/");
+        assertThat(new AnalyticsResponseCache(userRepository, mock(PlatformTransactionManager.class), 100, 5).etag(cache.key(userId, "summary", null, null)))
+                .isEqualTo(summary);
+        assertThat(cache.etag(cache.key(userId, "category-breakdown", null, null))).isNotEqualTo(summary);
+        assertThat(cache.etag(cache.key(userId, "summary", LocalDate.of(2025, 1, 1), null))).isNotEqualTo(summary);
+        assertThat(cache.etag(cache.key(UUID.randomUUID(), "summary", null, null))).isNotEqualTo(summary);
+    }
+
+    @Test
+    void dataVersion_ShouldBeZeroForUnknownUser() {
+        when(userRepository.findDataVersion(userId)).thenReturn(Optional.empty());
+
+        assertThat(cache.dataVersion(userId)).isZero();
+    }
+}
@@ -4,7 +4,8 @@ import com.smartbudget.dto.CategoryBreakdownResponse;
 import com.smartbudget.dto.SummaryResponse;
 import com.smartbudget.dto.TrendDataPoint;
 import com.smartbudget.entity.TransactionType;
-import com.smartbudget.repository.TransactionRepository;
+import com.smartbudget.repository.TransactionDailyRollupRepository;
+import com.smartbudget.repository.TransactionMonthlySnapshotRepository;
 import com.smartbudget.repository.projection.CategoryBreakdownView;
 import com.smartbudget.repository.projection.TransactionSummaryView;
 import com.smartbudget.repository.projection.TrendAggregationView;
@@ -17,18 +18,26 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class AnalyticsServiceTest {
 
     @Mock
-    private TransactionRepository transactionRepository;
+    private TransactionDailyRollupRepository rollupRepository;
+
+    @Mock
+    private TransactionMonthlySnapshotRepository snapshotRepository;
 
     @InjectMocks
     private AnalyticsService analyticsService;
@@ -59,7 +68,7 @@ class AnalyticsServiceTest {
             }
         };
 
-        when(transactionRepository.summarizeTransactions(any(), any(), any())).thenReturn(projection);
+        when(rollupRepository.summarizeTransactions(any(), any(), any())).thenReturn(projection);
 
         SummaryResponse response = analyticsService.getSummary(userId, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31));
 
@@ -71,7 +80,7 @@ class AnalyticsServiceTest {
 
     @Test
     void getSummary_ShouldHandleNullProjection() {
-        when(transactionRepository.summarizeTransactions(any(), any(), any())).thenReturn(null);
+        when(rollupRepository.summarizeTransactions(any(), any(), any())).thenReturn(null);
 
         SummaryResponse response = analyticsService.getSummary(userId, null, null);
 
@@ -137,7 +146,7 @@ class AnalyticsServiceTest {
             }
         };
 
-        when(transactionRepository.getCategoryBreakdown(any(), any(), any()))
+        when(rollupRepository.getCategoryBreakdown(any(), any(), any()))
                 .thenReturn(List.of(incomeRow, expenseRow));
 
         List<CategoryBreakdownResponse> responses = analyticsService.getCategoryBreakdown(
@@ -177,7 +186,7 @@ class AnalyticsServiceTest {
             }
         };
 
-        when(transactionRepository.aggregateDaily(any(), any(), any()))
+        when(rollupRepository.aggregateByPeriod(any(), any(), any(), eq("day")))
                 .thenReturn(List.of(day1));
 
         List<TrendDataPoint> points = analyticsService.getTrends(
@@ -190,4 +199,163 @@ class AnalyticsServiceTest {
         assertThat(points.get(0).getTotalIncome()).isEqualByComparingTo("200");
         assertThat(points.get(1).getTotalIncome()).isZero();
     }
+
+    @Test
+    void getSummary_ShouldReadMaterializedMonthsFromSnapshotsAndTheRestLive() {
+        when(snapshotRepository.findMaterializedMonths(userId, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 1)))
+                .thenReturn(List.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1),
+                        LocalDate.of(2024, 4, 1), LocalDate.of(2024, 12, 1)));
+        when(snapshotRepository.summarizeTransactions(userId, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 1)))
+                .thenReturn(summary("3000", "1000", 6));
+        when(rollupRepository.summarizeTransactions(userId, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31)))
+                .thenReturn(summary("0", "50", 1));
+        when(rollupRepository.summarizeTransactions(userId, LocalDate.of(2024, 5, 1), LocalDate.of(2024, 11, 30)))
+                .thenReturn(summary("700", "200", 3));
+
+        SummaryResponse response = analyticsService.getSummary(userId, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31));
+
+        assertThat(response.getTotalIncome()).isEqualByComparingTo("3700");
+        assertThat(response.getTotalExpenses()).isEqualByComparingTo("1250");
+        assertThat(response.getTransactionCount()).isEqualTo(10);
+    }
+
+    @Test
+    void getSummary_ShouldNotLookForSnapshotsOfTheCurrentMonth() {
+        YearMonth current = YearMonth.now();
+
+        analyticsService.getSummary(userId, current.atDay(1), current.atEndOfMonth());
+
+        verifyNoInteractions(snapshotRepository);
+        verify(rollupRepository).summarizeTransactions(userId, current.atDay(1), current.atEndOfMonth());
+    }
+
+    @Test
+    void getSummary_ShouldOnlyUseSnapshotsOfMonthsCoveredWhole() {
+        analyticsService.getSummary(userId, LocalDate.of(2024, 1, 15), LocalDate.of(2024, 4, 10));
+
+        verify(snapshotRepository).findMaterializedMonths(userId, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 3, 1));
+        verify(snapshotRepository, never()).summarizeTransactions(any(), any(), any());
+        verify(rollupRepository).summarizeTransactions(userId, LocalDate.of(2024, 1, 15), LocalDate.of(2024, 4, 10));
+    }
+
+    @Test
+    void getCategoryBreakdown_ShouldMergeSnapshotAndLiveTotals() {
+        UUID rent = UUID.randomUUID();
+        when(snapshotRepository.findMaterializedMonths(eq(userId), any(), any()))
+                .thenReturn(List.of(LocalDate.of(2024, 1, 1)));
+        when(snapshotRepository.getCategoryBreakdown(userId, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 1)))
+                .thenReturn(List.of(breakdown(rent, "Rent", "800", 1)));
+        when(rollupRepository.getCategoryBreakdown(userId, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 10)))
+                .thenReturn(List.of(breakdown(rent, "Rent", "800", 1), breakdown(UUID.randomUUID(), "Food", "400", 4)));
+
+        List<CategoryBreakdownResponse> responses = analyticsService.getCategoryBreakdown(
+                userId, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 10));
+
+        assertThat(responses).extracting(CategoryBreakdownResponse::getCategoryName).containsExactly("Rent", "Food");
+        assertThat(responses.get(0).getTotalAmount()).isEqualByComparingTo("1600");
+        assertThat(responses.get(0).getTransactionCount()).isEqualTo(2);
+        assertThat(responses.get(0).getPercentage()).isEqualTo(80.0);
+    }
+
+    @Test
+    void getTrends_ShouldServeClosedMonthsFromSnapshotsWhenGroupingByMonth() {
+        when(snapshotRepository.findMaterializedMonths(userId, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1)))
+                .thenReturn(List.of(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1)));
+        when(snapshotRepository.aggregateMonthly(userId, LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 1)))
+                .thenReturn(List.of(trend(LocalDate.of(2024, 1, 1), "500", 2), trend(LocalDate.of(2024, 2, 1), "300", 1)));
+
+        List<TrendDataPoint> points = analyticsService.getTrends(
+                userId, LocalDate.of(2024, 1, 10), LocalDate.of(2024, 2, 20), "MONTH");
+
+        assertThat(points).extracting(TrendDataPoint::getTotalIncome)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactly(new BigDecimal("500"), new BigDecimal("300"));
+        verify(rollupRepository, never()).aggregateByPeriod(any(), any(), any(), any());
+    }
+
+    @Test
+    void getTrends_ShouldFillGapsBetweenDatabaseBucketsOfWeeks() {
+        when(rollupRepository.aggregateByPeriod(userId, LocalDate.of(2024, 12, 30), LocalDate.of(2025, 1, 26), "week"))
+                .thenReturn(List.of(trend(LocalDate.of(2025, 1, 6), "150", 3)));
+
+        List<TrendDataPoint> points = analyticsService.getTrends(
+                userId, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 22), "WEEK");
+
+        assertThat(points).extracting(TrendDataPoint::getPeriod).containsExactly(
+                LocalDate.of(2024, 12, 30), LocalDate.of(2025, 1, 6),
+                LocalDate.of(2025, 1, 13), LocalDate.of(2025, 1, 20));
+        assertThat(points).extracting(TrendDataPoint::getTransactionCount).containsExactly(0L, 3L, 0L, 0L);
+    }
+
+    private static TransactionSummaryView summary(String income, String expenses, long count) {
+        return new TransactionSummaryView() {
+            @Override
+            public BigDecimal getIncome() {
+                return new BigDecimal(income);
+            }
+
+            @Override
+            public BigDecimal getExpenses() {
+                return new BigDecimal(expenses);
+            }
+
+            @Override
+            public long getTransactionCount() {
+                return count;
+            }
+        };
+    }
+
+    private static CategoryBreakdownView breakdown(UUID categoryId, String name, String amount, long count) {
+        return new CategoryBreakdownView() {
+            @Override
+            public UUID getCategoryId() {
+                return categoryId;
+            }
+
+            @Override
+            public String getCategoryName() {
+                return name;
+            }
+
+            @Override
+            public TransactionType getTransactionType() {
+                return TransactionType.EXPENSE;
+            }
+
+            @Override
+            public BigDecimal getTotalAmount() {
+                return new BigDecimal(amount);
+            }
+
+            @Override
+            public long getTransactionCount() {
+                return count;
+            }
+        };
+    }
+
+    private static TrendAggregationView trend(LocalDate period, String income, long count) {
+        return new TrendAggregationView() {
+            @Override
+            public LocalDate getPeriod() {
+                return period;
+            }
+
+            @Override
+            public BigDecimal getIncome() {
+                return new BigDecimal(income);
+            }
+
+            @Override
+            public BigDecimal getExpenses() {
+                return BigDecimal.ZERO;
+            }
+
+            @Override
+            public long getTransactionCount() {
+                return count;
+            }
+        };
+    }
 }
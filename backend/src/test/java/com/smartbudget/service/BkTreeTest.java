@@ -0,0 +1,49 @@
+package com.smartbudget.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BkTreeTest {
+
+    @Test
+    void distance_ShouldCountTranspositionsAsOneEdit() {
+        assertThat(BkTree.distance("starbucks", "starbuks")).isEqualTo(1);
+        assertThat(BkTree.distance("uber", "ubr")).isEqualTo(1);
+        assertThat(BkTree.distance("netflix", "netlfix")).isEqualTo(1);
+        assertThat(BkTree.distance("ca", "abc")).isEqualTo(2);
+        assertThat(BkTree.distance("", "abc")).isEqualTo(3);
+    }
+
+    @Test
+    void search_ShouldReturnKeywordsWithinTolerance() {
+        BkTree<String> tree = BkTree.<String>builder()
+                .add("starbucks", "Food")
+                .add("uber", "Transport")
+                .add("netflix", "Entertainment")
+                .add("amazon", "Shopping")
+                .build();
+
+        List<String> hits = new ArrayList<>();
+        tree.search("starbuks", 1, 10, (payload, distance) -> hits.add(payload + ":" + distance));
+
+        assertThat(hits).containsExactly("Food:1");
+    }
+
+    @Test
+    void search_ShouldStopAtNodeBudget() {
+        BkTree.Builder<String> builder = BkTree.builder();
+        for (int i = 0; i < 100; i++) {
+            builder.add("merchant" + i, "Other");
+        }
+        BkTree<String> tree = builder.build();
+
+        int examined = tree.search("merchant5", 2, 5, (payload, distance) -> { });
+
+        assertThat(tree.size()).isEqualTo(100);
+        assertThat(examined).isEqualTo(5);
+    }
+}
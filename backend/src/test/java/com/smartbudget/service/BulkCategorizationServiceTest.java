@@ -1,29 +1,55 @@
 package com.smartbudget.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.smartbudget.dto.BulkCategorizationJobStatus;
+import com.smartbudget.dto.BulkCategorizationPreviewItem;
 import com.smartbudget.dto.BulkCategorizationRequest;
 import com.smartbudget.dto.CategorySuggestion;
+import com.smartbudget.entity.BulkCategorizationJob;
+import com.smartbudget.entity.BulkCategorizationWorkItem;
 import com.smartbudget.entity.Category;
-import com.smartbudget.entity.Transaction;
 import com.smartbudget.entity.TransactionType;
-import com.smartbudget.repository.CategoryRepository;
+import com.smartbudget.exception.ForbiddenOperationException;
+import com.smartbudget.repository.BulkCategorizationJobRepository;
+import com.smartbudget.repository.BulkCategorizationWorkItemRepository;
 import com.smartbudget.repository.TransactionRepository;
+import com.smartbudget.repository.projection.BulkCategorizationCandidateView;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
+import org.mockito.AdditionalMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,69 +60,594 @@ class BulkCategorizationServiceTest {
     private TransactionRepository transactionRepository;
 
     @Mock
-    private CategoryRepository categoryRepository;
+    private BulkCategorizationJobRepository jobRepository;
+
+    @Mock
+    private BulkCategorizationWorkItemRepository workItemRepository;
+
+    @Mock
+    private CategoryRegistry categoryRegistry;
 
     @Mock
     private CategorizationService categorizationService;
 
-    @InjectMocks
+    @Mock
+    private BulkJobExecutor jobExecutor;
+
+    @Mock
+    private BulkThrottle throttle;
+
     private BulkCategorizationService bulkCategorizationService;
 
     private UUID userId;
     private Category food;
-    private Transaction tx;
+    private BulkCategorizationCandidateView tx;
+    private final Map<UUID, BulkCategorizationJob> jobs = new HashMap<>();
+    private final List<BulkCategorizationWorkItem> workItems = new ArrayList<>();
+    private final AtomicLong workItemIds = new AtomicLong();
 
     @BeforeEach
     void setUp() {
+        bulkCategorizationService = newService(500);
+        stubQueue();
+
         userId = UUID.randomUUID();
         food = new Category();
         food.setId(UUID.randomUUID());
         food.setName("Food");
 
-        tx = new Transaction();
-        tx.setId(UUID.randomUUID());
-        tx.setTransactionType(TransactionType.EXPENSE);
-        tx.setDescription("Lunch at cafe");
-        tx.setAmount(BigDecimal.valueOf(12.50));
+        tx = new Candidate(UUID.randomUUID(), "Lunch at cafe", BigDecimal.valueOf(12.50), null);
     }
 
     @Test
-    void startJob_ShouldUpdateTransactionsAboveThreshold() {
+    void processNextWorkItem_ShouldUpdateTransactionsAboveThreshold() {
         BulkCategorizationRequest request = new BulkCategorizationRequest();
         request.setTransactionType(TransactionType.EXPENSE);
         request.setConfidenceThreshold(0.7);
         request.setDateFrom(LocalDate.now().minusDays(1));
         request.setDateTo(LocalDate.now());
 
-        when(transactionRepository.findForBulkCategorization(any(), any(), any(), any(), any()))
+        when(transactionRepository.findForBulkCategorization(any(), any(), any(), any(), any(), any(), any(), any()))
                 .thenReturn(List.of(tx));
-        when(categorizationService.suggestCategory(any(), any(), any(), any()))
+        when(categorizationService.suggestCategoryUncached(any(), any(), any(), any(), anyLong()))
                 .thenReturn(new CategorySuggestion(food.getId(), "Food", 0.9));
-        when(categoryRepository.findById(food.getId())).thenReturn(Optional.of(food));
-        when(transactionRepository.save(any(Transaction.class))).thenReturn(tx);
+        when(categoryRegistry.findById(food.getId())).thenReturn(Optional.of(food));
+        when(transactionRepository.updateCategory(userId, List.of(tx.getId()), food.getId())).thenReturn(1);
 
-        BulkCategorizationJobStatus completed = bulkCategorizationService.startJob(userId, request);
+        BulkCategorizationJobStatus completed = startAndRun(request);
         assertThat(completed.getStatus()).isEqualTo(BulkCategorizationJobStatus.Status.COMPLETED);
         assertThat(completed.getTotalUpdated()).isEqualTo(1);
         assertThat(completed.getTotalProcessed()).isEqualTo(1);
 
-        ArgumentCaptor<Transaction> txCaptor = ArgumentCaptor.forClass(Transaction.class);
-        verify(transactionRepository).save(txCaptor.capture());
-        assertThat(txCaptor.getValue().getCategory()).isEqualTo(food);
+        verify(transactionRepository).updateCategory(userId, List.of(tx.getId()), food.getId());
+    }
+
+    @Test
+    void processNextWorkItem_ShouldIssueOneUpdatePerTargetCategory() {
+        Category transport = new Category();
+        transport.setId(UUID.randomUUID());
+        BulkCategorizationCandidateView dinner = new Candidate(UUID.randomUUID(), "Dinner", BigDecimal.TEN, null);
+        BulkCategorizationCandidateView taxi = new Candidate(UUID.randomUUID(), "Taxi", BigDecimal.TEN, null);
+        BulkCategorizationCandidateView alreadyFood = new Candidate(UUID.randomUUID(), "Groceries", BigDecimal.TEN, food.getId());
+
+        when(transactionRepository.findForBulkCategorization(any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(tx, dinner, taxi, alreadyFood));
+        when(categorizationService.suggestCategoryUncached(eq("Taxi"), any(), any(), any(), anyLong()))
+                .thenReturn(new CategorySuggestion(transport.getId(), "Transport", 0.9));
+        when(categorizationService.suggestCategoryUncached(
+                AdditionalMatchers.not(eq("Taxi")), any(), any(), any(), anyLong()))
+                .thenReturn(new CategorySuggestion(food.getId(), "Food", 0.9));
+        when(categoryRegistry.findById(food.getId())).thenReturn(Optional.of(food));
+        when(categoryRegistry.findById(transport.getId())).thenReturn(Optional.of(transport));
+        when(transactionRepository.updateCategory(any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<List<UUID>>getArgument(1).size());
+
+        BulkCategorizationJobStatus completed = startAndRun(new BulkCategorizationRequest());
+
+        assertThat(completed.getTotalUpdated()).isEqualTo(3);
+        verify(transactionRepository).updateCategory(userId, List.of(tx.getId(), dinner.getId()), food.getId());
+        verify(transactionRepository).updateCategory(userId, List.of(taxi.getId()), transport.getId());
+        verify(transactionRepository, times(2)).updateCategory(any(), any(), any());
     }
 
     @Test
-    void startJob_ShouldSkipLowConfidence() {
+    void processNextWorkItem_ShouldEvaluateEachDistinctDescriptionOnceAcrossChunks() {
+        bulkCategorizationService = newService(2);
+        BulkCategorizationCandidateView lunchAgain = new Candidate(UUID.randomUUID(), "  LUNCH at Cafe ", BigDecimal.valueOf(14), null);
+        BulkCategorizationCandidateView lunchLater = new Candidate(UUID.randomUUID(), "Lunch at cafe", BigDecimal.valueOf(11), null);
+        when(transactionRepository.findForBulkCategorization(any(), any(), any(), any(), any(),
+                eq(TransactionRepository.KEYSET_START), any(), any())).thenReturn(List.of(tx, lunchAgain));
+        when(transactionRepository.findForBulkCategorization(any(), any(), any(), any(), any(),
+                eq(lunchAgain.getId()), any(), any())).thenReturn(List.of(lunchLater));
+        when(categorizationService.suggestCategoryUncached(any(), any(), any(), any(), anyLong()))
+                .thenReturn(new CategorySuggestion(food.getId(), "Food", 0.9));
+        when(categoryRegistry.findById(food.getId())).thenReturn(Optional.of(food));
+        when(transactionRepository.updateCategory(any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<List<UUID>>getArgument(1).size());
+
+        BulkCategorizationJobStatus completed = startAndRun(new BulkCategorizationRequest());
+
+        assertThat(completed.getTotalUpdated()).isEqualTo(3);
+        assertThat(completed.getMemoHits()).isEqualTo(2);
+        assertThat(completed.getMemoMisses()).isEqualTo(1);
+        verify(categorizationService, times(1)).suggestCategoryUncached(any(), any(), any(), any(), anyLong());
+        verify(categorizationService, times(2)).feedbackVersion(userId);
+    }
+
+    @Test
+    void processNextWorkItem_ShouldShareMemoAcrossWorkItemsOfAJob() {
+        bulkCategorizationService = newService(10, 2);
+        BulkCategorizationCandidateView lunchAgain = new Candidate(UUID.randomUUID(), "Lunch at cafe", BigDecimal.valueOf(11), null);
+        when(transactionRepository.findForBulkCategorization(any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(tx), List.of(lunchAgain));
+        when(categorizationService.suggestCategoryUncached(any(), any(), any(), any(), anyLong()))
+                .thenReturn(new CategorySuggestion(food.getId(), "Food", 0.9));
+        when(categoryRegistry.findById(food.getId())).thenReturn(Optional.of(food));
+        when(transactionRepository.updateCategory(any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<List<UUID>>getArgument(1).size());
+
+        BulkCategorizationJobStatus completed = startAndRun(new BulkCategorizationRequest());
+
+        assertThat(completed.getTotalUpdated()).isEqualTo(2);
+        assertThat(completed.getMemoHits()).isEqualTo(1);
+        verify(categorizationService, times(1)).suggestCategoryUncached(any(), any(), any(), any(), anyLong());
+        verify(categorizationService, never()).suggestCategory(any(), any(), any(), any());
+    }
+
+    @Test
+    void processNextWorkItem_ShouldSkipLowConfidence() {
         BulkCategorizationRequest request = new BulkCategorizationRequest();
         request.setConfidenceThreshold(0.8);
 
-        when(transactionRepository.findForBulkCategorization(any(), any(), any(), any(), any()))
+        when(transactionRepository.findForBulkCategorization(any(), any(), any(), any(), any(), any(), any(), any()))
                 .thenReturn(List.of(tx));
-        when(categorizationService.suggestCategory(any(), any(), any(), any()))
+        when(categorizationService.suggestCategoryUncached(any(), any(), any(), any(), anyLong()))
                 .thenReturn(new CategorySuggestion(food.getId(), "Food", 0.5));
 
-        BulkCategorizationJobStatus completed = bulkCategorizationService.startJob(userId, request);
+        BulkCategorizationJobStatus completed = startAndRun(request);
         assertThat(completed.getTotalUpdated()).isEqualTo(0);
         assertThat(completed.getTotalSkippedLowConfidence()).isEqualTo(1);
     }
+
+    @Test
+    void startJob_ShouldPersistPendingJobWithWorkItemsWithoutRunning() {
+        bulkCategorizationService = newService(500, 4);
+
+        BulkCategorizationJobStatus pending = bulkCategorizationService.startJob(userId, new BulkCategorizationRequest());
+
+        assertThat(pending.getStatus()).isEqualTo(BulkCategorizationJobStatus.Status.PENDING);
+        assertThat(pending.getQueuePosition()).isEqualTo(1);
+        assertThat(workItems).hasSize(4).allMatch(item -> item.getJobId().equals(pending.getJobId()));
+        verify(jobExecutor).wakeUp();
+        verify(transactionRepository, never()).findForBulkCategorization(any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void processNextWorkItem_ShouldRetryFailedItemThenFailJob() {
+        when(transactionRepository.findForBulkCategorization(any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenThrow(new IllegalStateException("database unavailable"));
+
+        UUID jobId = bulkCategorizationService.startJob(userId, new BulkCategorizationRequest()).getJobId();
+
+        assertThat(bulkCategorizationService.processNextWorkItem()).isTrue();
+        assertThat(workItems.get(0).getStatus()).isEqualTo(BulkCategorizationWorkItem.Status.PENDING);
+        assertThat(bulkCategorizationService.getJob(userId, jobId).getStatus()).isEqualTo(BulkCategorizationJobStatus.Status.RUNNING);
+
+        assertThat(bulkCategorizationService.processNextWorkItem()).isTrue();
+        assertThat(bulkCategorizationService.processNextWorkItem()).isTrue();
+        assertThat(bulkCategorizationService.processNextWorkItem()).isFalse();
+
+        BulkCategorizationJobStatus failed = bulkCategorizationService.getJob(userId, jobId);
+        assertThat(failed.getStatus()).isEqualTo(BulkCategorizationJobStatus.Status.FAILED);
+        assertThat(failed.getError()).isEqualTo("database unavailable");
+    }
+
+    @Test
+    void processNextWorkItem_ShouldWalkRangeInKeysetChunks() {
+        bulkCategorizationService = newService(2);
+        BulkCategorizationCandidateView second = new Candidate(UUID.randomUUID(), "Dinner", BigDecimal.TEN, null);
+        BulkCategorizationCandidateView third = new Candidate(UUID.randomUUID(), "Snacks", BigDecimal.ONE, null);
+
+        when(transactionRepository.findForBulkCategorization(any(), any(), any(), any(), any(),
+                eq(TransactionRepository.KEYSET_START), isNull(), any())).thenReturn(List.of(tx, second));
+        when(transactionRepository.findForBulkCategorization(any(), any(), any(), any(), any(),
+                eq(second.getId()), isNull(), any())).thenReturn(List.of(third));
+        when(categorizationService.suggestCategoryUncached(any(), any(), any(), any(), anyLong()))
+                .thenReturn(new CategorySuggestion(food.getId(), "Food", 0.1));
+
+        BulkCategorizationJobStatus completed = startAndRun(new BulkCategorizationRequest());
+
+        assertThat(completed.getStatus()).isEqualTo(BulkCategorizationJobStatus.Status.COMPLETED);
+        assertThat(completed.getTotalProcessed()).isEqualTo(3);
+        assertThat(workItems.get(0).getCheckpointId()).isEqualTo(third.getId());
+        verify(transactionRepository, times(2)).findForBulkCategorization(any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void processNextWorkItem_ShouldResumeFromCheckpoint() {
+        UUID jobId = bulkCategorizationService.startJob(userId, new BulkCategorizationRequest()).getJobId();
+        UUID checkpoint = UUID.randomUUID();
+        workItems.get(0).setCheckpointId(checkpoint);
+        when(transactionRepository.findForBulkCategorization(any(), any(), any(), any(), any(), eq(checkpoint), any(), any()))
+                .thenReturn(List.of(tx));
+        when(categorizationService.suggestCategoryUncached(any(), any(), any(), any(), anyLong()))
+                .thenReturn(new CategorySuggestion(food.getId(), "Food", 0.1));
+
+        bulkCategorizationService.processNextWorkItem();
+
+        assertThat(bulkCategorizationService.getJob(userId, jobId).getStatus()).isEqualTo(BulkCategorizationJobStatus.Status.COMPLETED);
+        verify(transactionRepository, never()).findForBulkCategorization(any(), any(), any(), any(), any(),
+                eq(TransactionRepository.KEYSET_START), any(), any());
+    }
+
+    @Test
+    void processNextWorkItem_ShouldStopWhenLeaseIsLost() {
+        UUID jobId = bulkCategorizationService.startJob(userId, new BulkCategorizationRequest()).getJobId();
+        when(transactionRepository.findForBulkCategorization(any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    // another worker claims the item while this chunk is in flight
+                    ReflectionTestUtils.setField(workItems.get(0), "leaseToken", UUID.randomUUID());
+                    return List.of(tx);
+                });
+        when(categorizationService.suggestCategoryUncached(any(), any(), any(), any(), anyLong()))
+                .thenReturn(new CategorySuggestion(food.getId(), "Food", 0.1));
+
+        bulkCategorizationService.processNextWorkItem();
+
+        assertThat(workItems.get(0).getStatus()).isEqualTo(BulkCategorizationWorkItem.Status.RUNNING);
+        assertThat(bulkCategorizationService.getJob(userId, jobId).getTotalProcessed()).isZero();
+        verify(workItemRepository, never()).complete(any(), any());
+        verify(workItemRepository, never()).release(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void processNextWorkItem_ShouldReturnFalseWhenQueueIsEmpty() {
+        assertThat(bulkCategorizationService.processNextWorkItem()).isFalse();
+        verify(transactionRepository, never()).findForBulkCategorization(any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void processNextWorkItem_ShouldNotStartJobWhileUserIsAtRunningJobLimit() {
+        for (int i = 0; i < 2; i++) {
+            UUID running = bulkCategorizationService.startJob(userId, new BulkCategorizationRequest()).getJobId();
+            jobs.get(running).setStatus(BulkCategorizationJob.Status.RUNNING);
+            workItems.stream()
+                    .filter(item -> item.getJobId().equals(running))
+                    .forEach(item -> item.setStatus(BulkCategorizationWorkItem.Status.RUNNING));
+        }
+        UUID waiting = bulkCategorizationService.startJob(userId, new BulkCategorizationRequest()).getJobId();
+
+        assertThat(bulkCategorizationService.processNextWorkItem()).isFalse();
+
+        assertThat(bulkCategorizationService.getJob(userId, waiting).getStatus())
+                .isEqualTo(BulkCategorizationJobStatus.Status.PENDING);
+        verify(jobRepository).lockUserClaims(waiting);
+        verify(workItemRepository, never()).lease(any(), any(), anyLong());
+        verify(jobRepository, never()).markRunning(any());
+    }
+
+    @Test
+    void processNextWorkItem_ShouldReadOnlyIndexedTransactionsForKeywordJobs() {
+        BulkCategorizationJob job = new BulkCategorizationJob();
+        job.setUserId(userId);
+        job.setKeywordTokens("lunch");
+        job.setConfidenceThreshold(0.7);
+        UUID jobId = jobRepository.save(job).getId();
+        workItemRepository.saveAll(BulkCategorizationService.workItems(jobId, 1));
+        when(transactionRepository.findForKeywordRecategorization(eq(userId), eq("lunch"), any(), isNull(), any()))
+                .thenReturn(List.of(tx));
+        when(categorizationService.suggestCategoryUncached(any(), any(), any(), any(), anyLong()))
+                .thenReturn(new CategorySuggestion(food.getId(), "Food", 0.9));
+        when(categoryRegistry.findById(food.getId())).thenReturn(Optional.of(food));
+        when(transactionRepository.updateCategory(userId, List.of(tx.getId()), food.getId())).thenReturn(1);
+
+        while (bulkCategorizationService.processNextWorkItem()) {
+            // drain the queue
+        }
+
+        BulkCategorizationJobStatus completed = bulkCategorizationService.getJob(userId, jobId);
+        assertThat(completed.getStatus()).isEqualTo(BulkCategorizationJobStatus.Status.COMPLETED);
+        assertThat(completed.getTotalUpdated()).isEqualTo(1);
+        verify(transactionRepository, never()).findForBulkCategorization(any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void workItems_ShouldCoverIdSpaceWithContiguousRanges() {
+        UUID jobId = UUID.randomUUID();
+
+        List<BulkCategorizationWorkItem> items = BulkCategorizationService.workItems(jobId, 3);
+
+        assertThat(items).hasSize(3);
+        assertThat(items.get(0).getRangeStart()).isEqualTo(TransactionRepository.KEYSET_START);
+        assertThat(items.get(2).getRangeEnd()).isNull();
+        for (int i = 1; i < items.size(); i++) {
+            assertThat(items.get(i).getRangeStart()).isEqualTo(items.get(i - 1).getRangeEnd());
+        }
+        long firstEnd = items.get(0).getRangeEnd().getMostSignificantBits();
+        long secondEnd = items.get(1).getRangeEnd().getMostSignificantBits();
+        assertThat(Long.compareUnsigned(firstEnd, secondEnd)).isNegative();
+    }
+
+    @Test
+    void failAbandonedItems_ShouldFailItemsOutOfAttemptsAndFinishJob() {
+        UUID jobId = bulkCategorizationService.startJob(userId, new BulkCategorizationRequest()).getJobId();
+        BulkCategorizationWorkItem abandoned = workItems.get(0);
+        abandoned.setStatus(BulkCategorizationWorkItem.Status.RUNNING);
+        when(workItemRepository.lockAbandoned(3)).thenReturn(List.of(abandoned));
+        when(workItemRepository.fail(List.of(abandoned.getId()), "Work item lease expired after 3 attempts"))
+                .thenAnswer(invocation -> {
+                    abandoned.setStatus(BulkCategorizationWorkItem.Status.FAILED);
+                    ReflectionTestUtils.setField(abandoned, "lastError", invocation.getArgument(1));
+                    return 1;
+                });
+
+        assertThat(bulkCategorizationService.failAbandonedItems()).isEqualTo(1);
+
+        BulkCategorizationJobStatus failed = bulkCategorizationService.getJob(userId, jobId);
+        assertThat(failed.getStatus()).isEqualTo(BulkCategorizationJobStatus.Status.FAILED);
+        assertThat(failed.getError()).isEqualTo("Work item lease expired after 3 attempts");
+    }
+
+    @Test
+    void preview_ShouldStreamProposedChangesWithoutWriting() throws IOException {
+        BulkCategorizationCandidateView alreadyFood = new Candidate(UUID.randomUUID(), "Groceries", BigDecimal.TEN, food.getId());
+        BulkCategorizationCandidateView unsure = new Candidate(UUID.randomUUID(), "Misc", BigDecimal.ONE, null);
+        when(transactionRepository.findForBulkCategorization(any(), any(), any(), any(), any(), any(), isNull(), any()))
+                .thenReturn(List.of(tx, alreadyFood, unsure));
+        when(categorizationService.suggestCategoryUncached(eq("Misc"), any(), any(), any(), anyLong()))
+                .thenReturn(new CategorySuggestion(food.getId(), "Food", 0.2));
+        when(categorizationService.suggestCategoryUncached(
+                AdditionalMatchers.not(eq("Misc")), any(), any(), any(), anyLong()))
+                .thenReturn(new CategorySuggestion(food.getId(), "Food", 0.9));
+        when(categoryRegistry.findById(food.getId())).thenReturn(Optional.of(food));
+        BulkCategorizationRequest request = new BulkCategorizationRequest();
+        request.setDryRun(true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        bulkCategorizationService.preview(userId, request, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(1);
+        BulkCategorizationPreviewItem item = new ObjectMapper().readValue(lines.get(0), BulkCategorizationPreviewItem.class);
+        assertThat(item.getTransactionId()).isEqualTo(tx.getId());
+        assertThat(item.getCurrentCategoryId()).isNull();
+        assertThat(item.getSuggestedCategoryId()).isEqualTo(food.getId());
+        assertThat(item.getSuggestedCategoryName()).isEqualTo("Food");
+        assertThat(item.getConfidence()).isEqualTo(0.9);
+        verify(transactionRepository, never()).updateCategory(any(), any(), any());
+        verify(jobRepository, never()).save(any());
+    }
+
+    @Test
+    void cancelJob_ShouldStopRunningItemAtNextChunkAndDropPendingItems() {
+        bulkCategorizationService = newService(1, 2);
+        BulkCategorizationCandidateView second = new Candidate(UUID.randomUUID(), "Dinner", BigDecimal.TEN, null);
+        UUID jobId = bulkCategorizationService.startJob(userId, new BulkCategorizationRequest()).getJobId();
+        when(transactionRepository.findForBulkCategorization(any(), any(), any(), any(), any(),
+                eq(TransactionRepository.KEYSET_START), any(), any())).thenReturn(List.of(tx));
+        when(transactionRepository.findForBulkCategorization(any(), any(), any(), any(), any(),
+                eq(tx.getId()), any(), any())).thenAnswer(invocation -> {
+                    // the user cancels while the second chunk is being evaluated
+                    bulkCategorizationService.cancelJob(userId, jobId);
+                    return List.of(second);
+                });
+        when(categorizationService.suggestCategoryUncached(any(), any(), any(), any(), anyLong()))
+                .thenReturn(new CategorySuggestion(food.getId(), "Food", 0.1));
+
+        assertThat(bulkCategorizationService.processNextWorkItem()).isTrue();
+        assertThat(bulkCategorizationService.processNextWorkItem()).isFalse();
+
+        BulkCategorizationJobStatus cancelled = bulkCategorizationService.getJob(userId, jobId);
+        assertThat(cancelled.getStatus()).isEqualTo(BulkCategorizationJobStatus.Status.CANCELLED);
+        assertThat(cancelled.getTotalProcessed()).isEqualTo(1);
+        assertThat(workItems).allMatch(item -> item.getStatus() == BulkCategorizationWorkItem.Status.CANCELLED);
+        verify(throttle, times(2)).awaitCapacity();
+    }
+
+    @Test
+    void cancelJob_ShouldRejectOtherUsersJob() {
+        UUID jobId = bulkCategorizationService.startJob(userId, new BulkCategorizationRequest()).getJobId();
+
+        assertThatThrownBy(() -> bulkCategorizationService.cancelJob(UUID.randomUUID(), jobId))
+                .isInstanceOf(ForbiddenOperationException.class);
+        assertThat(bulkCategorizationService.getJob(userId, jobId).getStatus()).isEqualTo(BulkCategorizationJobStatus.Status.PENDING);
+    }
+
+    @Test
+    void getJob_ShouldReturnNullForUnknownJob() {
+        assertThat(bulkCategorizationService.getJob(userId, UUID.randomUUID())).isNull();
+    }
+
+    @Test
+    void getJob_ShouldRejectOtherUsersJob() {
+        UUID jobId = bulkCategorizationService.startJob(userId, new BulkCategorizationRequest()).getJobId();
+
+        assertThatThrownBy(() -> bulkCategorizationService.getJob(UUID.randomUUID(), jobId))
+                .isInstanceOf(ForbiddenOperationException.class);
+    }
+
+    private BulkCategorizationService newService(int chunkSize) {
+        return newService(chunkSize, 1);
+    }
+
+    private BulkCategorizationService newService(int chunkSize, int partitions) {
+        return new BulkCategorizationService(transactionRepository, jobRepository, workItemRepository, categoryRegistry,
+                categorizationService, jobExecutor, throttle, mock(PlatformTransactionManager.class), new ObjectMapper(),
+                chunkSize, partitions, 120, 3, 2, 50_000, 16, 24);
+    }
+
+    private BulkCategorizationJobStatus startAndRun(BulkCategorizationRequest request) {
+        UUID jobId = bulkCategorizationService.startJob(userId, request).getJobId();
+        while (bulkCategorizationService.processNextWorkItem()) {
+            // drain the queue
+        }
+        return bulkCategorizationService.getJob(userId, jobId);
+    }
+
+    /**
+     * Backs the job and work item repositories with in-memory state, applying the queue
+     * operations like the SQL does.
+     */
+    private void stubQueue() {
+        lenient().when(jobExecutor.parallelMap(any(), any())).thenAnswer(invocation -> invocation.<List<Object>>getArgument(0)
+                .stream()
+                .map(invocation.<Function<Object, Object>>getArgument(1))
+                .toList());
+        lenient().when(jobRepository.save(any())).thenAnswer(invocation -> {
+            BulkCategorizationJob job = invocation.getArgument(0);
+            if (job.getId() == null) {
+                ReflectionTestUtils.setField(job, "id", UUID.randomUUID());
+            }
+            jobs.put(job.getId(), job);
+            return job;
+        });
+        lenient().when(jobRepository.findById(any()))
+                .thenAnswer(invocation -> Optional.ofNullable(jobs.get(invocation.<UUID>getArgument(0))));
+        lenient().when(jobRepository.markRunning(any())).thenAnswer(invocation -> {
+            BulkCategorizationJob job = jobs.get(invocation.<UUID>getArgument(0));
+            if (job.getStatus() != BulkCategorizationJob.Status.PENDING) {
+                return 0;
+            }
+            job.setStatus(BulkCategorizationJob.Status.RUNNING);
+            ReflectionTestUtils.setField(job, "startedAt", Instant.now());
+            return 1;
+        });
+        lenient().when(jobRepository.canClaim(any(), anyInt())).thenAnswer(invocation -> {
+            BulkCategorizationJob job = jobs.get(invocation.<UUID>getArgument(0));
+            long running = jobs.values().stream()
+                    .filter(other -> other.getUserId().equals(job.getUserId()))
+                    .filter(other -> other.getStatus() == BulkCategorizationJob.Status.RUNNING)
+                    .count();
+            return job.getStatus() == BulkCategorizationJob.Status.RUNNING || running < invocation.<Integer>getArgument(1);
+        });
+        lenient().when(jobRepository.addProgress(any(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong()))
+                .thenAnswer(invocation -> {
+                    BulkCategorizationJob job = jobs.get(invocation.<UUID>getArgument(0));
+                    job.setTotalProcessed(job.getTotalProcessed() + invocation.<Long>getArgument(1));
+                    job.setTotalUpdated(job.getTotalUpdated() + invocation.<Long>getArgument(2));
+                    job.setTotalSkippedLowConfidence(job.getTotalSkippedLowConfidence() + invocation.<Long>getArgument(3));
+                    job.setMemoHits(job.getMemoHits() + invocation.<Long>getArgument(4));
+                    job.setMemoMisses(job.getMemoMisses() + invocation.<Long>getArgument(5));
+                    return 1;
+                });
+        lenient().when(jobRepository.finishIfDone(any())).thenAnswer(invocation -> {
+            BulkCategorizationJob job = jobs.get(invocation.<UUID>getArgument(0));
+            List<BulkCategorizationWorkItem> items = workItems.stream()
+                    .filter(item -> item.getJobId().equals(job.getId()))
+                    .toList();
+            if (items.stream().anyMatch(item -> item.getStatus() == BulkCategorizationWorkItem.Status.PENDING
+                    || item.getStatus() == BulkCategorizationWorkItem.Status.RUNNING)) {
+                return 0;
+            }
+            Optional<BulkCategorizationWorkItem> failed = items.stream()
+                    .filter(item -> item.getStatus() == BulkCategorizationWorkItem.Status.FAILED)
+                    .findFirst();
+            job.setStatus(failed.isPresent() ? BulkCategorizationJob.Status.FAILED : BulkCategorizationJob.Status.COMPLETED);
+            job.setError(failed.map(BulkCategorizationWorkItem::getLastError).orElse(null));
+            ReflectionTestUtils.setField(job, "finishedAt", Instant.now());
+            return 1;
+        });
+
+        lenient().when(jobRepository.cancel(any())).thenAnswer(invocation -> {
+            BulkCategorizationJob job = jobs.get(invocation.<UUID>getArgument(0));
+            if (job.getStatus() != BulkCategorizationJob.Status.PENDING && job.getStatus() != BulkCategorizationJob.Status.RUNNING) {
+                return 0;
+            }
+            job.setStatus(BulkCategorizationJob.Status.CANCELLED);
+            ReflectionTestUtils.setField(job, "finishedAt", Instant.now());
+            return 1;
+        });
+        lenient().when(workItemRepository.cancelUnfinished(any())).thenAnswer(invocation -> {
+            int cancelled = 0;
+            for (BulkCategorizationWorkItem item : workItems) {
+                if (item.getJobId().equals(invocation.getArgument(0))
+                        && (item.getStatus() == BulkCategorizationWorkItem.Status.PENDING
+                        || item.getStatus() == BulkCategorizationWorkItem.Status.RUNNING)) {
+                    item.setStatus(BulkCategorizationWorkItem.Status.CANCELLED);
+                    ReflectionTestUtils.setField(item, "leaseToken", null);
+                    cancelled++;
+                }
+            }
+            return cancelled;
+        });
+        lenient().when(workItemRepository.saveAll(any())).thenAnswer(invocation -> {
+            Iterable<BulkCategorizationWorkItem> items = invocation.getArgument(0);
+            for (BulkCategorizationWorkItem item : items) {
+                ReflectionTestUtils.setField(item, "id", workItemIds.incrementAndGet());
+                workItems.add(item);
+            }
+            return items;
+        });
+        lenient().when(workItemRepository.lockNextClaimable(anyInt(), anyInt())).thenAnswer(invocation -> workItems.stream()
+                .filter(item -> item.getStatus() == BulkCategorizationWorkItem.Status.PENDING)
+                .filter(item -> item.getAttempts() < invocation.<Integer>getArgument(0))
+                .findFirst());
+        lenient().when(workItemRepository.lease(any(), any(), anyLong())).thenAnswer(invocation -> {
+            BulkCategorizationWorkItem item = workItem(invocation.getArgument(0));
+            item.setStatus(BulkCategorizationWorkItem.Status.RUNNING);
+            ReflectionTestUtils.setField(item, "leaseToken", invocation.getArgument(1));
+            ReflectionTestUtils.setField(item, "attempts", item.getAttempts() + 1);
+            return 1;
+        });
+        lenient().when(workItemRepository.recordProgress(any(), any(), any(), anyLong())).thenAnswer(invocation -> {
+            BulkCategorizationWorkItem item = workItem(invocation.getArgument(0));
+            if (!Objects.equals(invocation.getArgument(1), item.getLeaseToken())) {
+                return 0;
+            }
+            item.setCheckpointId(invocation.getArgument(2));
+            return 1;
+        });
+        lenient().when(workItemRepository.complete(any(), any())).thenAnswer(invocation -> {
+            BulkCategorizationWorkItem item = workItem(invocation.getArgument(0));
+            if (!Objects.equals(invocation.getArgument(1), item.getLeaseToken())) {
+                return 0;
+            }
+            item.setStatus(BulkCategorizationWorkItem.Status.DONE);
+            return 1;
+        });
+        lenient().when(workItemRepository.release(any(), any(), any(), anyInt())).thenAnswer(invocation -> {
+            BulkCategorizationWorkItem item = workItem(invocation.getArgument(0));
+            if (!Objects.equals(invocation.getArgument(1), item.getLeaseToken())) {
+                return 0;
+            }
+            item.setStatus(item.getAttempts() >= invocation.<Integer>getArgument(3)
+                    ? BulkCategorizationWorkItem.Status.FAILED
+                    : BulkCategorizationWorkItem.Status.PENDING);
+            ReflectionTestUtils.setField(item, "lastError", invocation.getArgument(2));
+            return 1;
+        });
+    }
+
+    private BulkCategorizationWorkItem workItem(Long id) {
+        return workItems.stream().filter(item -> item.getId().equals(id)).findFirst().orElseThrow();
+    }
+
+    private record Candidate(UUID id, String description, BigDecimal amount, UUID categoryId)
+            implements BulkCategorizationCandidateView {
+
+        @Override
+        public UUID getId() {
+            return id;
+        }
+
+        @Override
+        public String getDescription() {
+            return description;
+        }
+
+        @Override
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        @Override
+        public TransactionType getTransactionType() {
+            return TransactionType.EXPENSE;
+        }
+
+        @Override
+        public UUID getCategoryId() {
+            return categoryId;
+        }
+    }
 }
@@ -0,0 +1,105 @@
+package com.smartbudget.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkJobExecutorTest {
+
+    private final BulkJobExecutor executor = new BulkJobExecutor(2, 60_000, 4, 8);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.destroy();
+    }
+
+    @Test
+    void start_ShouldDrainQueueWithAtMostConfiguredWorkers() throws InterruptedException {
+        ConcurrentLinkedQueue<Integer> queue = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < 20; i++) {
+            queue.add(i);
+        }
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        CountDownLatch drained = new CountDownLatch(20);
+
+        executor.start(() -> {
+            Integer item = queue.poll();
+            if (item == null) {
+                return false;
+            }
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            sleepQuietly();
+            active.decrementAndGet();
+            drained.countDown();
+            return true;
+        });
+
+        assertThat(drained.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(maxActive.get()).isBetween(1, 2);
+    }
+
+    @Test
+    void wakeUp_ShouldResumeIdleWorkersBeforePollInterval() throws InterruptedException {
+        ConcurrentLinkedQueue<Integer> queue = new ConcurrentLinkedQueue<>();
+        CountDownLatch polledEmpty = new CountDownLatch(2);
+        CountDownLatch ran = new CountDownLatch(1);
+
+        executor.start(() -> {
+            if (queue.poll() == null) {
+                polledEmpty.countDown();
+                return false;
+            }
+            ran.countDown();
+            return true;
+        });
+        assertThat(polledEmpty.await(5, TimeUnit.SECONDS)).isTrue();
+
+        queue.add(1);
+        executor.wakeUp();
+
+        assertThat(ran.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void parallelMap_ShouldPreserveOrderAboveAndBelowThreshold() {
+        List<Integer> small = IntStream.range(0, 4).boxed().toList();
+        List<Integer> large = IntStream.range(0, 1000).boxed().toList();
+
+        assertThat(executor.parallelMap(small, i -> i * 2)).containsExactly(0, 2, 4, 6);
+        assertThat(executor.parallelMap(large, i -> i * 2))
+                .isEqualTo(large.stream().map(i -> i * 2).toList());
+    }
+
+    @Test
+    void parallelMap_ShouldSpreadLargeListsOverThreads() {
+        List<Integer> items = IntStream.range(0, 1000).boxed().toList();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        executor.parallelMap(items, i -> {
+            threads.add(Thread.currentThread().getName());
+            sleepQuietly();
+            return i;
+        });
+
+        assertThat(threads).hasSizeGreaterThan(1);
+    }
+
+    private static void sleepQuietly() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
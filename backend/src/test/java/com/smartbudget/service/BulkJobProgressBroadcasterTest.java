@@ -0,0 +1,147 @@
+package com.smartbudget.service;
+
+import com.smartbudget.dto.BulkCategorizationJobStatus;
+import com.smartbudget.dto.BulkCategorizationProgressEvent;
+import com.smartbudget.entity.BulkCategorizationJob;
+import com.smartbudget.entity.BulkCategorizationWorkItem;
+import com.smartbudget.exception.ForbiddenOperationException;
+import com.smartbudget.exception.ResourceNotFoundException;
+import com.smartbudget.repository.BulkCategorizationJobRepository;
+import com.smartbudget.repository.BulkCategorizationWorkItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BulkJobProgressBroadcasterTest {
+
+    @Mock
+    private BulkCategorizationJobRepository jobRepository;
+
+    @Mock
+    private BulkCategorizationWorkItemRepository workItemRepository;
+
+    private BulkJobProgressBroadcaster broadcaster;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new BulkJobProgressBroadcaster(jobRepository, workItemRepository, 60_000);
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    void fractionComplete_ShouldWeighCheckpointsByRangeWidth() {
+        UUID jobId = UUID.randomUUID();
+        List<BulkCategorizationWorkItem> items = BulkCategorizationService.workItems(jobId, 4);
+        items.get(0).setStatus(BulkCategorizationWorkItem.Status.DONE);
+        // halfway through the second quarter
+        items.get(1).setCheckpointId(new UUID(Long.divideUnsigned(-1L, 8) * 3, 0L));
+
+        assertThat(BulkJobProgressBroadcaster.fractionComplete(items)).isCloseTo(0.375, within(1e-6));
+    }
+
+    @Test
+    void progress_ShouldDeriveThroughputAndEta() {
+        BulkCategorizationJob job = job(BulkCategorizationJob.Status.RUNNING);
+        job.setTotalProcessed(1000);
+        Instant started = Instant.parse("2026-01-01T00:00:00Z");
+        ReflectionTestUtils.setField(job, "startedAt", started);
+        List<BulkCategorizationWorkItem> items = BulkCategorizationService.workItems(job.getId(), 4);
+        items.get(0).setStatus(BulkCategorizationWorkItem.Status.DONE);
+
+        BulkCategorizationProgressEvent event = BulkJobProgressBroadcaster.progress(job, items, started.plusSeconds(10));
+
+        assertThat(event.getStatus()).isEqualTo(BulkCategorizationJobStatus.Status.RUNNING);
+        assertThat(event.getFractionComplete()).isCloseTo(0.25, within(1e-6));
+        assertThat(event.getThroughputPerSecond()).isCloseTo(100.0, within(1e-6));
+        assertThat(event.getEtaSeconds()).isEqualTo(30L);
+    }
+
+    @Test
+    void progress_ShouldReportNoEtaBeforeAnyProgress() {
+        BulkCategorizationJob job = job(BulkCategorizationJob.Status.PENDING);
+
+        BulkCategorizationProgressEvent event = BulkJobProgressBroadcaster.progress(
+                job, BulkCategorizationService.workItems(job.getId(), 2), Instant.now());
+
+        assertThat(event.getFractionComplete()).isZero();
+        assertThat(event.getEtaSeconds()).isNull();
+    }
+
+    @Test
+    void subscribe_ShouldRejectOtherUsersJobs() {
+        BulkCategorizationJob job = job(BulkCategorizationJob.Status.RUNNING);
+        UUID jobId = job.getId();
+        when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
+        UUID otherUser = UUID.randomUUID();
+
+        assertThatThrownBy(() -> broadcaster.subscribe(otherUser, jobId))
+                .isInstanceOf(ForbiddenOperationException.class);
+        assertThatThrownBy(() -> broadcaster.subscribe(userId, UUID.randomUUID()))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void subscribe_ShouldNotRegisterFinishedJobs() {
+        BulkCategorizationJob job = job(BulkCategorizationJob.Status.COMPLETED);
+        when(jobRepository.findById(job.getId())).thenReturn(Optional.of(job));
+
+        broadcaster.subscribe(userId, job.getId());
+
+        assertThat(broadcaster.watchedJobs()).isZero();
+    }
+
+    @Test
+    void broadcast_ShouldSendOnlyMovedJobsAndDropFinishedOnes() {
+        BulkCategorizationJob job = job(BulkCategorizationJob.Status.RUNNING);
+        when(jobRepository.findById(job.getId())).thenReturn(Optional.of(job));
+        when(jobRepository.findAllById(any())).thenReturn(List.of(job));
+        when(workItemRepository.findByJobIdIn(anyCollection()))
+                .thenReturn(BulkCategorizationService.workItems(job.getId(), 2));
+        broadcaster.subscribe(userId, job.getId());
+        broadcaster.subscribe(userId, job.getId());
+
+        assertThat(broadcaster.watchedJobs()).isEqualTo(1);
+        assertThat(broadcaster.broadcast()).isZero();
+
+        job.setTotalProcessed(500);
+        assertThat(broadcaster.broadcast()).isEqualTo(1);
+
+        job.setStatus(BulkCategorizationJob.Status.COMPLETED);
+        assertThat(broadcaster.broadcast()).isEqualTo(1);
+        assertThat(broadcaster.watchedJobs()).isZero();
+    }
+
+    @Test
+    void broadcast_ShouldNotQueryWithoutWatchers() {
+        assertThat(broadcaster.broadcast()).isZero();
+
+        verify(jobRepository, never()).findAllById(any());
+    }
+
+    private BulkCategorizationJob job(BulkCategorizationJob.Status status) {
+        BulkCategorizationJob job = new BulkCategorizationJob();
+        ReflectionTestUtils.setField(job, "id", UUID.randomUUID());
+        job.setUserId(userId);
+        job.setStatus(status);
+        return job;
+    }
+}
@@ -0,0 +1,77 @@
+package com.smartbudget.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BulkThrottleTest {
+
+    private HikariPoolMXBean metrics;
+    private BulkThrottle throttle;
+
+    @BeforeEach
+    void setUp() {
+        HikariDataSource dataSource = mock(HikariDataSource.class);
+        metrics = mock(HikariPoolMXBean.class);
+        when(dataSource.getHikariPoolMXBean()).thenReturn(metrics);
+        when(dataSource.getMaximumPoolSize()).thenReturn(20);
+        throttle = new BulkThrottle(dataSource, 0.75, 50, 400, 100);
+    }
+
+    @Test
+    void underPressure_ShouldTripOnWaitingThreadsOrActiveShare() {
+        when(metrics.getActiveConnections()).thenReturn(10);
+        assertThat(throttle.underPressure()).isFalse();
+
+        when(metrics.getThreadsAwaitingConnection()).thenReturn(1);
+        assertThat(throttle.underPressure()).isTrue();
+
+        when(metrics.getThreadsAwaitingConnection()).thenReturn(0);
+        when(metrics.getActiveConnections()).thenReturn(15);
+        assertThat(throttle.underPressure()).isTrue();
+    }
+
+    @Test
+    void adjust_ShouldBackOffExponentiallyAndRecover() {
+        assertThat(throttle.adjust(true)).isEqualTo(50);
+        assertThat(throttle.adjust(true)).isEqualTo(100);
+        assertThat(throttle.adjust(true)).isEqualTo(200);
+        assertThat(throttle.adjust(true)).isEqualTo(400);
+        assertThat(throttle.adjust(true)).isEqualTo(400);
+
+        assertThat(throttle.adjust(false)).isEqualTo(200);
+        assertThat(throttle.adjust(false)).isEqualTo(100);
+        assertThat(throttle.adjust(false)).isEqualTo(50);
+        assertThat(throttle.adjust(false)).isZero();
+    }
+
+    @Test
+    void adjustIfDue_ShouldAdjustOncePerSamplingInterval() {
+        when(metrics.getThreadsAwaitingConnection()).thenReturn(1);
+        long start = System.nanoTime();
+
+        assertThat(throttle.adjustIfDue(start)).isEqualTo(50);
+        // other workers within the interval reuse the delay instead of doubling it again
+        assertThat(throttle.adjustIfDue(start + TimeUnit.MILLISECONDS.toNanos(1))).isEqualTo(50);
+        assertThat(throttle.adjustIfDue(start + TimeUnit.MILLISECONDS.toNanos(99))).isEqualTo(50);
+
+        assertThat(throttle.adjustIfDue(start + TimeUnit.MILLISECONDS.toNanos(100))).isEqualTo(100);
+    }
+
+    @Test
+    void awaitCapacity_ShouldNotThrottleWithoutHikariPool() {
+        BulkThrottle unpooled = new BulkThrottle(mock(DataSource.class), 0.75, 50, 400, 100);
+
+        unpooled.awaitCapacity();
+
+        assertThat(unpooled.currentDelayMillis()).isZero();
+    }
+}
@@ -0,0 +1,109 @@
+package com.smartbudget.service;
+
+import com.smartbudget.entity.CategorizationRule;
+import com.smartbudget.entity.Category;
+import com.smartbudget.entity.TransactionType;
+import com.smartbudget.repository.CategorizationRuleRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CategorizationRuleCacheTest {
+
+    @Mock
+    private CategorizationRuleRepository ruleRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private CategorizationRuleCache ruleCache;
+
+    @Test
+    void current_ShouldLoadOnceAndServeFromMemory() {
+        when(ruleRepository.findRuleSetVersion()).thenReturn(Optional.of(1L));
+        when(ruleRepository.findAllWithCategory()).thenReturn(List.of(rule("coffee")));
+
+        CategorizationRuleSnapshot first = ruleCache.current();
+        CategorizationRuleSnapshot second = ruleCache.current();
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.matcherFor(TransactionType.EXPENSE).size()).isEqualTo(1);
+        assertThat(first.matcherFor(TransactionType.INCOME).size()).isZero();
+        verify(ruleRepository, times(1)).findAllWithCategory();
+    }
+
+    @Test
+    void refreshIfChanged_ShouldSwapSnapshotOnlyWhenVersionMoves() {
+        when(ruleRepository.findRuleSetVersion()).thenReturn(Optional.of(1L), Optional.of(1L), Optional.of(2L));
+        when(ruleRepository.findAllWithCategory()).thenReturn(List.of(rule("coffee")), List.of(rule("coffee"), rule("lunch")));
+
+        CategorizationRuleSnapshot initial = ruleCache.current();
+        assertThat(ruleCache.refreshIfChanged()).isEqualTo(1L);
+        assertThat(ruleCache.current()).isSameAs(initial);
+
+        assertThat(ruleCache.refreshIfChanged()).isEqualTo(2L);
+        assertThat(ruleCache.current()).isNotSameAs(initial);
+        assertThat(ruleCache.current().matcherFor(TransactionType.EXPENSE).size()).isEqualTo(2);
+    }
+
+    @Test
+    void refreshIfChanged_ShouldPublishVersionChange() {
+        when(ruleRepository.findRuleSetVersion()).thenReturn(Optional.of(1L), Optional.of(2L));
+        when(ruleRepository.findAllWithCategory()).thenReturn(List.of(rule("coffee")), List.of(rule("Groceries")));
+
+        ruleCache.current();
+        ruleCache.refreshIfChanged();
+
+        ArgumentCaptor<CategorizationRulesChangedEvent> event = ArgumentCaptor.forClass(CategorizationRulesChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().previousVersion()).isEqualTo(1L);
+        assertThat(event.getValue().version()).isEqualTo(2L);
+    }
+
+    @Test
+    void refreshIfChanged_ShouldNotPublishWhenVersionIsUnchanged() {
+        when(ruleRepository.findRuleSetVersion()).thenReturn(Optional.of(2L));
+        when(ruleRepository.findAllWithCategory()).thenReturn(List.of(rule("coffee")));
+
+        ruleCache.current();
+        assertThat(ruleCache.refreshIfChanged()).isEqualTo(2L);
+
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void pollForChanges_ShouldKeepSnapshotWhenReloadFails() {
+        when(ruleRepository.findRuleSetVersion()).thenReturn(Optional.of(1L)).thenThrow(new IllegalStateException("db down"));
+        when(ruleRepository.findAllWithCategory()).thenReturn(new ArrayList<>());
+
+        CategorizationRuleSnapshot initial = ruleCache.current();
+        ruleCache.pollForChanges();
+
+        assertThat(ruleCache.current()).isSameAs(initial);
+    }
+
+    private CategorizationRule rule(String keyword) {
+        Category category = new Category();
+        category.setId(UUID.randomUUID());
+        category.setName("Food");
+        return new CategorizationRule(keyword, TransactionType.EXPENSE, category);
+    }
+}
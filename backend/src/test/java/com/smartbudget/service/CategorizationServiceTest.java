@@ -1,18 +1,15 @@
 package com.smartbudget.service;
 
 import com.smartbudget.dto.CategorySuggestion;
+import com.smartbudget.dto.CategorySuggestionRequest;
 import com.smartbudget.entity.CategorizationRule;
 import com.smartbudget.entity.Category;
 import com.smartbudget.entity.CategoryType;
 import com.smartbudget.entity.TransactionType;
 import com.smartbudget.repository.CategorizationRuleRepository;
-import com.smartbudget.repository.CategoryRepository;
-import com.smartbudget.repository.CategorizationFeedbackRepository;
-import com.smartbudget.repository.projection.FeedbackCategoryCount;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -23,6 +20,10 @@ import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,20 +33,32 @@ class CategorizationServiceTest {
     private CategorizationRuleRepository ruleRepository;
 
     @Mock
-    private CategoryRepository categoryRepository;
+    private CategoryRegistry categoryRegistry;
 
     @Mock
-    private CategorizationFeedbackRepository feedbackRepository;
+    private PersonalizationIndex personalizationIndex;
+
+    @Mock
+    private CategoryClassifier categoryClassifier;
+
+    @Mock
+    private MerchantDictionary merchantDictionary;
 
-    @InjectMocks
     private CategorizationService categorizationService;
 
+    private CategorySuggestionCache suggestionCache;
+
     private Category food;
     private Category rent;
     private Category shopping;
 
     @BeforeEach
     void setUp() {
+        suggestionCache = new CategorySuggestionCache(100, 10);
+        categorizationService = new CategorizationService(
+                new CategorizationRuleCache(ruleRepository, event -> { }), categoryRegistry, personalizationIndex,
+                suggestionCache, categoryClassifier, merchantDictionary,
+                true, 256);
         food = createCategory("Food", CategoryType.EXPENSE);
         rent = createCategory("Rent", CategoryType.EXPENSE);
         shopping = createCategory("Shopping", CategoryType.EXPENSE);
@@ -54,7 +67,7 @@ class CategorizationServiceTest {
     @Test
     void suggestCategory_ShouldReturnExactMatch() {
         CategorizationRule rule = createRule(food, "coffee", TransactionType.EXPENSE);
-        when(ruleRepository.findByTransactionType(TransactionType.EXPENSE)).thenReturn(List.of(rule));
+        when(ruleRepository.findAllWithCategory()).thenReturn(List.of(rule));
 
         CategorySuggestion suggestion = categorizationService.suggestCategory(
                 "Morning coffee at Starbucks", new BigDecimal("8.50"), TransactionType.EXPENSE);
@@ -67,7 +80,7 @@ class CategorizationServiceTest {
     @Test
     void suggestCategory_ShouldReturnPartialMatchWhenEmbedded() {
         CategorizationRule rule = createRule(rent, "rent", TransactionType.EXPENSE);
-        when(ruleRepository.findByTransactionType(TransactionType.EXPENSE)).thenReturn(List.of(rule));
+        when(ruleRepository.findAllWithCategory()).thenReturn(List.of(rule));
 
         CategorySuggestion suggestion = categorizationService.suggestCategory(
                 "Rental fees due", BigDecimal.valueOf(900), TransactionType.EXPENSE);
@@ -79,8 +92,8 @@ class CategorizationServiceTest {
 
     @Test
     void suggestCategory_ShouldUseLargeAmountHeuristicForExpense() {
-        when(ruleRepository.findByTransactionType(TransactionType.EXPENSE)).thenReturn(Collections.emptyList());
-        when(categoryRepository.findFirstByNameIgnoreCase("Rent")).thenReturn(Optional.of(rent));
+        when(ruleRepository.findAllWithCategory()).thenReturn(Collections.emptyList());
+        when(categoryRegistry.findByName("Rent")).thenReturn(Optional.of(rent));
 
         CategorySuggestion suggestion = categorizationService.suggestCategory(
                 "Monthly payment", BigDecimal.valueOf(2000), TransactionType.EXPENSE);
@@ -94,7 +107,7 @@ class CategorizationServiceTest {
     void suggestCategory_ShouldChooseHighestConfidenceMatch() {
         CategorizationRule partialRule = createRule(shopping, "shop", TransactionType.EXPENSE);
         CategorizationRule exactRule = createRule(food, "groceries", TransactionType.EXPENSE);
-        when(ruleRepository.findByTransactionType(TransactionType.EXPENSE)).thenReturn(List.of(partialRule, exactRule));
+        when(ruleRepository.findAllWithCategory()).thenReturn(List.of(partialRule, exactRule));
 
         CategorySuggestion suggestion = categorizationService.suggestCategory(
                 "Weekly groceries from local shop", null, TransactionType.EXPENSE);
@@ -104,9 +117,75 @@ class CategorizationServiceTest {
         assertThat(suggestion.getConfidence()).isEqualTo(CategorizationService.EXACT_MATCH_CONFIDENCE);
     }
 
+    @Test
+    void suggestCategory_ShouldUseMerchantDictionaryBelowExactRules() {
+        when(ruleRepository.findAllWithCategory()).thenReturn(List.of(createRule(rent, "rent", TransactionType.EXPENSE)));
+        when(merchantDictionary.findCategoryName("Amazon Prime Video rental", TransactionType.EXPENSE))
+                .thenReturn("Shopping");
+        when(categoryRegistry.findByName("Shopping")).thenReturn(Optional.of(shopping));
+
+        CategorySuggestion suggestion = categorizationService.suggestCategory(
+                "Amazon Prime Video rental", BigDecimal.valueOf(20), TransactionType.EXPENSE);
+
+        assertThat(suggestion.getCategoryId()).isEqualTo(shopping.getId());
+        assertThat(suggestion.getConfidence()).isEqualTo(CategorizationService.DICTIONARY_MATCH_CONFIDENCE);
+    }
+
+    @Test
+    void suggestCategory_ShouldFallBackToFuzzyMatchForMisspelledMerchant() {
+        CategorizationRule rule = createRule(food, "starbucks", TransactionType.EXPENSE);
+        when(ruleRepository.findAllWithCategory()).thenReturn(List.of(rule));
+
+        CategorySuggestion suggestion = categorizationService.suggestCategory(
+                "STARBUKS #1234", BigDecimal.valueOf(20), TransactionType.EXPENSE);
+
+        assertThat(suggestion).isNotNull();
+        assertThat(suggestion.getCategoryId()).isEqualTo(food.getId());
+        assertThat(suggestion.getConfidence()).isEqualTo(CategorizationService.FUZZY_MATCH_CONFIDENCE);
+    }
+
+    @Test
+    void suggestCategory_ShouldPreferPartialMatchOverFuzzyMatch() {
+        CategorizationRule partialRule = createRule(rent, "rent", TransactionType.EXPENSE);
+        CategorizationRule fuzzyRule = createRule(shopping, "rentals", TransactionType.EXPENSE);
+        when(ruleRepository.findAllWithCategory()).thenReturn(List.of(partialRule, fuzzyRule));
+
+        CategorySuggestion suggestion = categorizationService.suggestCategory(
+                "Rentalz", BigDecimal.valueOf(20), TransactionType.EXPENSE);
+
+        assertThat(suggestion.getCategoryId()).isEqualTo(rent.getId());
+        assertThat(suggestion.getConfidence()).isEqualTo(CategorizationService.PARTIAL_MATCH_CONFIDENCE);
+    }
+
+    @Test
+    void suggestCategory_ShouldUseConfidentClassifierPrediction() {
+        when(categoryClassifier.trainedExamples()).thenReturn(500L);
+        when(categoryClassifier.predict("Corner bodega", BigDecimal.valueOf(20), TransactionType.EXPENSE))
+                .thenReturn(new NaiveBayesModel.Prediction(food.getId(), 0.8));
+        when(categoryRegistry.findById(food.getId())).thenReturn(Optional.of(food));
+
+        CategorySuggestion suggestion = categorizationService.suggestCategory(
+                "Corner bodega", BigDecimal.valueOf(20), TransactionType.EXPENSE);
+
+        assertThat(suggestion.getCategoryId()).isEqualTo(food.getId());
+        assertThat(suggestion.getConfidence())
+                .isEqualTo(CategorizationService.CLASSIFIER_CONFIDENCE_CEILING * 0.8);
+    }
+
+    @Test
+    void suggestCategory_ShouldIgnoreClassifierUntilEnoughTrainingData() {
+        when(categoryClassifier.trainedExamples()).thenReturn(10L);
+
+        CategorySuggestion suggestion = categorizationService.suggestCategory(
+                "Corner bodega", BigDecimal.valueOf(20), TransactionType.EXPENSE);
+
+        assertThat(suggestion).isNull();
+        verify(categoryClassifier, never()).predict(any(), any(), any());
+    }
+
     @Test
     void suggestCategory_WithNoMatches_ShouldReturnNull() {
-        when(ruleRepository.findByTransactionType(TransactionType.EXPENSE)).thenReturn(Collections.emptyList());
+        when(ruleRepository.findAllWithCategory()).thenReturn(Collections.emptyList());
 
         CategorySuggestion suggestion = categorizationService.suggestCategory(
                 "Unrecognized description", BigDecimal.valueOf(20), TransactionType.EXPENSE);
@@ -116,8 +195,8 @@ class CategorizationServiceTest {
 
     @Test
     void suggestCategory_SmallExpenseAmountPrefersFood() {
-        when(ruleRepository.findByTransactionType(TransactionType.EXPENSE)).thenReturn(Collections.emptyList());
-        when(categoryRepository.findFirstByNameIgnoreCase("Food")).thenReturn(Optional.of(food));
+        when(ruleRepository.findAllWithCategory()).thenReturn(Collections.emptyList());
+        when(categoryRegistry.findByName("Food")).thenReturn(Optional.of(food));
 
         CategorySuggestion suggestion = categorizationService.suggestCategory(
                 "No keywords", BigDecimal.valueOf(5), TransactionType.EXPENSE);
@@ -130,18 +209,9 @@ class CategorizationServiceTest {
     @Test
     void suggestCategory_PersonalizedLearningShouldOverride() {
         UUID userId = UUID.randomUUID();
-        FeedbackCategoryCount projection = new FeedbackCategoryCount() {
-            @Override
-            public Category getCategory() {
-                return rent;
-            }
-
-            @Override
-            public Long getCorrectionCount() {
-                return 4L;
-            }
-        };
-        when(feedbackRepository.findTopCategoriesForUserAndToken(userId, "rent")).thenReturn(List.of(projection));
+        when(personalizationIndex.score(userId, 0L, List.of("rent", "bill", "from", "landlord")))
+                .thenReturn(Optional.of(new PersonalizationIndex.Score(rent.getId(), 4L, 0.8)));
+        when(categoryRegistry.findById(rent.getId())).thenReturn(Optional.of(rent));
 
         CategorySuggestion suggestion = categorizationService.suggestCategory(
                 "Rent bill from landlord", BigDecimal.valueOf(200), TransactionType.EXPENSE, userId);
@@ -151,6 +221,122 @@ class CategorizationServiceTest {
         assertThat(suggestion.getConfidence()).isEqualTo(CategorizationService.PERSONALIZED_CONFIDENCE);
     }
 
+    @Test
+    void suggestCategory_PersonalizationBelowThresholdShouldBeIgnored() {
+        UUID userId = UUID.randomUUID();
+        when(personalizationIndex.score(userId, 0L, List.of("netflix", "subscription")))
+                .thenReturn(Optional.of(new PersonalizationIndex.Score(rent.getId(), 2L, 0.9)));
+
+        CategorySuggestion suggestion = categorizationService.suggestCategory(
+                "Netflix subscription", BigDecimal.valueOf(15), TransactionType.EXPENSE, userId);
+
+        assertThat(suggestion).isNull();
+    }
+
+    @Test
+    void suggestCategory_AmbiguousPersonalizationShouldBeIgnored() {
+        UUID userId = UUID.randomUUID();
+        when(personalizationIndex.score(userId, 0L, List.of("card", "payment")))
+                .thenReturn(Optional.of(new PersonalizationIndex.Score(rent.getId(), 12L, 0.4)));
+
+        CategorySuggestion suggestion = categorizationService.suggestCategory(
+                "Card payment", BigDecimal.valueOf(15), TransactionType.EXPENSE, userId);
+
+        assertThat(suggestion).isNull();
+    }
+
+    @Test
+    void suggestCategories_ShouldEvaluateDuplicateDescriptionsOnce() {
+        when(ruleRepository.findAllWithCategory()).thenReturn(List.of(createRule(food, "coffee", TransactionType.EXPENSE)));
+        when(categoryRegistry.findByName("Rent")).thenReturn(Optional.of(rent));
+
+        List<CategorySuggestion> suggestions = categorizationService.suggestCategories(List.of(
+                suggestionRequest("Coffee beans", null),
+                suggestionRequest("Landlord transfer", "2500.00"),
+                suggestionRequest("  coffee BEANS ", null),
+                suggestionRequest("Landlord transfer", "2500")
+        ));
+
+        assertThat(suggestions).hasSize(4);
+        assertThat(suggestions.get(0).getCategoryId()).isEqualTo(food.getId());
+        assertThat(suggestions.get(2)).isSameAs(suggestions.get(0));
+        assertThat(suggestions.get(1).getCategoryId()).isEqualTo(rent.getId());
+        assertThat(suggestions.get(3)).isSameAs(suggestions.get(1));
+        verify(categoryRegistry, times(1)).findByName("Rent");
+    }
+
+    @Test
+    void suggestCategories_ShouldReadFeedbackVersionOncePerUser() {
+        UUID userId = UUID.randomUUID();
+        when(ruleRepository.findAllWithCategory()).thenReturn(List.of(createRule(food, "coffee", TransactionType.EXPENSE)));
+        CategorySuggestionRequest first = suggestionRequest("Coffee beans", null);
+        CategorySuggestionRequest second = suggestionRequest("Coffee to go", null);
+        first.setUserId(userId);
+        second.setUserId(userId);
+
+        categorizationService.suggestCategories(List.of(first, second));
+
+        verify(personalizationIndex, times(1)).feedbackVersion(userId);
+    }
+
+    @Test
+    void suggestCategory_ShouldServeRepeatedDescriptionsFromCache() {
+        when(ruleRepository.findAllWithCategory()).thenReturn(List.of(createRule(food, "coffee", TransactionType.EXPENSE)));
+        when(categoryRegistry.findByName("Food")).thenReturn(Optional.of(food));
+
+        CategorySuggestion first = categorizationService.suggestCategory(
+                "Coffee", new BigDecimal("4.50"), TransactionType.EXPENSE);
+        CategorySuggestion second = categorizationService.suggestCategory(
+                " coffee ", new BigDecimal("6.00"), TransactionType.EXPENSE);
+
+        assertThat(second).isSameAs(first);
+        verify(categoryRegistry, times(1)).findByName("Food");
+    }
+
+    @Test
+    void suggestCategoryUncached_ShouldBypassSuggestionCache() {
+        when(ruleRepository.findAllWithCategory()).thenReturn(List.of(createRule(food, "coffee", TransactionType.EXPENSE)));
+        when(categoryRegistry.findByName("Food")).thenReturn(Optional.of(food));
+
+        CategorySuggestion first = categorizationService.suggestCategoryUncached(
+                "Coffee", new BigDecimal("4.50"), TransactionType.EXPENSE, null, 0L);
+        CategorySuggestion second = categorizationService.suggestCategoryUncached(
+                "Coffee", new BigDecimal("4.50"), TransactionType.EXPENSE, null, 0L);
+
+        assertThat(first.getCategoryId()).isEqualTo(food.getId());
+        assertThat(second.getCategoryId()).isEqualTo(food.getId());
+        verify(categoryRegistry, times(2)).findByName("Food");
+        assertThat(suggestionCache.stats().getSize()).isZero();
+        assertThat(suggestionCache.stats().getMissCount()).isZero();
+    }
+
+    @Test
+    void suggestCategory_ShouldRecomputeWhenFeedbackVersionChanges() {
+        UUID userId = UUID.randomUUID();
+        List<String> tokens = List.of("netflix");
+        when(personalizationIndex.feedbackVersion(userId)).thenReturn(1L, 2L);
+        when(personalizationIndex.score(userId, 1L, tokens)).thenReturn(Optional.empty());
+        when(personalizationIndex.score(userId, 2L, tokens)).thenReturn(
+                Optional.of(new PersonalizationIndex.Score(shopping.getId(), 5L, 1.0)));
+        when(categoryRegistry.findById(shopping.getId())).thenReturn(Optional.of(shopping));
+
+        CategorySuggestion before = categorizationService.suggestCategory(
+                "Netflix", BigDecimal.valueOf(15), TransactionType.EXPENSE, userId);
+        CategorySuggestion after = categorizationService.suggestCategory(
+                "Netflix", BigDecimal.valueOf(15), TransactionType.EXPENSE, userId);
+
+        assertThat(before).isNull();
+        assertThat(after.getCategoryId()).isEqualTo(shopping.getId());
+    }
+
+    private CategorySuggestionRequest suggestionRequest(String description, String amount) {
+        CategorySuggestionRequest request = new CategorySuggestionRequest();
+        request.setDescription(description);
+        request.setAmount(amount == null ? null : new BigDecimal(amount));
+        request.setTransactionType(TransactionType.EXPENSE);
+        return request;
+    }
+
     private Category createCategory(String name, CategoryType type) {
         Category category = new Category();
         category.setId(UUID.randomUUID());
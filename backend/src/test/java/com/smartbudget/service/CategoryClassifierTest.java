@@ -0,0 +1,114 @@
+package com.smartbudget.service;
+
+import com.smartbudget.entity.TransactionType;
+import com.smartbudget.repository.CategorizationFeedbackRepository;
+import com.smartbudget.repository.projection.FeedbackTrainingView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryClassifierTest {
+
+    @Mock
+    private CategorizationFeedbackRepository feedbackRepository;
+
+    @TempDir
+    Path directory;
+
+    private CategoryClassifier classifier;
+
+    private final UUID food = UUID.randomUUID();
+    private final UUID transport = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        classifier = new CategoryClassifier(feedbackRepository,
+                directory.resolve("model.bin").toString(), 1000, 60);
+    }
+
+    @Test
+    void train_ShouldFoldNewExamplesAndResumeFromWatermark() throws Exception {
+        Instant feedbackAt = Instant.parse("2026-01-05T10:15:30.123456Z");
+        UUID feedbackId = UUID.randomUUID();
+        when(feedbackRepository.findTrainingExamplesAfter(any(), any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(
+                        feedback(UUID.randomUUID(), feedbackAt.minusSeconds(1), "Uber trip", transport),
+                        feedback(UUID.randomUUID(), feedbackAt.minusMillis(1), "Starbucks coffee", food),
+                        feedback(feedbackId, feedbackAt, "Starbucks latte", food)), List.of());
+        long versionBefore = classifier.modelVersion();
+
+        assertThat(classifier.train()).isEqualTo(3);
+        assertThat(classifier.trainedExamples()).isEqualTo(3);
+        assertThat(classifier.modelVersion()).isGreaterThan(versionBefore);
+        assertThat(classifier.predict("starbucks", BigDecimal.ONE, TransactionType.EXPENSE).categoryId())
+                .isEqualTo(food);
+
+        assertThat(classifier.train()).isZero();
+        verify(feedbackRepository).findTrainingExamplesAfter(eq(feedbackAt), eq(feedbackId), any(), any(Pageable.class));
+    }
+
+    @Test
+    void loadModel_ShouldMapModelWrittenByPreviousRun() throws Exception {
+        when(feedbackRepository.findTrainingExamplesAfter(any(), any(), any(), any(Pageable.class)))
+                .thenReturn(List.of(feedback(UUID.randomUUID(), Instant.now(), "Uber trip", transport)));
+        classifier.train();
+
+        CategoryClassifier restarted = new CategoryClassifier(feedbackRepository,
+                directory.resolve("model.bin").toString(), 1000, 60);
+        restarted.loadModel();
+
+        assertThat(restarted.trainedExamples()).isEqualTo(1);
+        assertThat(restarted.predict("uber", null, TransactionType.EXPENSE).categoryId()).isEqualTo(transport);
+    }
+
+    private FeedbackTrainingView feedback(UUID id, Instant createdAt, String description, UUID categoryId) {
+        return new FeedbackTrainingView() {
+            @Override
+            public Instant getCreatedAt() {
+                return createdAt;
+            }
+
+            @Override
+            public UUID getId() {
+                return id;
+            }
+
+            @Override
+            public String getDescription() {
+                return description;
+            }
+
+            @Override
+            public BigDecimal getAmount() {
+                return new BigDecimal("5.00");
+            }
+
+            @Override
+            public TransactionType getTransactionType() {
+                return TransactionType.EXPENSE;
+            }
+
+            @Override
+            public UUID getCategoryId() {
+                return categoryId;
+            }
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.smartbudget.service;
+
+import com.smartbudget.entity.Category;
+import com.smartbudget.entity.CategoryType;
+import com.smartbudget.repository.CategoryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CategoryRegistryTest {
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @InjectMocks
+    private CategoryRegistry categoryRegistry;
+
+    @Test
+    void lookups_ShouldBeServedFromASingleLoad() {
+        Category food = category("Food");
+        Category rent = category("Rent");
+        when(categoryRepository.findAll(any(Sort.class))).thenReturn(List.of(food, rent));
+
+        assertThat(categoryRegistry.findById(food.getId())).containsSame(food);
+        assertThat(categoryRegistry.findByName("  rent ")).containsSame(rent);
+        assertThat(categoryRegistry.findByName("FOOD")).containsSame(food);
+
+        verify(categoryRepository, times(1)).findAll(any(Sort.class));
+    }
+
+    @Test
+    void findById_ShouldNotReloadRepeatedlyForUnknownIds() {
+        when(categoryRepository.findAll(any(Sort.class))).thenReturn(List.of(category("Food")));
+
+        assertThat(categoryRegistry.findById(UUID.randomUUID())).isEmpty();
+        assertThat(categoryRegistry.findById(UUID.randomUUID())).isEmpty();
+
+        verify(categoryRepository, times(1)).findAll(any(Sort.class));
+    }
+
+    private Category category(String name) {
+        Category category = new Category(name, CategoryType.EXPENSE, null);
+        category.setId(UUID.randomUUID());
+        return category;
+    }
+}
@@ -5,6 +5,7 @@ import com.smartbudget.entity.Category;
 import com.smartbudget.entity.Transaction;
 import com.smartbudget.entity.User;
 import com.smartbudget.repository.CategorizationFeedbackRepository;
+import com.smartbudget.repository.CategorizationTokenStatRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -24,6 +25,9 @@ class FeedbackServiceTest {
     @Mock
     private CategorizationFeedbackRepository feedbackRepository;
 
+    @Mock
+    private CategorizationTokenStatRepository tokenStatRepository;
+
     @InjectMocks
     private FeedbackService feedbackService;
 
@@ -35,6 +39,7 @@ class FeedbackServiceTest {
     @BeforeEach
     void setUp() {
         user = new User();
+        user.setId(java.util.UUID.randomUUID());
         suggested = new Category();
         actual = new Category();
         transaction = new Transaction();
@@ -58,5 +63,16 @@ class FeedbackServiceTest {
     void recordFeedback_ShouldSkipWhenMissingUser() {
         feedbackService.recordFeedback(null, "desc", suggested, actual, transaction);
         verify(feedbackRepository, never()).save(org.mockito.Mockito.any());
+        verify(tokenStatRepository, never()).incrementCount(org.mockito.Mockito.any(), org.mockito.Mockito.any(), org.mockito.Mockito.any());
+    }
+
+    @Test
+    void recordFeedback_ShouldIncrementTokenStats() {
+        feedbackService.recordFeedback(user, "Uber trip to airport, uber", suggested, actual, transaction);
+
+        verify(tokenStatRepository).incrementCount(user.getId(), "uber", actual.getId());
+        verify(tokenStatRepository).incrementCount(user.getId(), "trip", actual.getId());
+        verify(tokenStatRepository).incrementCount(user.getId(), "airport", actual.getId());
+        verify(tokenStatRepository, never()).incrementCount(user.getId(), "to", actual.getId());
     }
 }
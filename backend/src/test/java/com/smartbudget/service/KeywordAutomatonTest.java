@@ -0,0 +1,54 @@
+package com.smartbudget.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeywordAutomatonTest {
+
+    @Test
+    void scan_ShouldReportWholeWordAndEmbeddedMatches() {
+        KeywordAutomaton<String> automaton = KeywordAutomaton.<String>builder()
+                .add("rent", "Rent")
+                .add("water bill", "Utilities")
+                .add("bill", "Bills")
+                .build();
+
+        List<String> hits = new ArrayList<>();
+        automaton.scan("rental and water bill", (payload, wholeWord) -> hits.add(payload + ":" + wholeWord));
+
+        assertThat(hits).containsExactly("Rent:false", "Utilities:true", "Bills:true");
+    }
+
+    @Test
+    void scan_ShouldFindOverlappingKeywordsViaFailureLinks() {
+        KeywordAutomaton<String> automaton = KeywordAutomaton.<String>builder()
+                .add("he", "he")
+                .add("she", "she")
+                .add("hers", "hers")
+                .build();
+
+        List<String> hits = new ArrayList<>();
+        automaton.scan("ushers", (payload, wholeWord) -> hits.add(payload));
+
+        assertThat(hits).containsExactlyInAnyOrder("she", "he", "hers");
+    }
+
+    @Test
+    void scan_ShouldNotifyEveryPayloadSharingAKeyword() {
+        KeywordAutomaton<String> automaton = KeywordAutomaton.<String>builder()
+                .add("gas", "Transport")
+                .add(" gas ", "Utilities")
+                .add("   ", "Ignored")
+                .build();
+
+        List<String> hits = new ArrayList<>();
+        automaton.scan("gas station", (payload, wholeWord) -> hits.add(payload));
+
+        assertThat(automaton.size()).isEqualTo(1);
+        assertThat(hits).containsExactly("Transport", "Utilities");
+    }
+}
@@ -0,0 +1,78 @@
+package com.smartbudget.service;
+
+import com.smartbudget.entity.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MerchantTrieTest {
+
+    private final MerchantTrie trie = MerchantTrie.wrap(MerchantTrieCompiler.compile(List.of(
+            entry("amazon", "Shopping", TransactionType.EXPENSE),
+            entry("Amazon Prime Video", "Entertainment", TransactionType.EXPENSE),
+            entry("uber", "Transport", TransactionType.EXPENSE),
+            entry("uber eats", "Food", TransactionType.EXPENSE),
+            entry("vanguard", "Investments", TransactionType.INCOME),
+            entry("ab", "Other", TransactionType.EXPENSE)
+    )));
+
+    @Test
+    void longestMatch_ShouldPreferTheLongestMerchantOnWordBoundaries() {
+        assertThat(trie.size()).isEqualTo(5);
+        assertThat(trie.longestMatch("AMAZON PRIME*VIDEO 4411", TransactionType.EXPENSE)).isEqualTo("Entertainment");
+        assertThat(trie.longestMatch("amazon.com order", TransactionType.EXPENSE)).isEqualTo("Shopping");
+        assertThat(trie.longestMatch("UBER   EATS san francisco", TransactionType.EXPENSE)).isEqualTo("Food");
+        assertThat(trie.longestMatch("Uber trip", TransactionType.EXPENSE)).isEqualTo("Transport");
+        assertThat(trie.longestMatch("Uberrima fides", TransactionType.EXPENSE)).isNull();
+        assertThat(trie.longestMatch("ab", TransactionType.EXPENSE)).isNull();
+    }
+
+    @Test
+    void longestMatch_ShouldOnlyReturnEntriesOfTheTransactionType() {
+        assertThat(trie.longestMatch("Vanguard dividend", TransactionType.INCOME)).isEqualTo("Investments");
+        assertThat(trie.longestMatch("Vanguard dividend", TransactionType.EXPENSE)).isNull();
+        assertThat(MerchantTrie.empty().longestMatch("amazon", TransactionType.EXPENSE)).isNull();
+    }
+
+    @Test
+    void compile_ShouldShareCommonSuffixes() {
+        ByteBuffer compiled = MerchantTrieCompiler.compile(List.of(
+                entry("corner market", "Food", TransactionType.EXPENSE),
+                entry("farmers market", "Food", TransactionType.EXPENSE)));
+        int trieNodes = 2 + "corner market".length() + "farmers market".length();
+
+        assertThat(compiled.getInt(8)).isLessThanOrEqualTo(trieNodes - " market".length());
+        assertThat(MerchantTrie.wrap(compiled).longestMatch("Farmers Market #2", TransactionType.EXPENSE))
+                .isEqualTo("Food");
+    }
+
+    @Test
+    void read_ShouldParseCsvAndLoadCompiledFile(@TempDir Path directory) throws Exception {
+        Path csv = directory.resolve("merchants.csv");
+        Files.writeString(csv, """
+                merchant,category,transactionType
+                # comment
+                Johnson, Smith & Co,Healthcare,expense
+
+                netflix,Entertainment,EXPENSE
+                """);
+        Path output = directory.resolve("out/merchants.dict");
+
+        MerchantTrieCompiler.main(new String[]{csv.toString(), output.toString()});
+        MerchantTrie loaded = MerchantTrie.load(output);
+
+        assertThat(loaded.size()).isEqualTo(2);
+        assertThat(loaded.longestMatch("JOHNSON SMITH CO visit", TransactionType.EXPENSE)).isEqualTo("Healthcare");
+        assertThat(loaded.longestMatch("Netflix.com", TransactionType.EXPENSE)).isEqualTo("Entertainment");
+    }
+
+    private static MerchantTrieCompiler.Entry entry(String merchant, String category, TransactionType type) {
+        return new MerchantTrieCompiler.Entry(merchant, category, type);
+    }
+}
@@ -0,0 +1,83 @@
+package com.smartbudget.service;
+
+import com.smartbudget.repository.TransactionMonthlySnapshotRepository;
+import com.smartbudget.repository.projection.UnmaterializedMonthView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MonthlySnapshotMaterializerTest {
+
+    @Mock
+    private TransactionMonthlySnapshotRepository snapshotRepository;
+
+    private MonthlySnapshotMaterializer materializer;
+
+    @BeforeEach
+    void setUp() {
+        materializer = new MonthlySnapshotMaterializer(snapshotRepository, mock(PlatformTransactionManager.class), 2);
+    }
+
+    @Test
+    void materializeClosedMonths_ShouldDrainBatchesOfMonthsBeforeTheCurrentOne() {
+        UUID userId = UUID.randomUUID();
+        YearMonth current = YearMonth.now();
+        when(snapshotRepository.findUnmaterializedMonths(current.atDay(1), 2))
+                .thenReturn(List.of(month(userId, "2024-01"), month(userId, "2024-02")))
+                .thenReturn(List.of(month(userId, "2024-05")));
+
+        assertThat(materializer.materializeClosedMonths()).isEqualTo(3);
+
+        verify(snapshotRepository).materialize(userId, YearMonth.of(2024, 1).atDay(1));
+        verify(snapshotRepository).materialize(userId, YearMonth.of(2024, 2).atDay(1));
+        verify(snapshotRepository).materialize(userId, YearMonth.of(2024, 5).atDay(1));
+    }
+
+    @Test
+    void materialize_ShouldRejectMonthsThatHaveNotClosed() {
+        assertThatThrownBy(() -> materializer.materialize(UUID.randomUUID(), YearMonth.now()))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        verify(snapshotRepository, never()).materialize(any(), any());
+    }
+
+    @Test
+    void materializeQuietly_ShouldSwallowFailures() {
+        when(snapshotRepository.findUnmaterializedMonths(any(), anyInt())).thenThrow(new IllegalStateException("db down"));
+
+        materializer.materializeQuietly();
+
+        verify(snapshotRepository, never()).materialize(any(), any());
+    }
+
+    private static UnmaterializedMonthView month(UUID userId, String month) {
+        return new UnmaterializedMonthView() {
+            @Override
+            public UUID getUserId() {
+                return userId;
+            }
+
+            @Override
+            public String getMonth() {
+                return month;
+            }
+        };
+    }
+}
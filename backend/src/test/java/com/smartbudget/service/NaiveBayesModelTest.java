@@ -0,0 +1,80 @@
+package com.smartbudget.service;
+
+import com.smartbudget.entity.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NaiveBayesModelTest {
+
+    private final UUID food = UUID.randomUUID();
+    private final UUID transport = UUID.randomUUID();
+    private final UUID salary = UUID.randomUUID();
+
+    @Test
+    void predict_ShouldFavorCategoryWithMatchingTokens() {
+        NaiveBayesModel model = NaiveBayesModel.wrap(trainedTrainer().encode());
+
+        NaiveBayesModel.Prediction prediction = model.predict("STARBUCKS #42", AmountBucket.SMALL, TransactionType.EXPENSE);
+
+        assertThat(prediction.categoryId()).isEqualTo(food);
+        assertThat(prediction.probability()).isGreaterThan(0.9);
+        assertThat(model.predict("uber trip home", AmountBucket.REGULAR, TransactionType.EXPENSE).categoryId())
+                .isEqualTo(transport);
+    }
+
+    @Test
+    void predict_ShouldOnlyConsiderCategoriesOfTheTransactionType() {
+        NaiveBayesModel model = NaiveBayesModel.wrap(trainedTrainer().encode());
+
+        assertThat(model.predict("starbucks", AmountBucket.SMALL, TransactionType.INCOME).categoryId())
+                .isEqualTo(salary);
+        assertThat(model.predict("!!", AmountBucket.SMALL, TransactionType.EXPENSE)).isNull();
+        assertThat(NaiveBayesModel.empty().predict("starbucks", AmountBucket.SMALL, TransactionType.EXPENSE)).isNull();
+    }
+
+    @Test
+    void writeTo_ShouldRoundTripThroughMappedFileAndResumeTraining(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("model.bin");
+        NaiveBayesTrainer trainer = trainedTrainer();
+        NaiveBayesModel.Watermark watermark = new NaiveBayesModel.Watermark(1_700_000_000_000_000L, UUID.randomUUID());
+        trainer.advanceFeedbackWatermark(watermark);
+        trainer.writeTo(file);
+
+        NaiveBayesModel loaded = NaiveBayesModel.load(file);
+        assertThat(loaded.totalDocuments()).isEqualTo(9);
+        assertThat(loaded.feedbackWatermark()).isEqualTo(watermark);
+
+        NaiveBayesTrainer resumed = NaiveBayesTrainer.from(loaded);
+        for (int i = 0; i < 20; i++) {
+            resumed.add("starbucks", new BigDecimal("6.00"), TransactionType.EXPENSE, transport);
+        }
+        resumed.writeTo(file);
+
+        NaiveBayesModel retrained = NaiveBayesModel.load(file);
+        assertThat(retrained.totalDocuments()).isEqualTo(29);
+        assertThat(retrained.feedbackWatermark()).isEqualTo(watermark);
+        assertThat(retrained.predict("starbucks", AmountBucket.SMALL, TransactionType.EXPENSE).categoryId())
+                .isEqualTo(transport);
+    }
+
+    private NaiveBayesTrainer trainedTrainer() {
+        NaiveBayesTrainer trainer = new NaiveBayesTrainer();
+        trainer.add("Starbucks coffee", new BigDecimal("4.50"), TransactionType.EXPENSE, food);
+        trainer.add("STARBUCKS #1234", new BigDecimal("5.10"), TransactionType.EXPENSE, food);
+        trainer.add("Starbucks latte", new BigDecimal("6.00"), TransactionType.EXPENSE, food);
+        trainer.add("Whole foods market", new BigDecimal("80.00"), TransactionType.EXPENSE, food);
+        trainer.add("Uber trip", new BigDecimal("18.00"), TransactionType.EXPENSE, transport);
+        trainer.add("UBER *TRIP", new BigDecimal("22.00"), TransactionType.EXPENSE, transport);
+        trainer.add("Metro card", new BigDecimal("30.00"), TransactionType.EXPENSE, transport);
+        trainer.add("Payroll ACME", new BigDecimal("4200.00"), TransactionType.INCOME, salary);
+        trainer.add("Monthly salary", new BigDecimal("4200.00"), TransactionType.INCOME, salary);
+        trainer.add("??", new BigDecimal("1.00"), TransactionType.EXPENSE, food);
+        return trainer;
+    }
+}
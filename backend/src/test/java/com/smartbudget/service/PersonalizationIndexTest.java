@@ -0,0 +1,136 @@
+package com.smartbudget.service;
+
+import com.smartbudget.repository.CategorizationTokenStatRepository;
+import com.smartbudget.repository.UserRepository;
+import com.smartbudget.repository.projection.TokenCategoryCountView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PersonalizationIndexTest {
+
+    @Mock
+    private CategorizationTokenStatRepository statRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private PersonalizationIndex personalizationIndex;
+
+    private UUID userId;
+    private UUID food;
+    private UUID transport;
+    private UUID other;
+
+    @BeforeEach
+    void setUp() {
+        personalizationIndex = new PersonalizationIndex(statRepository, userRepository, 100, 30, 10_000);
+        userId = UUID.randomUUID();
+        food = UUID.randomUUID();
+        transport = UUID.randomUUID();
+        other = UUID.randomUUID();
+    }
+
+    @Test
+    void score_ShouldAnswerFromOneLoadPerUser() {
+        when(statRepository.findCountsByUserId(eq(userId), any(Pageable.class))).thenReturn(List.of(
+                view("uber", transport, 7),
+                view("uber", food, 2),
+                view("coffee", food, 4)
+        ));
+
+        assertThat(personalizationIndex.score(userId, 1L, List.of("uber"))).get()
+                .satisfies(score -> {
+                    assertThat(score.categoryId()).isEqualTo(transport);
+                    assertThat(score.support()).isEqualTo(7);
+                    assertThat(score.share()).isCloseTo(7.0 / 9, within(1e-9));
+                });
+        assertThat(personalizationIndex.score(userId, 1L, List.of("coffee"))).get()
+                .extracting(PersonalizationIndex.Score::categoryId).isEqualTo(food);
+        assertThat(personalizationIndex.score(userId, 1L, List.of("unknown"))).isEmpty();
+
+        verify(statRepository, times(1)).findCountsByUserId(eq(userId), any(Pageable.class));
+    }
+
+    @Test
+    void score_ShouldLetDistinctiveTokensOutweighGenericOnes() {
+        when(statRepository.findCountsByUserId(eq(userId), any(Pageable.class))).thenReturn(List.of(
+                view("card", transport, 6),
+                view("card", food, 5),
+                view("card", other, 5),
+                view("starbucks", food, 4)
+        ));
+
+        assertThat(personalizationIndex.score(userId, 1L, List.of("card", "starbucks"))).get()
+                .satisfies(score -> {
+                    assertThat(score.categoryId()).isEqualTo(food);
+                    assertThat(score.support()).isEqualTo(5);
+                    assertThat(score.share()).isGreaterThan(0.5);
+                });
+    }
+
+    @Test
+    void score_ShouldReloadWhenFeedbackVersionChanges() {
+        when(statRepository.findCountsByUserId(eq(userId), any(Pageable.class)))
+                .thenReturn(List.of(view("uber", food, 1)), List.of(view("uber", transport, 3)));
+
+        assertThat(personalizationIndex.score(userId, 1L, List.of("uber"))).get()
+                .extracting(PersonalizationIndex.Score::categoryId).isEqualTo(food);
+        assertThat(personalizationIndex.score(userId, 1L, List.of("uber"))).get()
+                .extracting(PersonalizationIndex.Score::categoryId).isEqualTo(food);
+        assertThat(personalizationIndex.score(userId, 2L, List.of("uber"))).get()
+                .extracting(PersonalizationIndex.Score::categoryId).isEqualTo(transport);
+        assertThat(personalizationIndex.score(userId, 1L, List.of("uber"))).get()
+                .extracting(PersonalizationIndex.Score::categoryId).isEqualTo(transport);
+
+        verify(statRepository, times(2)).findCountsByUserId(eq(userId), any(Pageable.class));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void feedbackVersion_ShouldReadPersistedVersion() {
+        UUID unknown = UUID.randomUUID();
+        when(userRepository.findFeedbackVersion(userId)).thenReturn(Optional.of(5L));
+        when(userRepository.findFeedbackVersion(unknown)).thenReturn(Optional.empty());
+
+        assertThat(personalizationIndex.feedbackVersion(userId)).isEqualTo(5L);
+        assertThat(personalizationIndex.feedbackVersion(unknown)).isZero();
+        assertThat(personalizationIndex.feedbackVersion(null)).isZero();
+    }
+
+    private TokenCategoryCountView view(String token, UUID categoryId, long count) {
+        return new TokenCategoryCountView() {
+            @Override
+            public String getToken() {
+                return token;
+            }
+
+            @Override
+            public UUID getCategoryId() {
+                return categoryId;
+            }
+
+            @Override
+            public long getCorrectionCount() {
+                return count;
+            }
+        };
+    }
+}
@@ -0,0 +1,133 @@
+package com.smartbudget.service;
+
+import com.smartbudget.entity.BulkCategorizationJob;
+import com.smartbudget.repository.BulkCategorizationJobRepository;
+import com.smartbudget.repository.BulkCategorizationWorkItemRepository;
+import com.smartbudget.repository.CategorizationRuleRepository;
+import com.smartbudget.repository.TransactionTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RuleChangeRecategorizerTest {
+
+    @Mock
+    private CategorizationRuleRepository ruleRepository;
+
+    @Mock
+    private TransactionTokenRepository tokenRepository;
+
+    @Mock
+    private BulkCategorizationJobRepository jobRepository;
+
+    @Mock
+    private BulkCategorizationWorkItemRepository workItemRepository;
+
+    @Mock
+    private BulkJobExecutor jobExecutor;
+
+    private RuleChangeRecategorizer recategorizer;
+
+    @BeforeEach
+    void setUp() {
+        recategorizer = new RuleChangeRecategorizer(ruleRepository, tokenRepository, jobRepository, workItemRepository,
+                jobExecutor, mock(PlatformTransactionManager.class), true, 0.8);
+    }
+
+    @Test
+    void indexPrefixes_ShouldUseLongestTokenAfterTheFirst() {
+        assertThat(RuleChangeRecategorizer.indexPrefixes(List.of("uber", "whole foods market", "Coffee")))
+                .isEqualTo("coffee market uber");
+        assertThat(RuleChangeRecategorizer.indexPrefixes(List.of("7 eleven"))).isEqualTo("eleven");
+        assertThat(RuleChangeRecategorizer.indexPrefixes(List.of("a&w"))).isNull();
+    }
+
+    @Test
+    void unindexableKeywords_ShouldListKeywordsWithoutALongEnoughToken() {
+        assertThat(RuleChangeRecategorizer.unindexableKeywords(List.of("uber", "bp", "a&w", "bp gas")))
+                .containsExactly("a&w", "bp");
+    }
+
+    @Test
+    void recategorize_ShouldQueueOneJobPerAffectedUser() {
+        UUID firstUser = UUID.randomUUID();
+        UUID secondUser = UUID.randomUUID();
+        when(ruleRepository.lockRecategorizedVersion()).thenReturn(Optional.of(3L));
+        when(ruleRepository.claimRecategorization(5L)).thenReturn(1);
+        when(ruleRepository.findChangedKeywords(3L, 5L)).thenReturn(List.of("lunch", "uber"));
+        when(tokenRepository.findUserIdsWithTokenPrefixes("lunch uber")).thenReturn(List.of(firstUser, secondUser));
+        when(jobRepository.save(any(BulkCategorizationJob.class))).thenAnswer(invocation -> {
+            BulkCategorizationJob job = invocation.getArgument(0);
+            ReflectionTestUtils.setField(job, "id", UUID.randomUUID());
+            return job;
+        });
+
+        int queued = recategorizer.recategorize(5L);
+
+        assertThat(queued).isEqualTo(2);
+        ArgumentCaptor<BulkCategorizationJob> jobs = ArgumentCaptor.forClass(BulkCategorizationJob.class);
+        verify(jobRepository, times(2)).save(jobs.capture());
+        assertThat(jobs.getAllValues()).extracting(BulkCategorizationJob::getUserId).containsExactly(firstUser, secondUser);
+        assertThat(jobs.getAllValues()).allSatisfy(job -> {
+            assertThat(job.getKeywordTokens()).isEqualTo("lunch uber");
+            assertThat(job.getConfidenceThreshold()).isEqualTo(0.8);
+        });
+        verify(workItemRepository, times(2)).saveAll(any());
+        verify(ruleRepository).deleteChangesUpTo(5L);
+        verify(jobExecutor).wakeUp();
+    }
+
+    @Test
+    void recategorize_ShouldClaimVersionWhoseKeywordsAreNotIndexable() {
+        when(ruleRepository.lockRecategorizedVersion()).thenReturn(Optional.of(4L));
+        when(ruleRepository.claimRecategorization(5L)).thenReturn(1);
+        when(ruleRepository.findChangedKeywords(4L, 5L)).thenReturn(List.of("bp"));
+
+        assertThat(recategorizer.recategorize(5L)).isZero();
+
+        verify(ruleRepository).deleteChangesUpTo(5L);
+        verify(tokenRepository, never()).findUserIdsWithTokenPrefixes(anyString());
+        verify(jobExecutor, never()).wakeUp();
+    }
+
+    @Test
+    void recategorize_ShouldDoNothingWhenAnotherNodeClaimedTheVersion() {
+        when(ruleRepository.lockRecategorizedVersion()).thenReturn(Optional.of(5L));
+
+        assertThat(recategorizer.recategorize(5L)).isZero();
+
+        verify(ruleRepository, never()).claimRecategorization(anyLong());
+        verify(ruleRepository, never()).findChangedKeywords(anyLong(), anyLong());
+        verify(tokenRepository, never()).findUserIdsWithTokenPrefixes(anyString());
+        verify(jobExecutor, never()).wakeUp();
+    }
+
+    @Test
+    void onRulesChangedQuietly_ShouldSwallowFailures() {
+        when(ruleRepository.lockRecategorizedVersion()).thenThrow(new IllegalStateException("db down"));
+
+        recategorizer.onRulesChangedQuietly(new CategorizationRulesChangedEvent(4L, 5L));
+
+        verify(jobRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,65 @@
+package com.smartbudget.service;
+
+import com.smartbudget.dto.CategorySuggestion;
+import com.smartbudget.entity.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuggestionMemoTest {
+
+    @Test
+    void slot_ShouldMatchNormalizedDescriptionWithinSameTypeAndBand() {
+        SuggestionMemo memo = new SuggestionMemo(100);
+
+        int slot = memo.slot("Coffee Shop", TransactionType.EXPENSE, BigDecimal.valueOf(4));
+
+        assertThat(memo.slot("  coffee shop ", TransactionType.EXPENSE, BigDecimal.valueOf(7))).isEqualTo(slot);
+        assertThat(memo.slot("Coffee Shop", TransactionType.INCOME, BigDecimal.valueOf(4))).isNotEqualTo(slot);
+        assertThat(memo.slot("Coffee Shop", TransactionType.EXPENSE, BigDecimal.valueOf(40))).isNotEqualTo(slot);
+        assertThat(memo.distinctDescriptions()).isEqualTo(1);
+    }
+
+    @Test
+    void reserve_ShouldReportHitOnceSlotIsClaimed() {
+        SuggestionMemo memo = new SuggestionMemo(100);
+        int slot = memo.slot("Rent", TransactionType.EXPENSE, BigDecimal.valueOf(1500));
+        CategorySuggestion housing = new CategorySuggestion(UUID.randomUUID(), "Housing", 0.9);
+
+        assertThat(memo.reserve(slot)).isTrue();
+        assertThat(memo.isEvaluated(slot)).isFalse();
+        memo.put(slot, housing);
+
+        assertThat(memo.reserve(slot)).isFalse();
+        assertThat(memo.isEvaluated(slot)).isTrue();
+        assertThat(memo.get(slot)).isSameAs(housing);
+    }
+
+    @Test
+    void slot_ShouldStopMemoizingNewDescriptionsAtLimit() {
+        SuggestionMemo memo = new SuggestionMemo(1);
+        int first = memo.slot("Rent", TransactionType.EXPENSE, null);
+
+        assertThat(memo.slot("Groceries", TransactionType.EXPENSE, null)).isEqualTo(-1);
+        assertThat(memo.slot("rent", TransactionType.EXPENSE, null)).isEqualTo(first);
+        assertThat(memo.slot("Rent", null, null)).isEqualTo(-1);
+    }
+
+    @Test
+    void put_ShouldGrowTableForLaterDescriptions() {
+        SuggestionMemo memo = new SuggestionMemo(10_000);
+        int slot = -1;
+        for (int i = 0; i < 1_000; i++) {
+            slot = memo.slot("merchant " + i, TransactionType.EXPENSE, BigDecimal.ONE);
+        }
+        CategorySuggestion suggestion = new CategorySuggestion(UUID.randomUUID(), "Shopping", 0.8);
+
+        memo.reserve(slot);
+        memo.put(slot, suggestion);
+
+        assertThat(memo.get(slot)).isSameAs(suggestion);
+    }
+}
@@ -0,0 +1,70 @@
+package com.smartbudget.service;
+
+import com.smartbudget.repository.TransactionDailyRollupRepository;
+import com.smartbudget.repository.TransactionMonthlySnapshotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionRollupVerifierTest {
+
+    @Mock
+    private TransactionDailyRollupRepository rollupRepository;
+
+    @Mock
+    private TransactionMonthlySnapshotRepository snapshotRepository;
+
+    private TransactionRollupVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        verifier = new TransactionRollupVerifier(rollupRepository, snapshotRepository, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void rebuildDrifted_ShouldRebuildOnlyDriftedUsersAndDropTheirSnapshots() {
+        UUID drifted = UUID.randomUUID();
+        when(rollupRepository.findUserIdsWithDrift()).thenReturn(List.of(drifted));
+
+        assertThat(verifier.rebuildDrifted()).isEqualTo(1);
+
+        InOrder order = inOrder(rollupRepository, snapshotRepository);
+        order.verify(rollupRepository).deleteByUserId(drifted);
+        order.verify(rollupRepository).rebuildForUser(drifted);
+        order.verify(snapshotRepository).deleteByUserId(drifted);
+    }
+
+    @Test
+    void rebuildDrifted_ShouldDoNothingWhenRollupsMatch() {
+        when(rollupRepository.findUserIdsWithDrift()).thenReturn(List.of());
+
+        assertThat(verifier.rebuildDrifted()).isZero();
+
+        verify(rollupRepository, never()).deleteByUserId(any());
+    }
+
+    @Test
+    void verifyQuietly_ShouldSwallowFailures() {
+        when(rollupRepository.findUserIdsWithDrift()).thenThrow(new IllegalStateException("db down"));
+
+        verifier.verifyQuietly();
+
+        verify(rollupRepository, never()).rebuildForUser(any());
+    }
+}
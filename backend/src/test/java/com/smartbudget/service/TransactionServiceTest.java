@@ -3,14 +3,15 @@ package com.smartbudget.service;
 import com.smartbudget.dto.TransactionRequest;
 import com.smartbudget.dto.TransactionResponse;
 import com.smartbudget.entity.Category;
+import com.smartbudget.entity.CategorySource;
 import com.smartbudget.entity.CategoryType;
 import com.smartbudget.entity.Transaction;
 import com.smartbudget.entity.TransactionType;
 import com.smartbudget.entity.User;
 import com.smartbudget.exception.ForbiddenOperationException;
 import com.smartbudget.exception.ResourceNotFoundException;
-import com.smartbudget.repository.CategoryRepository;
 import com.smartbudget.repository.TransactionRepository;
+import com.smartbudget.repository.TransactionTokenRepository;
 import com.smartbudget.repository.UserRepository;
 import com.smartbudget.service.FeedbackService;
 import org.junit.jupiter.api.BeforeEach;
@@ -45,7 +46,7 @@ class TransactionServiceTest {
     private TransactionRepository transactionRepository;
 
     @Mock
-    private CategoryRepository categoryRepository;
+    private CategoryRegistry categoryRegistry;
 
     @Mock
     private UserRepository userRepository;
@@ -53,6 +54,9 @@ class TransactionServiceTest {
     @Mock
     private FeedbackService feedbackService;
 
+    @Mock
+    private TransactionTokenRepository transactionTokenRepository;
+
     @InjectMocks
     private TransactionService transactionService;
 
@@ -159,7 +163,7 @@ class TransactionServiceTest {
     @Test
     void createTransaction_ShouldPersistNewEntity() {
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(categoryRepository.findById(request.getCategoryId())).thenReturn(Optional.of(category));
+        when(categoryRegistry.findById(request.getCategoryId())).thenReturn(Optional.of(category));
         when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
             Transaction saved = invocation.getArgument(0);
             saved.setId(UUID.randomUUID());
@@ -173,6 +177,8 @@ class TransactionServiceTest {
         assertThat(response.getAmount()).isEqualByComparingTo(request.getAmount());
         assertThat(response.getCategory().getId()).isEqualTo(category.getId());
         verify(transactionRepository).save(any(Transaction.class));
+        verify(transactionTokenRepository).insertToken(userId, "weekly", response.getId());
+        verify(transactionTokenRepository).insertToken(userId, "shopping", response.getId());
     }
 
     @Test
@@ -184,8 +190,8 @@ class TransactionServiceTest {
 
         request.setSuggestedCategoryId(suggestedId);
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(categoryRepository.findById(request.getCategoryId())).thenReturn(Optional.of(category));
-        when(categoryRepository.findById(suggestedId)).thenReturn(Optional.of(suggested));
+        when(categoryRegistry.findById(request.getCategoryId())).thenReturn(Optional.of(category));
+        when(categoryRegistry.findById(suggestedId)).thenReturn(Optional.of(suggested));
         when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction);
 
         transactionService.createTransaction(userId, request);
@@ -196,7 +202,7 @@ class TransactionServiceTest {
     @Test
     void createTransaction_WithMissingCategory_ShouldThrowNotFound() {
         when(userRepository.findById(userId)).thenReturn(Optional.of(user));
-        when(categoryRepository.findById(request.getCategoryId())).thenReturn(Optional.empty());
+        when(categoryRegistry.findById(request.getCategoryId())).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> transactionService.createTransaction(userId, request))
                 .isInstanceOf(ResourceNotFoundException.class)
@@ -211,16 +217,34 @@ class TransactionServiceTest {
         newCategory.setName("Utilities");
         newCategory.setType(CategoryType.EXPENSE);
         request.setCategoryId(newCategory.getId());
+        transaction.setCategorySource(CategorySource.AUTO);
 
         when(transactionRepository.findById(transactionId)).thenReturn(Optional.of(transaction));
-        when(categoryRepository.findById(request.getCategoryId())).thenReturn(Optional.of(newCategory));
+        when(categoryRegistry.findById(request.getCategoryId())).thenReturn(Optional.of(newCategory));
         when(transactionRepository.save(transaction)).thenReturn(transaction);
 
         TransactionResponse response = transactionService.updateTransaction(userId, transactionId, request);
 
         assertThat(response.getAmount()).isEqualByComparingTo(request.getAmount());
         assertThat(response.getCategory().getId()).isEqualTo(newCategory.getId());
+        assertThat(transaction.getCategorySource()).isEqualTo(CategorySource.USER);
         verify(transactionRepository).save(transaction);
+        verify(transactionTokenRepository).deleteByTransactionId(transactionId);
+        verify(transactionTokenRepository).insertToken(userId, "weekly", transactionId);
+        verify(transactionTokenRepository).insertToken(userId, "shopping", transactionId);
+    }
+
+    @Test
+    void updateTransaction_WithSameDescription_ShouldKeepTokenIndex() {
+        UUID transactionId = transaction.getId();
+        request.setDescription(transaction.getDescription());
+        when(transactionRepository.findById(transactionId)).thenReturn(Optional.of(transaction));
+        when(categoryRegistry.findById(request.getCategoryId())).thenReturn(Optional.of(category));
+        when(transactionRepository.save(transaction)).thenReturn(transaction);
+
+        transactionService.updateTransaction(userId, transactionId, request);
+
+        verifyNoInteractions(transactionTokenRepository);
     }
 
     @Test